@@ -0,0 +1,60 @@
+package ttt.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Per-move board work: what every search node and every /play pays. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private Board empty;
+    private Board midGame; // X 0, O 4, X 8: O to move, 6 empty cells
+    private int cell;
+
+    @Setup
+    public void setUp() {
+        empty = Board.initial(Mark.X);
+        midGame = empty.apply(0).apply(4).apply(8);
+    }
+
+    @Benchmark
+    public Board apply() {
+        cell = cell == 8 ? 1 : cell + 1; // cycle over 1..8 so the JIT can't fold a constant move
+        return midGame.isLegal(cell) ? midGame.apply(cell) : empty.apply(cell);
+    }
+
+    @Benchmark
+    public Board applyUnchecked() {
+        return midGame.applyUnchecked(1);
+    }
+
+    @Benchmark
+    public List<Integer> legalMoves() {
+        return midGame.legalMoves();
+    }
+
+    // The allocation-free alternative search code uses
+    @Benchmark
+    public void emptyMaskIteration(Blackhole bh) {
+        for (int m = midGame.emptyMask(); m != 0; m &= m - 1) bh.consume(Integer.numberOfTrailingZeros(m));
+    }
+
+    @Benchmark
+    public GameResult result() {
+        return Rules.result(midGame);
+    }
+
+    // What result() cost before it was tracked incrementally (still used by fromPacked)
+    @Benchmark
+    public GameResult fullScan() {
+        return Rules.scan(midGame.xMask(), midGame.oMask());
+    }
+}
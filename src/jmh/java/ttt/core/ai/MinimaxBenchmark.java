@@ -0,0 +1,51 @@
+package ttt.core.ai;
+
+import org.openjdk.jmh.annotations.*;
+import ttt.core.Board;
+import ttt.core.Mark;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One AI decision per difficulty. memo=none is the raw search; memo=warm reuses one
+ * transposition table across calls, like the server's shared table after warm-up.
+ * hard from the empty board is the center shortcut, kept as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinimaxBenchmark {
+
+    @Param({"easy", "medium", "hard"})
+    public String difficulty;
+
+    @Param({"empty", "midGame"})
+    public String position;
+
+    @Param({"none", "warm"})
+    public String memo;
+
+    private Board board;
+    private Minimax bot;
+
+    @Setup
+    public void setUp() {
+        Board start = Board.initial(Mark.X);
+        board = position.equals("empty") ? start : start.apply(0).apply(4).apply(8); // O to move
+        int depth = switch (difficulty) { // same depths as Minimax.easy/medium/hard
+            case "easy" -> 2;
+            case "medium" -> 4;
+            default -> 9;
+        };
+        TranspositionTable table = memo.equals("warm") ? new TranspositionTable(1 << 14) : null;
+        bot = new Minimax(board.toMove(), true, depth, table);
+    }
+
+    @Benchmark
+    public int chooseMove() {
+        return bot.chooseMove(board);
+    }
+}
@@ -0,0 +1,39 @@
+package ttt.core.ai;
+
+import org.openjdk.jmh.annotations.*;
+import ttt.core.Mark;
+import ttt.core.MnkBoard;
+import ttt.core.Position;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed number of MCTS playouts on one thread, so the score is playout cost; with
+ * -prof gc, allocation per op shows what tree expansion costs (playouts allocate nothing).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MonteCarloBenchmark {
+
+    @Param({"9", "15"})
+    public int size;
+
+    private Position position;
+    private MonteCarloTreeSearch bot;
+
+    @Setup
+    public void setUp() {
+        int mid = (size / 2) * size + size / 2;
+        position = MnkBoard.initial(size, size, 5, Mark.X).apply(mid).apply(mid + 1).apply(mid + size);
+        bot = new MonteCarloTreeSearch(null, 60_000, 1_000, 0);
+    }
+
+    @Benchmark
+    public int thousandPlayouts() {
+        return bot.chooseMove(position, 60_000);
+    }
+}
@@ -0,0 +1,79 @@
+package ttt.service;
+
+import org.openjdk.jmh.annotations.*;
+import ttt.api.dto.GameStateDTO;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.MnkBoard;
+import ttt.core.Position;
+import ttt.core.ai.IterativeDeepening;
+import ttt.domain.GameSession;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a game into its response DTO. render is the uncached work (a new version);
+ * the cached read is what an unchanged GET /api/games/{id} pays.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameServiceBenchmark {
+
+    private Board classic;
+    private Position gomoku;
+    private GameSession session;
+    private GameSession.State state;
+    private GameService service;
+    private InMemorySessionStore store;
+    private AiWorkers workers;
+    private String gameId;
+
+    @Setup
+    public void setUp() {
+        store = new InMemorySessionStore(Duration.ofMinutes(10), 1000, Duration.ZERO, Clock.systemUTC());
+        workers = new AiWorkers(1, 1, 100);
+        var bots = BotRegistry.standard(new IterativeDeepening(100, 0, 64), 100, 0).build();
+        service = new GameService(100, 2000, bots, store, workers);
+        gameId = service.createGame("PVE", "O", null, null).gameId();
+        service.playHumanMove(gameId, 0, null);
+
+        classic = Board.initial(Mark.X).apply(0).apply(4).apply(8);
+        gomoku = MnkBoard.initial(15, 15, 5, Mark.X).apply(112).apply(113).apply(127);
+        session = new GameSession(UUID.randomUUID(), classic, ttt.domain.Mode.PVE, Mark.O);
+        state = session.state();
+    }
+
+    @TearDown
+    public void tearDown() {
+        workers.close();
+        store.close();
+    }
+
+    // GET of an unchanged game: id lookup plus the cached view
+    @Benchmark
+    public GameStateDTO getState() {
+        return service.getState(gameId);
+    }
+
+    @Benchmark
+    public GameStateDTO render() {
+        return GameService.render(session, state);
+    }
+
+    @Benchmark
+    public String encodeClassicBoard() {
+        return GameService.encodeBoard(classic);
+    }
+
+    @Benchmark
+    public String encodeGomokuBoard() {
+        return GameService.encodeBoard(gomoku);
+    }
+}
@@ -0,0 +1,60 @@
+package ttt.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram: power-of-two ranges split into 16 linear steps each,
+ * so any recorded value is reported within ~6%. Fixed 1024 counters, no allocation
+ * per sample, safe to record from thousands of threads.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long v = Math.max(1, nanos);
+        counts.incrementAndGet(index(v));
+        total.incrementAndGet();
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    long count() {
+        return total.get();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    /** Upper edge of the bucket holding the p-th percentile (0 if nothing recorded). */
+    long percentile(double p) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(p / 100.0 * n);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return upperEdge(i);
+        }
+        return max.get();
+    }
+
+    private static int index(long v) {
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        if (exp < SUB_BITS) return (int) v; // small values: exact
+        int mantissa = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+        return (exp - SUB_BITS + 1) * SUB + mantissa;
+    }
+
+    private static long upperEdge(int idx) {
+        if (idx < SUB) return idx;
+        int exp = idx / SUB + SUB_BITS - 1;
+        long mantissa = idx % SUB;
+        return ((SUB + mantissa + 1) << (exp - SUB_BITS)) - 1;
+    }
+}
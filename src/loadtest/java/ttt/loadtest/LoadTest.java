@@ -0,0 +1,123 @@
+package ttt.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load generator shaped like our real traffic: many mostly-idle clients,
+ * each playing PVP 3x3 games with short GET state / POST play calls and think time
+ * in between. Every client is a virtual thread, so 10k+ clients fit in one JVM.
+ *
+ * Compare the two server modes by starting the app once with each setting and running
+ * the same load against it:
+ *
+ *   ./gradlew bootRun --args='--ttt.web.virtual-threads=false'
+ *   ./gradlew loadTest -Pclients=10000 -Pseconds=60
+ *   ./gradlew bootRun --args='--ttt.web.virtual-threads=true'
+ *   ./gradlew loadTest -Pclients=10000 -Pseconds=60
+ *
+ * Prints requests/s and latency percentiles (errors counted separately). For 10k clients
+ * the load generator needs ~10k sockets: raise `ulimit -n` on both sides first.
+ */
+public final class LoadTest {
+
+    private static final Pattern GAME_ID = Pattern.compile("\"gameId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern STATUS = Pattern.compile("\"status\"\\s*:\\s*\"([A-Z_]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int thinkMs = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong errors = new AtomicLong();
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(Math.min(10, seconds / 5)).toNanos();
+        long end = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        System.out.printf("%d clients for %ds against %s (think time %dms)%n", clients, seconds, base, thinkMs);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                pool.submit(() -> new Client(http, base, thinkMs, latency, errors, warmupEnd).run(end));
+            }
+        } // waits for every client to finish
+
+        double measured = (end - warmupEnd) / 1e9;
+        System.out.printf("requests: %d (%.0f/s), errors: %d%n",
+                latency.count(), latency.count() / measured, errors.get());
+        System.out.printf("latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                latency.percentile(50) / 1e6, latency.percentile(90) / 1e6, latency.percentile(99) / 1e6,
+                latency.percentile(99.9) / 1e6, latency.max() / 1e6);
+    }
+
+    /** One simulated player: new game, then state/move pairs with think time until it ends. */
+    private record Client(HttpClient http, String base, int thinkMs, LatencyHistogram latency,
+                          AtomicLong errors, long warmupEnd) {
+
+        void run(long end) {
+            String game = null;
+            List<Integer> free = new ArrayList<>();
+            while (System.nanoTime() < end) {
+                try {
+                    if (game == null || free.isEmpty()) {
+                        String body = call("POST", "/api/games", "{\"mode\":\"PVP\"}");
+                        game = match(GAME_ID, body);
+                        free.clear();
+                        for (int i = 0; i < 9; i++) free.add(i);
+                    }
+                    call("GET", "/api/games/" + game, null);
+                    think();
+                    int cell = free.remove(ThreadLocalRandom.current().nextInt(free.size()));
+                    String after = call("POST", "/api/games/" + game + "/play", "{\"index\":" + cell + "}");
+                    if (!"IN_PROGRESS".equals(match(STATUS, after))) game = null;
+                    think();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    game = null;
+                }
+            }
+        }
+
+        private String call(String method, String path, String json) throws Exception {
+            HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(30));
+            if (json != null) {
+                req.header("Content-Type", "application/json").method(method, HttpRequest.BodyPublishers.ofString(json));
+            } else {
+                req.method(method, HttpRequest.BodyPublishers.noBody());
+            }
+            long start = System.nanoTime();
+            HttpResponse<String> res = http.send(req.build(), HttpResponse.BodyHandlers.ofString());
+            long took = System.nanoTime() - start;
+            if (res.statusCode() >= 300) throw new IllegalStateException(method + " " + path + " -> " + res.statusCode());
+            if (start - warmupEnd > 0) latency.record(took);
+            return res.body();
+        }
+
+        private void think() throws InterruptedException {
+            if (thinkMs > 0) Thread.sleep(ThreadLocalRandom.current().nextInt(thinkMs / 2, thinkMs * 3 / 2 + 1));
+        }
+
+        private static String match(Pattern p, String body) {
+            Matcher m = p.matcher(body);
+            if (!m.find()) throw new IllegalStateException("Unexpected response: " + body);
+            return m.group(1);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ttt.api;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ttt.core.ai.TranspositionTable;
+import ttt.service.AiWorkers;
+
+@RestController
+@RequestMapping("/api/ai")
+public class AiStatsController {
+
+    private final AiWorkers aiWorkers;
+
+    public AiStatsController(AiWorkers aiWorkers) { this.aiWorkers = aiWorkers; }
+
+    // capacity/used/hits/misses/stores/evictions of the shared search cache, for sizing -Dttt.ai.ttBuckets
+    @GetMapping("/tt")
+    public TranspositionTable.Stats transpositionTable() {
+        return TranspositionTable.shared().stats();
+    }
+
+    // workers/active/queued/queueCapacity/completed/rejected of the AI search pool
+    @GetMapping("/workers")
+    public AiWorkers.Stats workers() {
+        return aiWorkers.stats();
+    }
+}
@@ -0,0 +1,147 @@
+package ttt.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ttt.api.dto.*;
+import ttt.service.BadRequestException;
+import ttt.service.ConflictException;
+import ttt.service.GameService;
+import ttt.service.NotFoundException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Many games per request, for load tests and tournament bots: one HTTP round trip and
+ * one pass through Spring MVC instead of one per game.
+ *
+ * Bodies are read and results written one element at a time, so neither side of a
+ * large batch is held in memory. The response is a JSON array of {@link BatchResult},
+ * one per item in request order; a failing item doesn't stop the others, including one
+ * whose fields don't fit (e.g. "index": "a"), which gets a 400 under its own index. Since
+ * the 200 is on the wire before the first item runs, a body that turns out not to be JSON
+ * part-way ends the array with an item -1 error instead of a 400.
+ *
+ * Moves are human moves (as /play): no AI searches run here, so batches never wait on
+ * the AI pool.
+ */
+@RestController
+@RequestMapping("/api/games/batch")
+public class BatchController {
+
+    private static final int FLUSH_EVERY = 256; // results per network write
+
+    private final GameService svc;
+    private final ObjectMapper mapper;
+    private final ObjectWriter resultWriter;
+    private final int maxItems;
+
+    public BatchController(GameService svc,
+                           ObjectMapper mapper,
+                           @Value("${ttt.batch.max-items:10000}") int maxItems) {
+        this.svc = svc;
+        this.mapper = mapper;
+        // we flush every FLUSH_EVERY results, not after each one
+        this.resultWriter = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.maxItems = maxItems;
+    }
+
+    // count games with the same settings
+    @PostMapping(value = "/create", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> create(@Valid @RequestBody BatchCreateRequest req) {
+        if (req.count() > maxItems) throw new BadRequestException("At most " + maxItems + " games per batch");
+        NewGameRequest g = req.game();
+        return stream(out -> {
+            for (int i = 0; i < req.count(); i++) {
+                write(out, i, () -> svc.createGame(g.mode(), g.aiPlays(), g.size(), g.k(), g.difficulty()));
+            }
+        });
+    }
+
+    // [{"gameId": ..., "index": 4, "expectedVersion": 2}, ...]; several moves for one game apply in order
+    @PostMapping(value = "/moves", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> moves(InputStream body) {
+        return streamItems(body, BatchMove.class, m -> svc.playHumanMove(m.gameId(), m.index(), m.expectedVersion()));
+    }
+
+    // ["id1", "id2", ...]
+    @PostMapping(value = "/states", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> states(InputStream body) {
+        return streamItems(body, String.class, svc::getState);
+    }
+
+    private <T> ResponseEntity<StreamingResponseBody> streamItems(InputStream body, Class<T> type,
+                                                                  Function<T, GameStateDTO> op) {
+        return stream(out -> {
+            try (JsonParser in = mapper.getFactory().createParser(body)) {
+                if (in.nextToken() != JsonToken.START_ARRAY) throw new BadRequestException("Body must be a JSON array");
+                int i = 0;
+                for (JsonToken t = in.nextToken(); t != JsonToken.END_ARRAY; t = in.nextToken(), i++) {
+                    if (t == null) throw new BadRequestException("Body ends inside the array");
+                    if (i == maxItems) throw new BadRequestException("At most " + maxItems + " items per batch");
+                    JsonNode item = mapper.readTree(in); // broken JSON still ends the batch: no way to resync
+                    write(out, i, () -> op.apply(convert(item, type)));
+                }
+            } catch (BadRequestException | IOException e) {
+                // Bad input, not a broken connection: that would fail this write as well
+                resultWriter.writeValue(out, BatchResult.failed(-1, 400, e.getMessage()));
+            }
+        });
+    }
+
+    // One item as type, or a 400 for that item alone
+    private <T> T convert(JsonNode item, Class<T> type) {
+        try {
+            return mapper.treeToValue(item, type);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed item: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Malformed item: " + e.getMessage());
+        }
+    }
+
+    private interface Items {
+        void writeTo(JsonGenerator out) throws IOException;
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(Items items) {
+        StreamingResponseBody body = os -> {
+            try (JsonGenerator out = mapper.getFactory().createGenerator(os)) {
+                out.writeStartArray();
+                items.writeTo(out);
+                out.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Same status the single-game endpoints map these to in ErrorAdvice
+    private void write(JsonGenerator out, int item, Supplier<GameStateDTO> op) throws IOException {
+        BatchResult r;
+        try {
+            r = BatchResult.ok(item, op.get());
+        } catch (BadRequestException e) {
+            r = BatchResult.failed(item, 400, e.getMessage());
+        } catch (NotFoundException e) {
+            r = BatchResult.failed(item, 404, e.getMessage());
+        } catch (ConflictException e) {
+            r = BatchResult.failed(item, 409, e.getMessage());
+        }
+        resultWriter.writeValue(out, r);
+        if (item % FLUSH_EVERY == FLUSH_EVERY - 1) out.flush();
+    }
+}
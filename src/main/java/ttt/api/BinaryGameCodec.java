@@ -0,0 +1,179 @@
+package ttt.api;
+
+import ttt.api.dto.GameStateDTO;
+import ttt.api.dto.PlayRequest;
+import ttt.api.dto.TurnResponse;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Compact binary form of the hot-path DTOs, for clients that send
+ * {@code Accept: application/x-ttt-game} (and {@code Content-Type} for request bodies).
+ * All numbers are big-endian.
+ *
+ * GameStateDTO, 35 bytes for 3x3 (about 220 as JSON):
+ * <pre>
+ *   u8   format (2; 1 had no ply and redo)
+ *   16   game id (UUID most, then least significant bits)
+ *   i64  version
+ *   u8   flags: bit 0 toMove is O | bits 1-2 status | bit 3 PVE | bits 4-5 aiPlays (0 none, 1 X, 2 O)
+ *              | bits 6-7 difficulty (0 none, 1 EASY, 2 MEDIUM, 3 HARD)
+ *   u8   size
+ *   u8   k
+ *   u16  ply
+ *   u16  redo
+ *   ...  cells, 2 bits each (0 empty, 1 X, 2 O), row-major, four per byte from the low bits up
+ * </pre>
+ * status is 0 IN_PROGRESS, 1 X_WIN, 2 O_WIN, 3 DRAW; winner follows from it. The move
+ * list is JSON only (GET with ?moves=true or /replay), so it decodes as null.
+ *
+ * TurnResponse: u16 humanMove, u16 aiMove (0xFFFF = none), then the state.
+ * PlayRequest: u16 index, optionally followed by i64 expectedVersion.
+ */
+public final class BinaryGameCodec {
+    public static final String MEDIA_TYPE = "application/x-ttt-game";
+
+    static final int FORMAT = 2;
+    static final int NO_MOVE = 0xFFFF;
+    private static final int HEADER = 1 + 16 + 8 + 1 + 1 + 1 + 2 + 2;
+    private static final String[] STATUS = {"IN_PROGRESS", "X_WIN", "O_WIN", "DRAW"};
+    private static final String[] DIFFICULTY = {"", "EASY", "MEDIUM", "HARD"};
+
+    private BinaryGameCodec() {}
+
+    public static int length(GameStateDTO s) {
+        return HEADER + (s.board().length() + 3) / 4;
+    }
+
+    public static byte[] encode(GameStateDTO s) {
+        ByteBuffer out = ByteBuffer.allocate(length(s));
+        write(s, out);
+        return out.array();
+    }
+
+    public static byte[] encode(TurnResponse t) {
+        ByteBuffer out = ByteBuffer.allocate(4 + length(t.state()));
+        out.putShort((short) t.humanMove());
+        out.putShort((short) (t.aiMove() == null ? NO_MOVE : t.aiMove()));
+        write(t.state(), out);
+        return out.array();
+    }
+
+    public static byte[] encode(PlayRequest p) {
+        ByteBuffer out = ByteBuffer.allocate(p.expectedVersion() == null ? 2 : 10);
+        out.putShort((short) p.index());
+        if (p.expectedVersion() != null) out.putLong(p.expectedVersion());
+        return out.array();
+    }
+
+    private static void write(GameStateDTO s, ByteBuffer out) {
+        UUID id = UUID.fromString(s.gameId());
+        out.put((byte) FORMAT);
+        out.putLong(id.getMostSignificantBits());
+        out.putLong(id.getLeastSignificantBits());
+        out.putLong(s.version());
+        int flags = (s.toMove().equals("O") ? 1 : 0)
+                | status(s.status()) << 1
+                | (s.mode().equals("PVE") ? 1 << 3 : 0)
+                | markCode(s.aiPlays()) << 4
+                | difficultyCode(s.difficulty()) << 6;
+        out.put((byte) flags);
+        out.put((byte) s.size());
+        out.put((byte) s.k());
+        out.putShort((short) s.ply());
+        out.putShort((short) s.redo());
+        String board = s.board();
+        int packed = 0;
+        for (int i = 0; i < board.length(); i++) {
+            packed |= cellCode(board.charAt(i)) << ((i & 3) * 2);
+            if ((i & 3) == 3) {
+                out.put((byte) packed);
+                packed = 0;
+            }
+        }
+        if ((board.length() & 3) != 0) out.put((byte) packed);
+    }
+
+    public static GameStateDTO decodeState(ByteBuffer in) {
+        if ((in.get() & 0xFF) != FORMAT) throw new IllegalArgumentException("Unknown format");
+        String id = new UUID(in.getLong(), in.getLong()).toString();
+        long version = in.getLong();
+        int flags = in.get() & 0xFF;
+        int size = in.get() & 0xFF;
+        int k = in.get() & 0xFF;
+        int ply = in.getShort() & 0xFFFF;
+        int redo = in.getShort() & 0xFFFF;
+        StringBuilder board = new StringBuilder(size * size);
+        int packed = 0;
+        for (int i = 0; i < size * size; i++) {
+            if ((i & 3) == 0) packed = in.get() & 0xFF;
+            board.append(".XO".charAt((packed >>> ((i & 3) * 2)) & 3));
+        }
+        String status = STATUS[(flags >>> 1) & 3];
+        String winner = switch (status) {
+            case "X_WIN" -> "X";
+            case "O_WIN" -> "O";
+            default -> "";
+        };
+        String aiPlays = switch ((flags >>> 4) & 3) {
+            case 1 -> "X";
+            case 2 -> "O";
+            default -> "";
+        };
+        String difficulty = DIFFICULTY[(flags >>> 6) & 3];
+        return new GameStateDTO(id, board.toString(), (flags & 1) != 0 ? "O" : "X", status, winner,
+                (flags & (1 << 3)) != 0 ? "PVE" : "PVP", aiPlays, difficulty, size, k, version, ply, redo, null);
+    }
+
+    public static TurnResponse decodeTurn(ByteBuffer in) {
+        int human = in.getShort() & 0xFFFF;
+        int ai = in.getShort() & 0xFFFF;
+        return new TurnResponse(human, ai == NO_MOVE ? null : ai, decodeState(in));
+    }
+
+    /** @throws IllegalArgumentException if body is neither 2 nor 10 bytes */
+    public static PlayRequest decodePlay(byte[] body) {
+        if (body.length != 2 && body.length != 10) {
+            throw new IllegalArgumentException("PlayRequest is 2 or 10 bytes, got " + body.length);
+        }
+        ByteBuffer in = ByteBuffer.wrap(body);
+        int index = in.getShort() & 0xFFFF;
+        return new PlayRequest(index, body.length == 10 ? in.getLong() : null);
+    }
+
+    private static int status(String s) {
+        return switch (s) {
+            case "IN_PROGRESS" -> 0;
+            case "X_WIN" -> 1;
+            case "O_WIN" -> 2;
+            case "DRAW" -> 3;
+            default -> throw new IllegalArgumentException("Unknown status " + s);
+        };
+    }
+
+    private static int markCode(String mark) {
+        return switch (mark) {
+            case "X" -> 1;
+            case "O" -> 2;
+            default -> 0;
+        };
+    }
+
+    private static int difficultyCode(String d) {
+        return switch (d) {
+            case "EASY" -> 1;
+            case "MEDIUM" -> 2;
+            case "HARD" -> 3;
+            default -> 0;
+        };
+    }
+
+    private static int cellCode(char c) {
+        return switch (c) {
+            case 'X' -> 1;
+            case 'O' -> 2;
+            default -> 0;
+        };
+    }
+}
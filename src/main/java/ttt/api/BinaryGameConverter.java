@@ -0,0 +1,59 @@
+package ttt.api;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import ttt.api.dto.GameStateDTO;
+import ttt.api.dto.PlayRequest;
+import ttt.api.dto.TurnResponse;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Serves {@link BinaryGameCodec} through content negotiation: GameStateDTO and
+ * TurnResponse are written in it when the client prefers application/x-ttt-game, and
+ * PlayRequest bodies sent with that Content-Type are read from it. JSON stays the default.
+ * Errors are still JSON, so binary clients should accept both.
+ */
+public class BinaryGameConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final MediaType GAME = MediaType.parseMediaType(BinaryGameCodec.MEDIA_TYPE);
+
+    private static final int MAX_BODY = 512; // largest state (19x19) is 119 bytes
+
+    public BinaryGameConverter() {
+        super(GAME);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == GameStateDTO.class || clazz == TurnResponse.class || clazz == PlayRequest.class;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage in) throws IOException {
+        byte[] body = in.getBody().readNBytes(MAX_BODY);
+        try {
+            if (clazz == PlayRequest.class) return BinaryGameCodec.decodePlay(body);
+            ByteBuffer buf = ByteBuffer.wrap(body);
+            return clazz == TurnResponse.class ? BinaryGameCodec.decodeTurn(buf) : BinaryGameCodec.decodeState(buf);
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new HttpMessageNotReadableException("Bad " + BinaryGameCodec.MEDIA_TYPE + " body: " + e.getMessage(), e, in);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object o, HttpOutputMessage out) throws IOException {
+        out.getBody().write(encode(o));
+    }
+
+    private static byte[] encode(Object o) {
+        if (o instanceof GameStateDTO s) return BinaryGameCodec.encode(s);
+        if (o instanceof TurnResponse t) return BinaryGameCodec.encode(t);
+        return BinaryGameCodec.encode((PlayRequest) o);
+    }
+}
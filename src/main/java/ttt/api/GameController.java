@@ -1,43 +1,144 @@
 package ttt.api;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ttt.api.dto.*;
+import ttt.service.GameEvents;
 import ttt.service.GameService;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/games")
 public class GameController {
 
     private final GameService svc;
+    private final GameEvents events;
+    private final long eventsTimeoutMs;
 
-    public GameController(GameService svc) { this.svc = svc; }
+    public GameController(GameService svc,
+                          GameEvents events,
+                          @Value("${ttt.events.timeout-minutes:30}") long eventsTimeoutMinutes) {
+        this.svc = svc;
+        this.events = events;
+        this.eventsTimeoutMs = Duration.ofMinutes(eventsTimeoutMinutes).toMillis();
+    }
 
     @PostMapping
     public ResponseEntity<GameStateDTO> create(@Valid @RequestBody NewGameRequest req) {
-        return ResponseEntity.ok(svc.createGame(req.mode(), req.aiPlays()));
+        return ResponseEntity.ok(svc.createGame(req.mode(), req.aiPlays(), req.size(), req.k(), req.difficulty()));
     }
 
+    // Conditional GET: If-None-Match with the last ETag answers 304 and no body while the game is unchanged.
+    // moves=true adds the move list (GameStateDTO.moves). Each representation of a version (JSON or
+    // binary, with or without moves) has its own ETag, and caches key on Accept.
     @GetMapping("/{id}")
-    public ResponseEntity<GameStateDTO> get(@PathVariable String id) {
-        return ResponseEntity.ok(svc.getState(id));
+    public ResponseEntity<GameStateDTO> get(@PathVariable String id,
+                                            @RequestParam(defaultValue = "false") boolean moves,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                            WebRequest request, HttpServletResponse response) {
+        GameService.View view = svc.view(id, moves);
+        String etag = prefersBinary(accept) ? binaryETag(view.etag()) : view.etag();
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT); // on the 304 too
+        if (request.checkNotModified(etag)) return null; // Spring has already set the 304
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(view.state());
+    }
+
+    // Server-Sent Events instead of polling GET: one "state" event, then a "delta" (GameDelta) per change
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable String id) throws IOException {
+        SseEmitter emitter = new SseEmitter(eventsTimeoutMs);
+        var sub = events.subscribe(id, new GameEvents.Sink() {
+            @Override
+            public void send(String event, Object data) throws IOException {
+                emitter.send(SseEmitter.event().name(event).data(data));
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(sub::close);
+        emitter.onTimeout(sub::close);
+        emitter.onError(e -> sub.close());
+        return emitter;
+    }
+
+    // What content negotiation picks for accept (see WebConfig): the binary form only when the
+    // client's most preferred type names it; no Accept, */* and application/* get JSON.
+    private static boolean prefersBinary(String accept) {
+        if (accept == null) return false;
+        List<MediaType> types = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(types); // quality first, then the more specific type
+        for (MediaType t : types) {
+            if (t.isCompatibleWith(MediaType.APPLICATION_JSON)) return false;
+            if (t.isCompatibleWith(BinaryGameConverter.GAME)) return true;
+        }
+        return false;
+    }
+
+    // W/"7" -> W/"7-b": the same version's binary body
+    private static String binaryETag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-b\"";
     }
 
     @PostMapping("/{id}/play")
     public ResponseEntity<GameStateDTO> play(@PathVariable String id, @Valid @RequestBody PlayRequest req) {
-        return ResponseEntity.ok(svc.playHumanMove(id, req.index()));
+        return ResponseEntity.ok(svc.playHumanMove(id, req.index(), req.expectedVersion()));
     }
 
+    // Human move + AI reply (PVE) in one round trip; same body as /play, budgetMs as /ai-move
+    @PostMapping("/{id}/turn")
+    public CompletableFuture<ResponseEntity<TurnResponse>> turn(@PathVariable String id,
+                                                                @Valid @RequestBody PlayRequest req,
+                                                                @RequestParam(required = false) Long budgetMs) {
+        return svc.playTurnAsync(id, req.index(), req.expectedVersion(), budgetMs).thenApply(ResponseEntity::ok);
+    }
+
+    // budgetMs: optional per-request think-time limit (ms) for large boards.
+    // Searches run on the AI pool, not this request thread; 503 + Retry-After when it's full.
     @PostMapping("/{id}/ai-move")
-    public ResponseEntity<GameStateDTO> aiMove(@PathVariable String id) {
-        return ResponseEntity.ok(svc.playAiMove(id));
+    public CompletableFuture<ResponseEntity<GameStateDTO>> aiMove(@PathVariable String id,
+                                                                  @RequestParam(required = false) Long budgetMs) {
+        return svc.playAiMoveAsync(id, budgetMs).thenApply(ResponseEntity::ok);
+    }
+
+    // Take back the last move (PVE: and the AI's reply); expectedVersion as in PlayRequest
+    @PostMapping("/{id}/undo")
+    public ResponseEntity<GameStateDTO> undo(@PathVariable String id,
+                                             @RequestParam(required = false) Long expectedVersion) {
+        return ResponseEntity.ok(svc.undo(id, expectedVersion));
+    }
+
+    @PostMapping("/{id}/redo")
+    public ResponseEntity<GameStateDTO> redo(@PathVariable String id,
+                                             @RequestParam(required = false) Long expectedVersion) {
+        return ResponseEntity.ok(svc.redo(id, expectedVersion));
+    }
+
+    // The game after `ply` moves, rebuilt from the move history; read-only
+    @GetMapping("/{id}/replay")
+    public ResponseEntity<GameStateDTO> replay(@PathVariable String id, @RequestParam int ply) {
+        return ResponseEntity.ok(svc.replay(id, ply));
     }
 
     @GetMapping("/{id}/hint")
-    public ResponseEntity<HintResponse> hint(@PathVariable String id) {
-        int idx = svc.hint(id);
-        return ResponseEntity.ok(new HintResponse(idx));
+    public CompletableFuture<ResponseEntity<HintResponse>> hint(@PathVariable String id,
+                                                                @RequestParam(required = false) Long budgetMs) {
+        return svc.hintAsync(id, budgetMs).thenApply(idx -> ResponseEntity.ok(new HintResponse(idx)));
     }
 }
 
@@ -0,0 +1,126 @@
+package ttt.api;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ttt.core.GameResult;
+import ttt.core.ai.SearchStats;
+import ttt.core.ai.TranspositionTable;
+import ttt.metrics.PrometheusText;
+import ttt.service.AiWorkers;
+import ttt.service.GameEvents;
+import ttt.service.GameMetrics;
+import ttt.service.SessionStore;
+
+import java.util.Map;
+
+import static ttt.metrics.PrometheusText.label;
+
+/**
+ * Everything worth graphing, in Prometheus text format: per-endpoint latency, AI search
+ * stats per difficulty, the AI pool, the search cache, live sessions and event streams.
+ * The JSON endpoints under /api/ai and /api/sessions stay for humans.
+ */
+@RestController
+public class MetricsController {
+
+    private final RequestMetrics requests;
+    private final SessionStore sessions;
+    private final AiWorkers aiWorkers;
+    private final GameEvents events;
+    private final GameMetrics games;
+
+    public MetricsController(RequestMetrics requests, SessionStore sessions, AiWorkers aiWorkers,
+                             GameEvents events, GameMetrics games) {
+        this.requests = requests;
+        this.sessions = sessions;
+        this.aiWorkers = aiWorkers;
+        this.events = events;
+        this.games = games;
+    }
+
+    @GetMapping(value = "/metrics", produces = PrometheusText.CONTENT_TYPE)
+    public String metrics() {
+        PrometheusText out = new PrometheusText();
+        writeRequests(out);
+        writeSearches(out);
+
+        out.family("ttt_games_created_total", "counter", "Games started")
+                .sample("ttt_games_created_total", "", games.created());
+        out.family("ttt_game_changes_total", "counter", "Moves applied (a /turn counts once)")
+                .sample("ttt_game_changes_total", "", games.changes());
+        out.family("ttt_games_finished_total", "counter", "Games that reached a result (redone ends not counted again)");
+        for (GameResult r : GameResult.values()) {
+            if (r != GameResult.IN_PROGRESS) {
+                out.sample("ttt_games_finished_total", label("result", r.name()), games.finished(r));
+            }
+        }
+
+        var w = aiWorkers.stats();
+        out.family("ttt_ai_workers_active", "gauge", "AI searches running").sample("ttt_ai_workers_active", "", w.active());
+        out.family("ttt_ai_workers_queued", "gauge", "AI searches waiting for a worker")
+                .sample("ttt_ai_workers_queued", "", w.queued());
+        out.family("ttt_ai_workers_completed_total", "counter", "AI searches finished")
+                .sample("ttt_ai_workers_completed_total", "", w.completed());
+        out.family("ttt_ai_workers_rejected_total", "counter", "AI requests turned away with 503")
+                .sample("ttt_ai_workers_rejected_total", "", w.rejected());
+
+        var tt = TranspositionTable.shared().stats();
+        out.family("ttt_tt_used", "gauge", "Occupied transposition table slots").sample("ttt_tt_used", "", tt.used());
+        out.family("ttt_tt_hits_total", "counter", "Transposition table probes that found their key")
+                .sample("ttt_tt_hits_total", "", tt.hits());
+        out.family("ttt_tt_misses_total", "counter", "Transposition table probes that did not")
+                .sample("ttt_tt_misses_total", "", tt.misses());
+
+        var s = sessions.stats();
+        out.family("ttt_sessions_live", "gauge", "Games in the session store").sample("ttt_sessions_live", "", s.live());
+        out.family("ttt_sessions_expired_total", "counter", "Games dropped after the idle TTL")
+                .sample("ttt_sessions_expired_total", "", s.expired());
+        out.family("ttt_sessions_evicted_total", "counter", "Games dropped to stay under ttt.sessions.max")
+                .sample("ttt_sessions_evicted_total", "", s.evicted());
+        out.family("ttt_sessions_estimated_bytes", "gauge", "Approximate heap held by sessions")
+                .sample("ttt_sessions_estimated_bytes", "", s.estimatedBytes());
+
+        var e = events.stats();
+        out.family("ttt_events_subscribers", "gauge", "Open /events streams")
+                .sample("ttt_events_subscribers", "", e.subscribers());
+        out.family("ttt_events_sent_total", "counter", "Deltas pushed").sample("ttt_events_sent_total", "", e.sent());
+        out.family("ttt_events_dropped_total", "counter", "Streams closed for falling behind")
+                .sample("ttt_events_dropped_total", "", e.dropped());
+        return out.toString();
+    }
+
+    private void writeRequests(PrometheusText out) {
+        Map<String, RequestMetrics.Endpoint> endpoints = requests.endpoints();
+        out.family("ttt_http_request_duration_seconds", "histogram", "Time to complete a request, by route");
+        endpoints.forEach((route, e) -> out.seconds("ttt_http_request_duration_seconds", routeLabels(route), e.latency()));
+        out.family("ttt_http_errors_total", "counter", "Responses with a 4xx or 5xx status, by route");
+        endpoints.forEach((route, e) -> {
+            out.sample("ttt_http_errors_total", routeLabels(route) + "," + label("class", "4xx"), e.clientErrors().sum());
+            out.sample("ttt_http_errors_total", routeLabels(route) + "," + label("class", "5xx"), e.serverErrors().sum());
+        });
+    }
+
+    // "POST /api/games/{id}/play" -> method="POST",route="/api/games/{id}/play"
+    private static String routeLabels(String route) {
+        int space = route.indexOf(' ');
+        return label("method", route.substring(0, space)) + "," + label("route", route.substring(space + 1));
+    }
+
+    private static void writeSearches(PrometheusText out) {
+        var all = SearchStats.all();
+        out.family("ttt_ai_search_duration_seconds", "histogram", "Time per chooseMove, by difficulty or engine");
+        all.forEach(s -> out.seconds("ttt_ai_search_duration_seconds", label("kind", s.name()), s.time()));
+        out.family("ttt_ai_search_depth", "histogram", "Plies searched (deepest completed iteration)");
+        all.forEach(s -> out.histogram("ttt_ai_search_depth", label("kind", s.name()), s.depth()));
+        out.family("ttt_ai_nodes_total", "counter", "Search nodes visited");
+        all.forEach(s -> out.sample("ttt_ai_nodes_total", label("kind", s.name()), s.nodes()));
+        out.family("ttt_ai_prunes_total", "counter", "Alpha-beta cut-offs");
+        all.forEach(s -> out.sample("ttt_ai_prunes_total", label("kind", s.name()), s.prunes()));
+        out.family("ttt_ai_memo_probes_total", "counter", "Transposition table lookups during search");
+        all.forEach(s -> out.sample("ttt_ai_memo_probes_total", label("kind", s.name()), s.memoProbes()));
+        out.family("ttt_ai_memo_hits_total", "counter", "Lookups whose stored value ended the node");
+        all.forEach(s -> out.sample("ttt_ai_memo_hits_total", label("kind", s.name()), s.memoHits()));
+        out.family("ttt_ai_timeouts_total", "counter", "Searches stopped by their time budget");
+        all.forEach(s -> out.sample("ttt_ai_timeouts_total", label("kind", s.name()), s.timeouts()));
+    }
+}
@@ -0,0 +1,56 @@
+package ttt.api;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ttt.metrics.Histogram;
+import ttt.metrics.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and error counts per endpoint (method + route pattern, so every game id shares
+ * one series). Async endpoints (AI moves, batches) are timed until their response
+ * completes: Spring runs preHandle again on the async dispatch, and only the first start
+ * time is kept. Event streams are left out (see WebConfig): they stay open as long as the
+ * client watches.
+ */
+public class RequestMetrics implements HandlerInterceptor {
+
+    private static final String START = RequestMetrics.class.getName() + ".start";
+
+    private final Map<String, Endpoint> byRoute = new ConcurrentHashMap<>();
+
+    /** One method + route. */
+    public record Endpoint(Histogram latency, LongAdder clientErrors, LongAdder serverErrors) {
+        Endpoint() {
+            this(Histogram.latency(), new LongAdder(), new LongAdder());
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest req, HttpServletResponse res, Object handler) {
+        if (Metrics.enabled() && req.getAttribute(START) == null) req.setAttribute(START, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest req, HttpServletResponse res, Object handler, Exception ex) {
+        if (!(req.getAttribute(START) instanceof Long start)) return;
+        Object pattern = req.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = req.getMethod() + " " + (pattern == null ? "unmatched" : pattern);
+        Endpoint e = byRoute.get(route);
+        if (e == null) e = byRoute.computeIfAbsent(route, r -> new Endpoint());
+        e.latency().record(System.nanoTime() - start);
+        int status = res.getStatus();
+        if (status >= 500) e.serverErrors().increment();
+        else if (status >= 400) e.clientErrors().increment();
+    }
+
+    public Map<String, Endpoint> endpoints() {
+        return byRoute;
+    }
+}
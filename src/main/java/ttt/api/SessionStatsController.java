@@ -0,0 +1,32 @@
+package ttt.api;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ttt.service.GameEvents;
+import ttt.service.SessionStore;
+
+@RestController
+@RequestMapping("/api/sessions")
+public class SessionStatsController {
+
+    private final SessionStore store;
+    private final GameEvents events;
+
+    public SessionStatsController(SessionStore store, GameEvents events) {
+        this.store = store;
+        this.events = events;
+    }
+
+    // live/expired/evicted/estimatedBytes, for sizing ttt.sessions.max and the TTL
+    @GetMapping("/stats")
+    public SessionStore.Stats stats() {
+        return store.stats();
+    }
+
+    // open /events streams, deltas pushed, streams closed for not keeping up
+    @GetMapping("/events")
+    public GameEvents.Stats events() {
+        return events.stats();
+    }
+}
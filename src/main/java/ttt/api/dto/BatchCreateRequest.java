@@ -0,0 +1,11 @@
+package ttt.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record BatchCreateRequest(
+        @Min(1) int count, // upper bound is ttt.batch.max-items
+        // Settings shared by every game in the batch, as for POST /api/games
+        @NotNull @Valid NewGameRequest game
+) {}
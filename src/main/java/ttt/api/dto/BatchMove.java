@@ -0,0 +1,8 @@
+package ttt.api.dto;
+
+// One element of the POST /api/games/batch/moves array: PlayRequest plus the game it is for
+public record BatchMove(
+        String gameId,
+        int index,
+        Long expectedVersion
+) {}
@@ -0,0 +1,22 @@
+package ttt.api.dto;
+
+/**
+ * Outcome of one batch item, in request order. status is what the single-game endpoint
+ * would have answered (200, 400, 404, 409); state is set on 200, error otherwise.
+ * item is the 0-based position in the request, or -1 when the batch itself was rejected
+ * part-way (malformed body, too many items) and the remaining items were not processed.
+ */
+public record BatchResult(
+        int item,
+        int status,
+        GameStateDTO state,
+        String error
+) {
+    public static BatchResult ok(int item, GameStateDTO state) {
+        return new BatchResult(item, 200, state, null);
+    }
+
+    public static BatchResult failed(int item, int status, String error) {
+        return new BatchResult(item, status, null, error);
+    }
+}
@@ -0,0 +1,13 @@
+package ttt.api.dto;
+
+// Pushed on /events for each change: only the cells that changed, not the whole board
+public record GameDelta(
+        long version,     // GameStateDTO.version after the change; each delta is exactly one step
+        int[] cells,      // changed cells, ascending (two for a /turn, or an undo or redo of a move and its reply)
+        String marks,     // new content of cells[i] is marks.charAt(i): 'X', 'O' or '.'
+        String toMove,
+        String status,
+        String winner,
+        int ply,
+        int redo
+) {}
@@ -2,11 +2,17 @@ package ttt.api.dto;
 
 public record GameStateDTO(
         String gameId,
-        String board,     // e.g. "XO..O.X.."
+        String board,     // e.g. "XO..O.X..", row-major, size*size chars
         String toMove,    // "X" or "O"
         String status,    // "IN_PROGRESS","X_WIN","O_WIN","DRAW"
         String winner,    // "X","O","" (empty if none)
         String mode,      // "PVP"|"PVE"
-        String aiPlays    // "X"|"O"|"" (empty if PVP)
+        String aiPlays,   // "X"|"O"|"" (empty if PVP)
+        String difficulty, // "EASY"|"MEDIUM"|"HARD"|"" (empty if PVP)
+        int size,         // board is size x size
+        int k,            // stones in a row to win
+        long version,     // +1 on every change (a /turn counts once); send back as PlayRequest.expectedVersion
+        int ply,          // moves on the board since the game started; /undo goes back from here
+        int redo,         // undone moves /redo can play again
+        int[] moves       // cells played, in order (ply on the board, then the redo ones); only when asked for, else null
 ) {}
-
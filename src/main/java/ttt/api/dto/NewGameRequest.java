@@ -1,11 +1,17 @@
 package ttt.api.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 
 public record NewGameRequest(
         @NotBlank @Pattern(regexp = "PVP|PVE") String mode,
         // When PVE, who should the AI play as? "X" or "O". Optional for PVP.
-        @Pattern(regexp = "X|O") String aiPlays
+        @Pattern(regexp = "X|O") String aiPlays,
+        // How well the AI plays (default HARD); ignored for PVP
+        @Pattern(regexp = "EASY|MEDIUM|HARD") String difficulty,
+        // Board is size x size (default 3); k in a row wins (default: min(size, 5))
+        @Min(3) @Max(19) Integer size,
+        @Min(3) @Max(19) Integer k
 ) {}
-
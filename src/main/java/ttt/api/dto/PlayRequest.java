@@ -1,9 +1,9 @@
 package ttt.api.dto;
 
-import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 
 public record PlayRequest(
-        @Min(0) @Max(8) int index
+        @Min(0) int index, // row-major; upper bound depends on the board size and is checked by the service
+        // Optional: GameStateDTO.version the move was made against; 409 if the game has moved on
+        Long expectedVersion
 ) {}
-
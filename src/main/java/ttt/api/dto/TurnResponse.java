@@ -0,0 +1,7 @@
+package ttt.api.dto;
+
+public record TurnResponse(
+        int humanMove,      // the cell the client played
+        Integer aiMove,     // the AI's reply, null in PVP or if the human move ended the game
+        GameStateDTO state  // after both moves
+) {}
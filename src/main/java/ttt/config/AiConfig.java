@@ -0,0 +1,74 @@
+package ttt.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ttt.core.ai.Bot;
+import ttt.core.ai.IterativeDeepening;
+import ttt.core.ai.MonteCarloTreeSearch;
+import ttt.core.ai.ParallelSearch;
+import ttt.service.AiWorkers;
+import ttt.service.BotRegistry;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Search engine for boards bigger than 3x3 (3x3 HARD is always the solved table), and the
+ * registry of bots per difficulty built around it.
+ * ttt.ai.engine=mcts picks Monte Carlo tree search; otherwise alpha-beta, where
+ * ttt.ai.parallelism > 1 picks the ForkJoin root-split search, 1 the single-threaded one.
+ * ttt.ai.reproducible trades the time budget for a fixed depth so replays give the same moves
+ * (and overrides mcts, whose random playouts can't replay).
+ */
+@Configuration
+public class AiConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool aiPool(@Value("${ttt.ai.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(threads(parallelism));
+    }
+
+    @Bean
+    public Bot largeBoardBot(ForkJoinPool aiPool,
+                             @Value("${ttt.ai.parallelism:0}") int parallelism,
+                             @Value("${ttt.ai.budget-ms:100}") long budgetMs,
+                             @Value("${ttt.ai.reproducible:false}") boolean reproducible,
+                             @Value("${ttt.ai.reproducible-depth:4}") int reproducibleDepth,
+                             @Value("${ttt.ai.engine:alphabeta}") String engine,
+                             @Value("${ttt.ai.mcts.iterations:0}") long mctsIterations,
+                             @Value("${ttt.ai.mcts.reuse-trees:256}") int mctsReuseTrees) {
+        if (engine.equals("mcts") && !reproducible) {
+            return new MonteCarloTreeSearch(threads(parallelism) > 1 ? aiPool : null, budgetMs, mctsIterations,
+                    mctsReuseTrees);
+        }
+        // Reproducible: no clock, every search goes exactly this deep (keep it small on big boards)
+        int maxDepth = reproducible ? reproducibleDepth : 64;
+        // ParallelSearch gives the same answer on any pool size, so it also serves reproducible mode
+        if (reproducible || threads(parallelism) > 1) {
+            return new ParallelSearch(aiPool, budgetMs, maxDepth, reproducible);
+        }
+        return new IterativeDeepening(budgetMs, 0, maxDepth);
+    }
+
+    @Bean
+    public BotRegistry botRegistry(Bot largeBoardBot,
+                                   @Value("${ttt.ai.budget-ms:100}") long budgetMs,
+                                   @Value("${ttt.ai.reproducible:false}") boolean reproducible,
+                                   @Value("${ttt.ai.easy-epsilon:0.25}") double easyEpsilon) {
+        // random blunders would make replays differ
+        return BotRegistry.standard(largeBoardBot, budgetMs, reproducible ? 0 : easyEpsilon).build();
+    }
+
+    // Request-side pool the searches run on (each may fan out further on aiPool).
+    @Bean(destroyMethod = "close")
+    public AiWorkers aiWorkers(@Value("${ttt.ai.workers:0}") int workers,
+                               @Value("${ttt.ai.queue:64}") int queue,
+                               @Value("${ttt.ai.budget-ms:100}") long budgetMs) {
+        return new AiWorkers(threads(workers), queue, budgetMs);
+    }
+
+    // 0 (the default) = one thread per core
+    private static int threads(int parallelism) {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,21 @@
+package ttt.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ttt.service.GameEvents;
+import ttt.service.GameService;
+
+import java.time.Duration;
+
+/** Server push of game changes (GET /api/games/{id}/events); see ttt.events.* in application.yml. */
+@Configuration
+public class EventsConfig {
+
+    @Bean(destroyMethod = "close")
+    public GameEvents gameEvents(GameService games,
+                                 @Value("${ttt.events.buffer:32}") int buffer,
+                                 @Value("${ttt.events.write-timeout-seconds:10}") long writeTimeoutSeconds) {
+        return new GameEvents(games, buffer, Duration.ofSeconds(writeTimeoutSeconds));
+    }
+}
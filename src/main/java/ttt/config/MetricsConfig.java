@@ -0,0 +1,25 @@
+package ttt.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ttt.api.RequestMetrics;
+import ttt.metrics.Metrics;
+import ttt.service.GameMetrics;
+import ttt.service.GameService;
+
+/** Hot-path instrumentation, exported at GET /metrics; ttt.metrics.enabled=false turns recording off. */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public RequestMetrics requestMetrics(@Value("${ttt.metrics.enabled:true}") boolean enabled) {
+        Metrics.enable(enabled); // also read by the search engines in ttt.core.ai
+        return new RequestMetrics();
+    }
+
+    @Bean
+    public GameMetrics gameMetrics(GameService games) {
+        return new GameMetrics(games);
+    }
+}
@@ -0,0 +1,47 @@
+package ttt.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ttt.service.DurableSessionStore;
+import ttt.service.InMemorySessionStore;
+import ttt.service.PackedSessionStore;
+import ttt.service.SessionStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Where games live between requests; see ttt.sessions.* in application.yml.
+ * ttt.sessions.store=packed keeps 3x3 games in primitive slabs (32 bytes each) instead of objects.
+ * ttt.sessions.durable.dir, when set, logs every change there so games survive a restart.
+ */
+@Configuration
+public class SessionConfig {
+
+    @Bean(destroyMethod = "close")
+    public SessionStore sessionStore(@Value("${ttt.sessions.store:heap}") String kind,
+                                     @Value("${ttt.sessions.idle-ttl-minutes:30}") long idleTtlMinutes,
+                                     @Value("${ttt.sessions.max:100000}") int maxSessions,
+                                     @Value("${ttt.sessions.sweep-seconds:30}") long sweepSeconds,
+                                     @Value("${ttt.sessions.durable.dir:}") String durableDir,
+                                     @Value("${ttt.sessions.durable.sync-ms:10}") long syncMs,
+                                     @Value("${ttt.sessions.durable.snapshot-seconds:300}") long snapshotSeconds)
+            throws IOException {
+        Duration ttl = Duration.ofMinutes(idleTtlMinutes);
+        Duration sweep = Duration.ofSeconds(sweepSeconds);
+        Clock clock = Clock.systemUTC();
+        SessionStore store = switch (kind) {
+            case "heap" -> new InMemorySessionStore(ttl, maxSessions, sweep, clock);
+            // the packed store sweeps its heap fallback itself
+            case "packed" -> new PackedSessionStore(ttl, maxSessions, sweep, clock,
+                    new InMemorySessionStore(ttl, maxSessions, Duration.ZERO, clock));
+            default -> throw new IllegalArgumentException("ttt.sessions.store must be heap or packed, got " + kind);
+        };
+        if (durableDir.isBlank()) return store;
+        // recovers the games from the last run before the server takes requests
+        return new DurableSessionStore(store, Path.of(durableDir), syncMs, Duration.ofSeconds(snapshotSeconds), clock);
+    }
+}
@@ -0,0 +1,31 @@
+package ttt.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ttt.api.BinaryGameConverter;
+import ttt.api.RequestMetrics;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final RequestMetrics requestMetrics;
+
+    public WebConfig(RequestMetrics requestMetrics) { this.requestMetrics = requestMetrics; }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // an /events stream's "latency" is how long the client watched, not how fast we answered
+        registry.addInterceptor(requestMetrics).excludePathPatterns("/metrics", "/api/games/*/events");
+    }
+
+    // Appended after Jackson, so clients that accept anything (Accept: */*) still get JSON;
+    // only an explicit Accept: application/x-ttt-game selects the binary form.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BinaryGameConverter());
+    }
+}
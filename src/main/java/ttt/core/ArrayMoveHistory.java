@@ -0,0 +1,113 @@
+package ttt.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * {@link MoveHistory} for m,n,k boards, which can run to hundreds of moves: the cells in a
+ * short[] (2 bytes a move) that histories of one game share, plus this history's ply and
+ * length. Undo and redo only move the ply. A move at the end appends in place when nobody
+ * has appended to the array past this history yet, otherwise (a second move raced from the
+ * same history, or a different move after an undo) it copies the moves it keeps.
+ */
+final class ArrayMoveHistory implements MoveHistory {
+
+    static final ArrayMoveHistory EMPTY = new ArrayMoveHistory(new Cells(0), 0, 0);
+
+    /** Cells shared by histories; used is how far one of them has claimed it. */
+    private static final class Cells {
+        private static final AtomicIntegerFieldUpdater<Cells> USED =
+                AtomicIntegerFieldUpdater.newUpdater(Cells.class, "used");
+
+        final short[] cell;
+        volatile int used;
+
+        Cells(int capacity) {
+            this.cell = new short[capacity];
+        }
+
+        // Claim slot i (the one after a history of length i), unless another history has
+        boolean claim(int i) {
+            return i < cell.length && USED.compareAndSet(this, i, i + 1);
+        }
+    }
+
+    private final Cells cells; // cells.cell[0..length) are this history's moves
+    private final int ply;
+    private final int length;
+
+    private ArrayMoveHistory(Cells cells, int ply, int length) {
+        this.cells = cells;
+        this.ply = ply;
+        this.length = length;
+    }
+
+    @Override
+    public int ply() {
+        return ply;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int move(int i) {
+        if (i < 0 || i >= length) throw new IndexOutOfBoundsException("move " + i + " of " + length);
+        return cells.cell[i];
+    }
+
+    @Override
+    public int[] moves() {
+        int[] out = new int[length];
+        for (int i = 0; i < length; i++) out[i] = cells.cell[i];
+        return out;
+    }
+
+    @Override
+    public ArrayMoveHistory play(int cell) {
+        if (cell < 0 || cell > Short.MAX_VALUE) throw new IllegalArgumentException("Cell out of range: " + cell);
+        if (ply < length) {
+            if (cells.cell[ply] == cell) return redo();
+        } else if (cells.claim(length)) {
+            cells.cell[length] = (short) cell; // published with the new history (final field)
+            return new ArrayMoveHistory(cells, ply + 1, ply + 1);
+        }
+        Cells copy = new Cells(Math.max(16, 2 * ply));
+        System.arraycopy(cells.cell, 0, copy.cell, 0, ply);
+        copy.cell[ply] = (short) cell;
+        copy.used = ply + 1;
+        return new ArrayMoveHistory(copy, ply + 1, ply + 1);
+    }
+
+    @Override
+    public ArrayMoveHistory undo() {
+        if (ply == 0) throw new IllegalStateException("Nothing to undo");
+        return new ArrayMoveHistory(cells, ply - 1, length);
+    }
+
+    @Override
+    public ArrayMoveHistory redo() {
+        if (ply == length) throw new IllegalStateException("Nothing to redo");
+        return new ArrayMoveHistory(cells, ply + 1, length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ArrayMoveHistory h && h.ply == ply && h.length == length
+                && (h.cells == cells || Arrays.equals(h.cells.cell, 0, length, cells.cell, 0, length));
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = ply;
+        for (int i = 0; i < length; i++) hash = 31 * hash + cells.cell[i];
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(moves()) + " ply=" + ply;
+    }
+}
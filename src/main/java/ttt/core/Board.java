@@ -1,91 +1,223 @@
 package ttt.core;
 
-import com.sun.jdi.ArrayReference;
-
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
-public final class Board {
-    private final Mark[] cells; // length 9
-    private final Mark toMove; // who's turn x or o
+/**
+ * Immutable 3x3 board backed by a bitboard.
+ *
+ * The whole position lives in one int:
+ * - bits 0..8   : cells holding X (bit i = cell i)
+ * - bits 9..17  : cells holding O
+ * - bit 18      : side to move (0 = X, 1 = O)
+ *
+ * The result and the number of empty cells ride along and are updated incrementally:
+ * a move only checks the 2-4 lines through the new stone, so reading the result
+ * ({@link Rules#result}) is a field read, not a scan of all 8 lines.
+ *
+ * Other sizes and k go through {@link MnkBoard}; both share the {@link Position} view.
+ */
+public final class Board implements Position {
+    public static final int CELLS = 9;
+    public static final int FULL_MASK = (1 << CELLS) - 1; // 0b111111111
+
+    private static final int O_SHIFT = 9;
+    private static final int TURN_BIT = 1 << 18;
+
+    private final int packed;
+    private final GameResult result;
+    private final int empties;
 
     //constructor validates input and sets it in a safe internal state
     public Board(Mark[] cells, Mark toMove) {
         Objects.requireNonNull(cells, "cells");
         Objects.requireNonNull(toMove, "toMove");
-        if (cells.length != 9) {
+        if (cells.length != CELLS) {
             throw new IllegalArgumentException("Board must have 9 cells");
         }
-        this.cells = Arrays.copyOf(cells, 9);
-        this.toMove = toMove;
+        if (toMove == Mark.EMPTY) {
+            throw new IllegalArgumentException("toMove must be X or O");
+        }
+        int x = 0;
+        int o = 0;
+        for (int i = 0; i < CELLS; i++) {
+            Mark m = Objects.requireNonNull(cells[i], "cells[" + i + "]");
+            if (m == Mark.X) x |= 1 << i;
+            else if (m == Mark.O) o |= 1 << i;
+        }
+        this.packed = pack(x, o, toMove);
+        this.result = Rules.scan(x, o);
+        this.empties = CELLS - Integer.bitCount(x | o);
+    }
+
+    // Built from scratch (no previous board to update from): full scan
+    private Board(int packed) {
+        this(packed, Rules.scan(packed & FULL_MASK, (packed >>> O_SHIFT) & FULL_MASK),
+                CELLS - Integer.bitCount((packed | (packed >>> O_SHIFT)) & FULL_MASK));
+    }
+
+    private Board(int packed, GameResult result, int empties) {
+        this.packed = packed;
+        this.result = result;
+        this.empties = empties;
     }
 
     //create fresh new board
     public static Board initial(Mark starts) {
-        Mark[] cells = new Mark[9];
-        Arrays.fill(cells, Mark.EMPTY);
-        return new Board(cells, starts);
+        if (starts == Mark.EMPTY) {
+            throw new IllegalArgumentException("starts must be X or O");
+        }
+        return new Board(pack(0, 0, starts), GameResult.IN_PROGRESS, CELLS);
+    }
+
+    /** Rebuild a board from {@link #packed()}. */
+    public static Board fromPacked(int packed) {
+        int x = packed & FULL_MASK;
+        int o = (packed >>> O_SHIFT) & FULL_MASK;
+        if ((x & o) != 0 || (packed & ~(FULL_MASK | (FULL_MASK << O_SHIFT) | TURN_BIT)) != 0) {
+            throw new IllegalArgumentException("Not a packed board: " + packed);
+        }
+        return new Board(packed);
+    }
+
+    private static int pack(int x, int o, Mark toMove) {
+        return x | (o << O_SHIFT) | (toMove == Mark.O ? TURN_BIT : 0);
+    }
+
+    @Override public int rows() { return 3; }
+    @Override public int cols() { return 3; }
+    @Override public int winLength() { return 3; }
+
+    @Override
+    public GameResult result() {
+        return result;
+    }
+
+    /** Number of empty cells left. */
+    public int empties() {
+        return empties;
     }
 
     //getter for whose turn it is
+    @Override
     public Mark toMove() {
-        return toMove;
+        return (packed & TURN_BIT) == 0 ? Mark.X : Mark.O;
     }
 
     //check what mark is in a specific cell
+    @Override
     public Mark cell(int idx) {
         if (idx < 0 || idx > 8) {
             throw new IllegalArgumentException("index b/w 0-8");
         }
-        return cells[idx];
+        int bit = 1 << idx;
+        if ((xMask() & bit) != 0) return Mark.X;
+        if ((oMask() & bit) != 0) return Mark.O;
+        return Mark.EMPTY;
+    }
+
+    /** Cells held by X, one bit per cell. */
+    public int xMask() {
+        return packed & FULL_MASK;
+    }
+
+    /** Cells held by O, one bit per cell. */
+    public int oMask() {
+        return (packed >>> O_SHIFT) & FULL_MASK;
+    }
+
+    /** Cells held by the given side (X or O). */
+    public int mask(Mark m) {
+        return switch (m) {
+            case X -> xMask();
+            case O -> oMask();
+            case EMPTY -> emptyMask();
+        };
+    }
+
+    /**
+     * Empty cells, one bit per cell. Iterate without allocating:
+     * {@code for (int m = b.emptyMask(); m != 0; m &= m - 1) { int idx = Integer.numberOfTrailingZeros(m); ... }}
+     */
+    public int emptyMask() {
+        return ~(packed | (packed >>> O_SHIFT)) & FULL_MASK;
+    }
+
+    /** Whole position (both masks and side to move) as a single int; see class doc for layout. */
+    public int packed() {
+        return packed;
     }
 
     //check for valid move n return a list of valid cells
     public List<Integer> legalMoves() {
-        List<Integer> moves = new ArrayList<>(9);
-        for (int i = 0; i < 9; i++) {
-            if (cells[i] == Mark.EMPTY) {
-                moves.add(i);
-            }
+        int empty = emptyMask();
+        List<Integer> moves = new ArrayList<>(Integer.bitCount(empty));
+        for (int m = empty; m != 0; m &= m - 1) {
+            moves.add(Integer.numberOfTrailingZeros(m));
         }
         return moves;
     }
 
-
     //check if 1 move is valid
+    @Override
     public boolean isLegal(int idx) {
-        return idx >= 0 && idx < 9 && cells[idx] == Mark.EMPTY;
+        return idx >= 0 && idx < 9 && (emptyMask() & (1 << idx)) != 0;
     }
 
     //return new board after move is applied
+    @Override
     public Board apply(int idx) {
         if(!isLegal(idx)) {
             throw new IllegalArgumentException("Illegal move at " + idx);
         }
-        if (Rules.isTerminal(this)) { //this is the current game obj
+        if (result != GameResult.IN_PROGRESS) { //this is the current game obj
             throw new IllegalStateException("Game is already terminal"); //check if game has ended
         }
-        Mark[] next = Arrays.copyOf(cells, 9);//clone board
-        next[idx] = toMove; //place mark on idx
-        return new Board(next, toMove.opponent());
+        return applyUnchecked(idx);
     }
 
     public Board apply(Move m) {
         return apply(m.index());
     }
 
+    @Override
+    public Board takeBack(int idx) {
+        boolean xMoved = (packed & TURN_BIT) != 0;
+        int bit = xMoved ? 1 << idx : 1 << (idx + O_SHIFT);
+        if (idx < 0 || idx >= CELLS || (packed & bit) == 0) {
+            throw new IllegalArgumentException("No " + (xMoved ? "X" : "O") + " to take back at " + idx);
+        }
+        return new Board((packed & ~bit) ^ TURN_BIT, GameResult.IN_PROGRESS, empties + 1);
+    }
+
+    /**
+     * Place the side to move on idx without legality or terminal checks.
+     * For search code that already iterates {@link #emptyMask()} of a non-terminal board.
+     */
+    public Board applyUnchecked(int idx) {
+        boolean xMoves = (packed & TURN_BIT) == 0;
+        int next = (packed | (xMoves ? 1 << idx : 1 << (idx + O_SHIFT))) ^ TURN_BIT;
+        int mover = xMoves ? next & FULL_MASK : (next >>> O_SHIFT) & FULL_MASK;
+        GameResult r = result != GameResult.IN_PROGRESS ? result // unchecked: a finished game stays finished
+                : Rules.afterMove(mover, idx, empties - 1, xMoves ? GameResult.X_WIN : GameResult.O_WIN);
+        return new Board(next, r, empties - 1);
+    }
+
     //prevent modifying the internal board state(for DTO)
     public Mark[] cells() {
-        return Arrays.copyOf(cells, 9);
+        Mark[] out = new Mark[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            out[i] = cell(i);
+        }
+        return out;
     }
 
     //for logging/debugging
     @Override public String toString() {
         StringBuilder sb = new StringBuilder(32);
         for (int i = 0; i < 9; i++) {
-            sb.append(switch (cells[i]) {
+            sb.append(switch (cell(i)) {
                 case X -> 'X';
                 case O -> 'O';
                 default -> '.';
@@ -94,7 +226,7 @@ public final class Board {
                 sb.append('/');
             }
         }
-        sb.append(" turn=").append(toMove);
+        sb.append(" turn=").append(toMove());
         return sb.toString();
     }
 
@@ -104,12 +236,12 @@ public final class Board {
         if (this == o) return true;
         if (!(o instanceof Board)) return false;
         Board b = (Board) o;
-        return Arrays.equals(this.cells, b.cells);
+        return this.packed == b.packed;
     }
 
     //check for board equality for AI
     @Override public int hashCode() {
-        return 31 * Arrays.hashCode(cells) + toMove.hashCode();
+        return Integer.hashCode(packed);
     }
 
 
@@ -0,0 +1,225 @@
+package ttt.core;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable m,n,k board: rows x cols cells, first to get k in a row wins
+ * (4x4, 5x5, 15x15 gomoku, ...). The 3x3 game keeps using {@link Board}.
+ *
+ * Stones are kept in two bitsets (one bit per cell, row-major). The result is
+ * tracked incrementally: apply() only walks the 4 lines through the new stone,
+ * at most k-1 cells each way, so a move costs O(k) plus copying the two bitsets
+ * (cells/64 longs each, 4 for 15x15) instead of rescanning the whole board.
+ */
+public final class MnkBoard implements Position {
+    public static final int MIN_SIZE = 3;
+    public static final int MAX_SIZE = 19;
+
+    // (dRow, dCol) for horizontal, vertical, diagonal, anti-diagonal
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private final int rows;
+    private final int cols;
+    private final int k;
+    private final long[] x;
+    private final long[] o;
+    private final Mark toMove;
+    private final int empties;
+    private final int lastMove; // -1 before the first move
+    private final GameResult result;
+
+    private MnkBoard(int rows, int cols, int k, long[] x, long[] o, Mark toMove,
+                     int empties, int lastMove, GameResult result) {
+        this.rows = rows;
+        this.cols = cols;
+        this.k = k;
+        this.x = x;
+        this.o = o;
+        this.toMove = toMove;
+        this.empties = empties;
+        this.lastMove = lastMove;
+        this.result = result;
+    }
+
+    //create fresh new board
+    public static MnkBoard initial(int rows, int cols, int k, Mark starts) {
+        Objects.requireNonNull(starts, "starts");
+        if (starts == Mark.EMPTY) throw new IllegalArgumentException("starts must be X or O");
+        if (rows < MIN_SIZE || rows > MAX_SIZE || cols < MIN_SIZE || cols > MAX_SIZE) {
+            throw new IllegalArgumentException("rows/cols must be b/w " + MIN_SIZE + "-" + MAX_SIZE);
+        }
+        if (k < MIN_SIZE || k > Math.max(rows, cols)) {
+            throw new IllegalArgumentException("k must be b/w " + MIN_SIZE + " and the board size");
+        }
+        int words = (rows * cols + 63) >>> 6;
+        return new MnkBoard(rows, cols, k, new long[words], new long[words], starts,
+                rows * cols, -1, GameResult.IN_PROGRESS);
+    }
+
+    /**
+     * A board holding these stones (bitsets over row-major cells, as from {@link #stones}),
+     * e.g. one read back from disk. The result is worked out by a full scan, and the last
+     * move is unknown (-1).
+     */
+    public static MnkBoard of(int rows, int cols, int k, long[] x, long[] o, Mark toMove) {
+        MnkBoard empty = initial(rows, cols, k, toMove);
+        int words = empty.x.length;
+        if (x.length != words || o.length != words) throw new IllegalArgumentException("need " + words + " words per side");
+        int cells = rows * cols;
+        int stones = 0;
+        for (int w = 0; w < words; w++) {
+            long outside = w == words - 1 && (cells & 63) != 0 ? -1L << (cells & 63) : 0;
+            if ((x[w] & o[w]) != 0 || ((x[w] | o[w]) & outside) != 0) {
+                throw new IllegalArgumentException("stones overlap or lie off the board");
+            }
+            stones += Long.bitCount(x[w]) + Long.bitCount(o[w]);
+        }
+        long[] nx = x.clone();
+        long[] no = o.clone();
+        MnkBoard b = new MnkBoard(rows, cols, k, nx, no, toMove, cells - stones, -1, GameResult.IN_PROGRESS);
+        GameResult r = stones == cells ? GameResult.DRAW : GameResult.IN_PROGRESS;
+        for (int i = 0; i < cells; i++) {
+            if (get(nx, i) && b.completesLine(nx, i)) { r = GameResult.X_WIN; break; }
+            if (get(no, i) && b.completesLine(no, i)) { r = GameResult.O_WIN; break; }
+        }
+        return new MnkBoard(rows, cols, k, nx, no, toMove, cells - stones, -1, r);
+    }
+
+    /** One side's stones as a bitset over row-major cells (a copy). */
+    public long[] stones(Mark side) {
+        if (side == Mark.EMPTY) throw new IllegalArgumentException("side must be X or O");
+        return (side == Mark.X ? x : o).clone();
+    }
+
+    @Override public int rows() { return rows; }
+    @Override public int cols() { return cols; }
+    @Override public int winLength() { return k; }
+    @Override public Mark toMove() { return toMove; }
+    @Override public GameResult result() { return result; }
+
+    /** Number of empty cells left. */
+    public int empties() {
+        return empties;
+    }
+
+    /** Index of the most recent stone, or -1 on an empty board. */
+    public int lastMove() {
+        return lastMove;
+    }
+
+    @Override
+    public Mark cell(int idx) {
+        checkIndex(idx);
+        if (get(x, idx)) return Mark.X;
+        if (get(o, idx)) return Mark.O;
+        return Mark.EMPTY;
+    }
+
+    @Override
+    public boolean isLegal(int idx) {
+        return idx >= 0 && idx < cellCount() && !get(x, idx) && !get(o, idx);
+    }
+
+    @Override
+    public MnkBoard apply(int idx) {
+        if (!isLegal(idx)) {
+            throw new IllegalArgumentException("Illegal move at " + idx);
+        }
+        if (result != GameResult.IN_PROGRESS) {
+            throw new IllegalStateException("Game is already terminal");
+        }
+        long[] nx = x;
+        long[] no = o;
+        if (toMove == Mark.X) {
+            nx = Arrays.copyOf(x, x.length);
+            nx[idx >>> 6] |= 1L << idx;
+        } else {
+            no = Arrays.copyOf(o, o.length);
+            no[idx >>> 6] |= 1L << idx;
+        }
+        int left = empties - 1;
+        GameResult r;
+        if (completesLine(toMove == Mark.X ? nx : no, idx)) {
+            r = toMove == Mark.X ? GameResult.X_WIN : GameResult.O_WIN;
+        } else {
+            r = left == 0 ? GameResult.DRAW : GameResult.IN_PROGRESS;
+        }
+        return new MnkBoard(rows, cols, k, nx, no, toMove.opponent(), left, idx, r);
+    }
+
+    /** The last move before the one taken back isn't known here, so lastMove() is -1. */
+    @Override
+    public MnkBoard takeBack(int idx) {
+        Mark moved = toMove.opponent();
+        long[] stones = moved == Mark.X ? x : o;
+        if (idx < 0 || idx >= cellCount() || !get(stones, idx)) {
+            throw new IllegalArgumentException("No " + moved + " to take back at " + idx);
+        }
+        long[] left = Arrays.copyOf(stones, stones.length);
+        left[idx >>> 6] &= ~(1L << idx);
+        return new MnkBoard(rows, cols, k, moved == Mark.X ? left : x, moved == Mark.X ? o : left, moved,
+                empties + 1, -1, GameResult.IN_PROGRESS);
+    }
+
+    // Count the mover's stones through idx along each direction, stopping after k-1 each way.
+    private boolean completesLine(long[] stones, int idx) {
+        int r0 = idx / cols;
+        int c0 = idx % cols;
+        for (int[] d : DIRECTIONS) {
+            int run = 1;
+            for (int sign = -1; sign <= 1; sign += 2) {
+                int r = r0 + sign * d[0];
+                int c = c0 + sign * d[1];
+                while (run < k && r >= 0 && r < rows && c >= 0 && c < cols && get(stones, r * cols + c)) {
+                    run++;
+                    r += sign * d[0];
+                    c += sign * d[1];
+                }
+            }
+            if (run >= k) return true;
+        }
+        return false;
+    }
+
+    private static boolean get(long[] bits, int idx) {
+        return (bits[idx >>> 6] & (1L << idx)) != 0;
+    }
+
+    private void checkIndex(int idx) {
+        if (idx < 0 || idx >= cellCount()) {
+            throw new IllegalArgumentException("index b/w 0-" + (cellCount() - 1));
+        }
+    }
+
+    //for logging/debugging
+    @Override public String toString() {
+        StringBuilder sb = new StringBuilder(cellCount() + rows + 16);
+        for (int i = 0; i < cellCount(); i++) {
+            sb.append(switch (cell(i)) {
+                case X -> 'X';
+                case O -> 'O';
+                default -> '.';
+            });
+            if (i % cols == cols - 1 && i < cellCount() - 1) {
+                sb.append('/');
+            }
+        }
+        sb.append(" k=").append(k).append(" turn=").append(toMove);
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof MnkBoard b)) return false;
+        return rows == b.rows && cols == b.cols && k == b.k && toMove == b.toMove
+                && Arrays.equals(x, b.x) && Arrays.equals(o, b.o);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = Objects.hash(rows, cols, k, toMove);
+        return 31 * (31 * h + Arrays.hashCode(x)) + Arrays.hashCode(o);
+    }
+}
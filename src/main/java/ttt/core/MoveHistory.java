@@ -0,0 +1,80 @@
+package ttt.core;
+
+/**
+ * The cells played in one game, in order, for undo, redo and replays: the ply() moves
+ * on the board, then any that were undone since, which redo() plays again. Playing a
+ * different move there drops them.
+ *
+ * Immutable and cheap to derive from: undo, redo and a move at the end are O(1) and share
+ * the moves with the history they came from, so every version of a game keeps its own
+ * history without copying; only a different move after an undo copies the moves it keeps.
+ * 3x3 games pack theirs into one long ({@link PackedMoveHistory}), others use a shared
+ * array ({@link ArrayMoveHistory}).
+ *
+ * A history holds cells, not boards: any other ply is rebuilt from the current board
+ * on demand, see {@link #board}.
+ */
+public interface MoveHistory {
+
+    /** Moves on the board. */
+    int ply();
+
+    /** ply() plus the undone moves redo() can bring back. */
+    int length();
+
+    /** Cell of move i, 0-based, for i < length(). */
+    int move(int i);
+
+    /** Play cell as move ply(): redo() if it is the move undone there, otherwise drops the undone moves. */
+    MoveHistory play(int cell);
+
+    /** @throws IllegalStateException at ply 0 */
+    MoveHistory undo();
+
+    /** @throws IllegalStateException if nothing was undone */
+    MoveHistory redo();
+
+    /** All length() moves, in order. */
+    default int[] moves() {
+        int[] out = new int[length()];
+        for (int i = 0; i < out.length; i++) out[i] = move(i);
+        return out;
+    }
+
+    /** This history with target moves on the board: undone or redone from here. */
+    default MoveHistory at(int target) {
+        if (target < 0 || target > length()) throw new IllegalArgumentException("ply must be b/w 0 and " + length());
+        MoveHistory h = this;
+        while (h.ply() > target) h = h.undo();
+        while (h.ply() < target) h = h.redo();
+        return h;
+    }
+
+    /**
+     * The board after target moves, given current, the board after ply() moves. Stones are
+     * taken back or played again from here, so this costs |ply() - target| steps; no
+     * other board is kept.
+     */
+    default Position board(Position current, int target) {
+        if (target < 0 || target > length()) throw new IllegalArgumentException("ply must be b/w 0 and " + length());
+        int[] moves = moves();
+        Position b = current;
+        for (int i = ply(); i > target; i--) b = b.takeBack(moves[i - 1]);
+        for (int i = ply(); i < target; i++) b = b.apply(moves[i]);
+        return b;
+    }
+
+    /** No moves yet, in the encoding that suits the board. */
+    static MoveHistory empty(Position board) {
+        return board instanceof Board ? PackedMoveHistory.EMPTY : ArrayMoveHistory.EMPTY;
+    }
+
+    /** A history of these moves with the first ply on the board (e.g. one read back from disk). */
+    static MoveHistory of(Position board, int[] moves, int ply) {
+        if (ply < 0 || ply > moves.length) throw new IllegalArgumentException("ply must be b/w 0 and " + moves.length);
+        MoveHistory h = empty(board);
+        for (int m : moves) h = h.play(m);
+        for (int i = moves.length; i > ply; i--) h = h.undo();
+        return h;
+    }
+}
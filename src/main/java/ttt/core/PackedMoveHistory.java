@@ -0,0 +1,98 @@
+package ttt.core;
+
+import java.util.Arrays;
+
+/**
+ * {@link MoveHistory} of a 3x3 game in one long, a nibble per move:
+ * - bits 0..35  : move i's cell in bits 4i..4i+3
+ * - bits 36..39 : length
+ * - bits 40..43 : ply
+ * Nibbles past the length are 0, so equal histories have equal bits.
+ */
+public final class PackedMoveHistory implements MoveHistory {
+    /** Bits {@link #bits()} may use; the ones above are always 0. */
+    public static final int BITS = 44;
+
+    static final PackedMoveHistory EMPTY = new PackedMoveHistory(0);
+
+    private static final int LENGTH_SHIFT = 36;
+    private static final int PLY_SHIFT = 40;
+    private static final long PLY_MASK = 0xFL << PLY_SHIFT;
+
+    private final long bits;
+
+    private PackedMoveHistory(long bits) {
+        this.bits = bits;
+    }
+
+    /** Rebuild a history from {@link #bits()}. */
+    public static PackedMoveHistory fromBits(long bits) {
+        int length = (int) (bits >>> LENGTH_SHIFT) & 0xF;
+        int ply = (int) (bits >>> PLY_SHIFT) & 0xF;
+        boolean ok = bits >>> BITS == 0 && length <= Board.CELLS && ply <= length
+                && (bits & ((1L << LENGTH_SHIFT) - 1) & -(1L << 4 * length)) == 0;
+        for (int i = 0; ok && i < length; i++) ok = ((bits >>> 4 * i) & 0xF) < Board.CELLS;
+        if (!ok) throw new IllegalArgumentException("Not a packed history: " + Long.toHexString(bits));
+        return bits == 0 ? EMPTY : new PackedMoveHistory(bits);
+    }
+
+    public long bits() {
+        return bits;
+    }
+
+    @Override
+    public int ply() {
+        return (int) (bits >>> PLY_SHIFT) & 0xF;
+    }
+
+    @Override
+    public int length() {
+        return (int) (bits >>> LENGTH_SHIFT) & 0xF;
+    }
+
+    @Override
+    public int move(int i) {
+        if (i < 0 || i >= length()) throw new IndexOutOfBoundsException("move " + i + " of " + length());
+        return (int) (bits >>> 4 * i) & 0xF;
+    }
+
+    @Override
+    public PackedMoveHistory play(int cell) {
+        if (cell < 0 || cell >= Board.CELLS) throw new IllegalArgumentException("Cell must be b/w 0-8");
+        int p = ply();
+        if (p < length() && move(p) == cell) return redo();
+        if (p == Board.CELLS) throw new IllegalStateException("A 3x3 game has at most 9 moves");
+        long kept = bits & ((1L << 4 * p) - 1);
+        return new PackedMoveHistory(kept | (long) cell << 4 * p
+                | (long) (p + 1) << LENGTH_SHIFT | (long) (p + 1) << PLY_SHIFT);
+    }
+
+    @Override
+    public PackedMoveHistory undo() {
+        int p = ply();
+        if (p == 0) throw new IllegalStateException("Nothing to undo");
+        return new PackedMoveHistory((bits & ~PLY_MASK) | (long) (p - 1) << PLY_SHIFT);
+    }
+
+    @Override
+    public PackedMoveHistory redo() {
+        int p = ply();
+        if (p == length()) throw new IllegalStateException("Nothing to redo");
+        return new PackedMoveHistory((bits & ~PLY_MASK) | (long) (p + 1) << PLY_SHIFT);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PackedMoveHistory h && h.bits == bits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bits);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(moves()) + " ply=" + ply();
+    }
+}
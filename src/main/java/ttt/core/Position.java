@@ -0,0 +1,40 @@
+package ttt.core;
+
+/**
+ * Read/apply view shared by every board shape: the 3x3 {@link Board} and the
+ * general m,n,k {@link MnkBoard}. Cells are indexed row-major, 0..cellCount()-1.
+ */
+public interface Position {
+    int rows();
+    int cols();
+
+    /** Stones in a row needed to win (k). */
+    int winLength();
+
+    default int cellCount() {
+        return rows() * cols();
+    }
+
+    Mark toMove();
+
+    Mark cell(int idx);
+
+    boolean isLegal(int idx);
+
+    /** Return a new position with the side to move placed on idx. */
+    Position apply(int idx);
+
+    /**
+     * The position before the stone on idx was played: it comes off and the turn goes
+     * back. For taking back the latest moves, newest first, so the result is IN_PROGRESS
+     * as it was when that stone went down.
+     * @throws IllegalArgumentException if idx doesn't hold a stone of the side that moved last
+     */
+    Position takeBack(int idx);
+
+    GameResult result();
+
+    default boolean isTerminal() {
+        return result() != GameResult.IN_PROGRESS;
+    }
+}
@@ -1,48 +1,65 @@
 package ttt.core;
 
+import java.util.Arrays;
+
 public final class Rules {
-    private static final int[][] LINES = { //winning lines
-            {0,1,2},{3,4,5},{6,7,8},   // rows
-            {0,3,6},{1,4,7},{2,5,8},   // cols
-            {0,4,8},{2,4,6}            // diags
+    private static final int[] LINES = { //winning lines as cell bitmasks (bit i = cell i)
+            0b000000111, 0b000111000, 0b111000000,   // rows
+            0b001001001, 0b010010010, 0b100100100,   // cols
+            0b100010001, 0b001010100                 // diags
     };
 
+    // LINES_THROUGH[i] = the lines containing cell i (2 to 4 of them)
+    private static final int[][] LINES_THROUGH = new int[Board.CELLS][];
+
+    static {
+        for (int i = 0; i < Board.CELLS; i++) {
+            int cell = 1 << i;
+            LINES_THROUGH[i] = Arrays.stream(LINES).filter(line -> (line & cell) != 0).toArray();
+        }
+    }
+
     private Rules() {} //prevent creating rule obj
 
+    // The board keeps its result up to date itself; this is a field read
     public static GameResult result(Board b) {
-        Mark winner = winner(b);
-        if (winner == Mark.X) {
-            return GameResult.X_WIN;
-        }
-        if (winner == Mark.O) {
-            return GameResult.O_WIN;
-        }
-        boolean anyEmpty = false;
-        for (int i = 0; i < 9; i++) {
-            if (b.cell(i) == Mark.EMPTY) {
-                anyEmpty = true;
-                break;
-            }
-        }
-        return anyEmpty ? GameResult.IN_PROGRESS : GameResult.DRAW;
+        return b.result();
     }
 
     //check if game over
     public static boolean isTerminal(Board b) {
-        return result(b) != GameResult.IN_PROGRESS;
+        return b.result() != GameResult.IN_PROGRESS;
     }
 
     public static Mark winner(Board b) {
-        for (int[] line : LINES) { //for each set
-            Mark a = b.cell(line[0]); //check first cell
-            if (a == Mark.EMPTY) { //if first cell is empty, skip
-                continue;
+        return switch (b.result()) {
+            case X_WIN -> Mark.X;
+            case O_WIN -> Mark.O;
+            default -> Mark.EMPTY; //no one won yet
+        };
+    }
+
+    // Full check of all lines, for boards not reached by a move (initial, fromPacked, from cells)
+    static GameResult scan(int x, int o) {
+        for (int line : LINES) { //for each set
+            if ((x & line) == line) { //all three cells of the line held by X
+                return GameResult.X_WIN;
             }
-            if (a == b.cell(line[1]) && a == b.cell(line[2])) { //compare each cell in a line
-                return a; //return that mark as winner
+            if ((o & line) == line) {
+                return GameResult.O_WIN;
             }
         }
-        return Mark.EMPTY; //no one won yet
+        return ((x | o) & Board.FULL_MASK) != Board.FULL_MASK ? GameResult.IN_PROGRESS : GameResult.DRAW;
     }
 
+    /**
+     * Result right after a stone on idx, given the mover's stones including it: only the
+     * lines through idx can have just been completed.
+     */
+    static GameResult afterMove(int mover, int idx, int empties, GameResult moverWins) {
+        for (int line : LINES_THROUGH[idx]) {
+            if ((mover & line) == line) return moverWins;
+        }
+        return empties == 0 ? GameResult.DRAW : GameResult.IN_PROGRESS;
+    }
 }
@@ -0,0 +1,93 @@
+package ttt.core;
+
+/**
+ * The 8 symmetries of the 3x3 board (4 rotations, each optionally mirrored), on bitboards.
+ *
+ * Rotated or mirrored copies of a position have the same game value and mirrored best
+ * moves, so caches can key on {@link #canonical(Board)} (the smallest packed form of
+ * the 8) and store 1 entry instead of up to 8.
+ *
+ * Every transform is a precomputed cell-mask -> cell-mask table, so mapping a board is
+ * two array reads. Moves found on the canonical board go back with {@link #fromCanonical}.
+ */
+public final class Symmetry {
+    public static final int COUNT = 8;
+    public static final int IDENTITY = 0;
+
+    private static final int O_SHIFT = 9;
+    private static final int TURN_BIT = 1 << 18;
+
+    // CELL[t][i] = where cell i ends up under transform t
+    private static final int[][] CELL = new int[COUNT][Board.CELLS];
+    private static final int[][] INVERSE_CELL = new int[COUNT][Board.CELLS];
+    // MASK[t][m] = mask m with every cell moved by transform t
+    private static final short[][] MASK = new short[COUNT][1 << Board.CELLS];
+
+    static {
+        for (int t = 0; t < COUNT; t++) {
+            for (int i = 0; i < Board.CELLS; i++) {
+                int r = i / 3;
+                int c = i % 3;
+                // rotate 90 degrees clockwise (t & 3) times, then mirror left-right if t >= 4
+                for (int q = 0; q < (t & 3); q++) {
+                    int nr = c;
+                    c = 2 - r;
+                    r = nr;
+                }
+                if (t >= 4) c = 2 - c;
+                CELL[t][i] = r * 3 + c;
+                INVERSE_CELL[t][r * 3 + c] = i;
+            }
+            for (int m = 0; m < MASK[t].length; m++) {
+                int out = 0;
+                for (int i = 0; i < Board.CELLS; i++) {
+                    if ((m & (1 << i)) != 0) out |= 1 << CELL[t][i];
+                }
+                MASK[t][m] = (short) out;
+            }
+        }
+    }
+
+    private Symmetry() {}
+
+    /** {@link Board#packed()} of the board under transform t (side to move unchanged). */
+    public static int transform(int packed, int t) {
+        int x = MASK[t][packed & Board.FULL_MASK];
+        int o = MASK[t][(packed >>> O_SHIFT) & Board.FULL_MASK];
+        return x | (o << O_SHIFT) | (packed & TURN_BIT);
+    }
+
+    /** Transform that takes this board to its canonical form (lowest t on ties). */
+    public static int canonicalTransform(Board b) {
+        int packed = b.packed();
+        int best = packed;
+        int bestT = IDENTITY;
+        for (int t = 1; t < COUNT; t++) {
+            int p = transform(packed, t);
+            if (p < best) {
+                best = p;
+                bestT = t;
+            }
+        }
+        return bestT;
+    }
+
+    /** Smallest packed form among the board's 8 symmetric copies: equal for all of them. */
+    public static int canonicalKey(Board b) {
+        return transform(b.packed(), canonicalTransform(b));
+    }
+
+    public static Board canonical(Board b) {
+        return Board.fromPacked(canonicalKey(b));
+    }
+
+    /** Cell idx of the original board as seen on the board transformed by t. */
+    public static int toCanonical(int t, int idx) {
+        return CELL[t][idx];
+    }
+
+    /** Cell idx of the board transformed by t, back in the original orientation. */
+    public static int fromCanonical(int t, int idx) {
+        return INVERSE_CELL[t][idx];
+    }
+}
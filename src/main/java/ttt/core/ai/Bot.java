@@ -1,6 +1,7 @@
 package ttt.core.ai;
 
 import ttt.core.Board;
+import ttt.core.Position;
 
 /**
  * A game-playing agent that chooses a move (0..8) for the current board state.
@@ -11,4 +12,21 @@ public interface Bot {
      * Throws IllegalStateException if no legal moves exist.
      */
     int chooseMove(Board board);
+
+    /**
+     * Decide a move on any board shape (row-major index).
+     * Bots that only understand 3x3 reject other sizes; m,n,k engines override this.
+     */
+    default int chooseMove(Position position) {
+        if (position instanceof Board b) return chooseMove(b);
+        throw new IllegalArgumentException("This bot only plays 3x3 boards");
+    }
+
+    /**
+     * Decide a move within roughly budgetMillis of wall-clock time.
+     * Bots that answer instantly (or search a fixed depth) ignore the budget.
+     */
+    default int chooseMove(Position position, long budgetMillis) {
+        return chooseMove(position);
+    }
 }
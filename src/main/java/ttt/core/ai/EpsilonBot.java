@@ -0,0 +1,52 @@
+package ttt.core.ai;
+
+import ttt.core.Board;
+import ttt.core.Position;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Plays a uniformly random legal move with probability epsilon, otherwise asks the wrapped
+ * bot. Makes an easy level that blunders now and then instead of one that is merely
+ * short-sighted, and the random moves cost no search at all.
+ *
+ * Thread-safe if the wrapped bot is (the randomness is per thread).
+ */
+public final class EpsilonBot implements Bot {
+
+    private final Bot bot;
+    private final double epsilon;
+
+    /** @param epsilon chance of a random move, 0..1 (0 = always the wrapped bot's move) */
+    public EpsilonBot(Bot bot, double epsilon) {
+        if (!(epsilon >= 0 && epsilon <= 1)) throw new IllegalArgumentException("epsilon b/w 0 and 1");
+        this.bot = bot;
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public int chooseMove(Board board) {
+        return chooseMove((Position) board, 0);
+    }
+
+    @Override
+    public int chooseMove(Position position) {
+        return chooseMove(position, 0);
+    }
+
+    @Override
+    public int chooseMove(Position position, long budgetMillis) {
+        if (position.isTerminal()) throw new IllegalStateException("No legal moves.");
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        if (epsilon == 0 || rnd.nextDouble() >= epsilon) {
+            return budgetMillis > 0 ? bot.chooseMove(position, budgetMillis) : bot.chooseMove(position);
+        }
+        // Reservoir pick over the empty cells: one pass, no list
+        int pick = -1;
+        int seen = 0;
+        for (int i = 0, n = position.cellCount(); i < n; i++) {
+            if (position.isLegal(i) && rnd.nextInt(++seen) == 0) pick = i;
+        }
+        return pick;
+    }
+}
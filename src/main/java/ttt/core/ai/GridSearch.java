@@ -0,0 +1,207 @@
+package ttt.core.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One alpha-beta searcher over a {@link SearchGrid}: negamax with PV-first and history
+ * move ordering, plus the iterative-deepening driver used by {@link IterativeDeepening}.
+ * {@link ParallelSearch} runs one of these per root move on pool threads.
+ *
+ * Owns mutable search state (grid, PV, history), so never share one between threads.
+ */
+final class GridSearch {
+
+    static final int WIN = 1_000_000_000;
+    static final int MAX_PLY = 64;
+    private static final int CHECK_EVERY = 255; // nodes between clock checks (mask)
+
+    private final SearchGrid g;
+    private final long deadline;
+    private final long maxNodes;
+    private final AtomicBoolean stop; // shared by parallel workers, may be null
+    private final int[][] moves;
+    private final int[][] pv;
+    private final int[] pvLength;
+    private final int maxPly;
+    private final int[] history;
+    private int[] prevPv = new int[0];
+    private long nodes;
+    private long prunes; // beta cut-offs
+    private boolean aborted;
+
+    /**
+     * @param deadline System.nanoTime() after which to stop, or Long.MAX_VALUE for none
+     * @param maxNodes stop after this many nodes (0 = no limit)
+     * @param stop set by any worker that runs out of budget, seen by all sharing it (may be null)
+     * @param maxDepth deepest ply this instance will reach (sizes the per-ply buffers)
+     */
+    GridSearch(SearchGrid g, long deadline, long maxNodes, AtomicBoolean stop, int maxDepth) {
+        this.g = g;
+        this.deadline = deadline;
+        this.maxNodes = maxNodes;
+        this.stop = stop;
+        this.maxPly = Math.min(MAX_PLY, maxDepth);
+        this.moves = new int[maxPly + 1][g.cells];
+        this.pv = new int[maxPly + 2][maxPly + 2];
+        this.pvLength = new int[maxPly + 2];
+        this.history = new int[g.cells];
+    }
+
+    /** Iterative deepening on this thread until maxDepth, the deadline or the node budget. */
+    IterativeDeepening.Result run(int maxDepth) {
+        if (g.empties() == g.cells) { // empty board: take the middle, nothing to search
+            return new IterativeDeepening.Result((g.rows / 2) * g.cols + g.cols / 2, 0, 0, 0, false);
+        }
+        int bestMove = -1;
+        int bestScore = 0;
+        int depthDone = 0;
+        int limit = Math.min(maxDepth, maxPly);
+        for (int depth = 1; depth <= limit && !aborted; depth++) {
+            int n = generate(0, true);
+            int alpha = -WIN - 1;
+            int iterMove = -1;
+            for (int i = 0; i < n; i++) {
+                int mv = moves[0][i];
+                pvLength[1] = 0;
+                int score = g.place(mv) ? WIN - 1 : -negamax(depth - 1, 1, -WIN - 1, -alpha, i == 0);
+                g.undo(mv);
+                if (aborted) break;
+                if (score > alpha) {
+                    alpha = score;
+                    iterMove = mv;
+                    pv[0][0] = mv;
+                    System.arraycopy(pv[1], 0, pv[0], 1, pvLength[1]);
+                    pvLength[0] = pvLength[1] + 1;
+                }
+            }
+            // An unfinished iteration still searched the old PV move first, so whatever
+            // it has found by now is at least as good as the previous answer.
+            if (iterMove >= 0) {
+                bestMove = iterMove;
+                bestScore = alpha;
+            }
+            if (aborted) break;
+            depthDone = depth;
+            prevPv = Arrays.copyOf(pv[0], pvLength[0]);
+            if (Math.abs(alpha) >= WIN - MAX_PLY) break; // forced result found, deeper won't change it
+        }
+        if (bestMove < 0) bestMove = moves[0][0]; // not even one root move finished: PV/history guess
+        return new IterativeDeepening.Result(bestMove, bestScore, depthDone, nodes, aborted);
+    }
+
+    // Static score from the side to move's view (SearchGrid keeps it up to date per move).
+    static int evaluate(SearchGrid g) {
+        long score = g.toMove() == SearchGrid.X ? g.score() : -g.score();
+        return (int) Math.max(-WIN / 2, Math.min(WIN / 2, score));
+    }
+
+    SearchGrid grid() {
+        return g;
+    }
+
+    int[] moves(int ply) {
+        return moves[ply];
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    long prunes() {
+        return prunes;
+    }
+
+    boolean aborted() {
+        return aborted;
+    }
+
+    /** Principal variation found by the last negamax call at this ply. */
+    int[] pv(int ply) {
+        return Arrays.copyOf(pv[ply], pvLength[ply]);
+    }
+
+    /** Line to search first in the next iteration (ply i of it is tried first at ply i). */
+    void setPrevPv(int[] line) {
+        this.prevPv = line;
+    }
+
+    /** Fail-soft negamax from the side to move's view. Returns 0 once aborted. */
+    int negamax(int depth, int ply, int alpha, int beta, boolean onPv) {
+        if ((++nodes & CHECK_EVERY) == 0) {
+            if (outOfBudget()) {
+                aborted = true;
+                if (stop != null) stop.set(true);
+            } else if (stop != null && stop.get()) {
+                aborted = true;
+            }
+        }
+        if (aborted) return 0;
+        pvLength[ply] = 0;
+        if (g.empties() == 0) return 0; // draw
+        if (depth == 0 || ply >= maxPly) return evaluate(g);
+
+        int n = generate(ply, onPv);
+        int best = -WIN - 1;
+        for (int i = 0; i < n; i++) {
+            int mv = moves[ply][i];
+            pvLength[ply + 1] = 0;
+            int score = g.place(mv)
+                    ? WIN - ply - 1 // win now; sooner is better
+                    : -negamax(depth - 1, ply + 1, -beta, -alpha, onPv && i == 0);
+            g.undo(mv);
+            if (aborted) return 0;
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    pv[ply][0] = mv;
+                    System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+                    pvLength[ply] = pvLength[ply + 1] + 1;
+                }
+            }
+            if (alpha >= beta) {
+                prunes++;
+                history[mv] += depth * depth;
+                break;
+            }
+        }
+        return best;
+    }
+
+    private boolean outOfBudget() {
+        if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) return true;
+        return maxNodes > 0 && nodes >= maxNodes;
+    }
+
+    // Candidates into moves[ply]: previous PV move first (while on the PV path), then by history.
+    int generate(int ply, boolean onPv) {
+        int[] out = moves[ply];
+        int n = 0;
+        for (int i = 0; i < g.cells; i++) {
+            if (g.isCandidate(i)) out[n++] = i;
+        }
+        // insertion sort by history, descending (candidate lists are short)
+        for (int i = 1; i < n; i++) {
+            int mv = out[i];
+            int h = history[mv];
+            int j = i - 1;
+            while (j >= 0 && history[out[j]] < h) {
+                out[j + 1] = out[j];
+                j--;
+            }
+            out[j + 1] = mv;
+        }
+        if (onPv && ply < prevPv.length) {
+            int pvMove = prevPv[ply];
+            for (int i = 0; i < n; i++) {
+                if (out[i] == pvMove) {
+                    System.arraycopy(out, 0, out, 1, i);
+                    out[0] = pvMove;
+                    break;
+                }
+            }
+        }
+        return n;
+    }
+}
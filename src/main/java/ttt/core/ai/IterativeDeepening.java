@@ -0,0 +1,88 @@
+package ttt.core.ai;
+
+import ttt.core.Board;
+import ttt.core.Position;
+
+/**
+ * Time-budgeted search for any board size (built for m,n,k boards where full-width
+ * Minimax can't finish).
+ *
+ * Negamax alpha-beta on a {@link SearchGrid}, deepened one ply at a time until the
+ * wall-clock budget or node budget runs out. Each iteration searches the previous
+ * principal variation first, then the rest by history score, so the best move so far
+ * is always available. When time is up, the deepest completed iteration's move is
+ * returned (or a better root move already proven in the unfinished one).
+ *
+ * Holds no per-search state, so one instance can serve concurrent requests.
+ * Always answers for the side to move.
+ */
+public final class IterativeDeepening implements Bot {
+
+    static final SearchStats STATS = SearchStats.named("mnk"); // shared with ParallelSearch
+
+    private final long defaultBudgetMillis;
+    private final long maxNodes;
+    private final int maxDepth;
+    private final SearchStats stats;
+
+    /**
+     * @param defaultBudgetMillis wall-clock budget when the caller doesn't give one
+     * @param maxNodes stop after this many nodes (0 = no node limit)
+     * @param maxDepth never deepen past this many plies
+     */
+    public IterativeDeepening(long defaultBudgetMillis, long maxNodes, int maxDepth) {
+        this(defaultBudgetMillis, maxNodes, maxDepth, STATS);
+    }
+
+    /** @param statsName metrics label, for engines capped to play a lower difficulty */
+    public IterativeDeepening(long defaultBudgetMillis, long maxNodes, int maxDepth, String statsName) {
+        this(defaultBudgetMillis, maxNodes, maxDepth, SearchStats.named(statsName));
+    }
+
+    private IterativeDeepening(long defaultBudgetMillis, long maxNodes, int maxDepth, SearchStats stats) {
+        if (defaultBudgetMillis < 1) throw new IllegalArgumentException("budget >= 1ms required");
+        if (maxNodes < 0) throw new IllegalArgumentException("maxNodes >= 0 required");
+        if (maxDepth < 1 || maxDepth > GridSearch.MAX_PLY) throw new IllegalArgumentException("maxDepth b/w 1-" + GridSearch.MAX_PLY);
+        this.defaultBudgetMillis = defaultBudgetMillis;
+        this.maxNodes = maxNodes;
+        this.maxDepth = maxDepth;
+        this.stats = stats;
+    }
+
+    @Override
+    public int chooseMove(Board board) {
+        return chooseMove((Position) board, defaultBudgetMillis);
+    }
+
+    @Override
+    public int chooseMove(Position position) {
+        return chooseMove(position, defaultBudgetMillis);
+    }
+
+    @Override
+    public int chooseMove(Position position, long budgetMillis) {
+        return search(position, budgetMillis).bestMove();
+    }
+
+    /** Outcome of one search, for callers that want more than the move. */
+    public record Result(int bestMove, int score, int depth, long nodes, boolean timedOut) {}
+
+    public Result search(Position position, long budgetMillis) {
+        if (position.isTerminal()) throw new IllegalStateException("No legal moves.");
+        long start = SearchStats.start();
+        long budget = budgetMillis > 0 ? budgetMillis : defaultBudgetMillis;
+        SearchGrid grid = new SearchGrid(position, radiusFor(position), true);
+        int depth = Math.min(maxDepth, grid.empties());
+        GridSearch s = new GridSearch(grid, System.nanoTime() + budget * 1_000_000L, maxNodes, null, depth);
+        Result r = s.run(depth);
+        stats.record(start, r.nodes(), s.prunes(), 0, 0, r.depth(), r.timedOut());
+        return r;
+    }
+
+    // Only look near existing stones on big boards; small boards search every cell.
+    static int radiusFor(Position p) {
+        int cells = p.cellCount();
+        if (cells <= 25) return Math.max(p.rows(), p.cols());
+        return 2;
+    }
+}
@@ -2,11 +2,15 @@ package ttt.core.ai;
 
 import ttt.core.*;
 
-import java.util.*;
-
 /**
  * Minimax AI with optional alpha-beta pruning and depth-limited search.
  * Score positions from the perspective of aiMark (X or O).
+ *
+ * Results are memoized in a {@link TranspositionTable} as EXACT / LOWER / UPPER bounds
+ * with the depth they were searched to, and only reused when valid for the current
+ * alpha-beta window and depth, so pruning and memoization can both stay on.
+ * Entries are keyed on the {@link Symmetry#canonical canonical} board, so all 8 rotations
+ * and mirror images of a position share one entry.
  */
 public final class Minimax implements Bot {
 
@@ -20,19 +24,28 @@ public final class Minimax implements Bot {
     private static final int CENTER_WEIGHT   = 3;
     private static final int CORNER_WEIGHT   = 2;
 
-    // Winning lines (same logic Rules uses)
-    private static final int[][] LINES = {
-            {0,1,2},{3,4,5},{6,7,8},
-            {0,3,6},{1,4,7},{2,5,8},
-            {0,4,8},{2,4,6}
+    // Winning lines as cell bitmasks (same logic Rules uses)
+    private static final int[] LINES = {
+            0b000000111, 0b000111000, 0b111000000,
+            0b001001001, 0b010010010, 0b100100100,
+            0b100010001, 0b001010100
     };
-    private static final int[] CORNERS = {0,2,6,8};
+    private static final int CORNERS = 0b101000101; // cells 0,2,6,8
     private static final int CENTER = 4;
 
     private final Mark aiMark;
     private final boolean useAlphaBeta;
     private final int maxDepth;
-    private final Map<StateKey, Integer> memo = new HashMap<>();
+    private final TranspositionTable memo; // null = no memoization
+    private final SearchStats stats;
+
+    // Per-call counters, published to stats once the move is chosen
+    private static final class Tally {
+        long nodes;
+        long prunes;
+        long memoProbes;
+        long memoHits;
+    }
 
     /**
      * @param aiMark which side the bot is playing as (X or O)
@@ -40,11 +53,27 @@ public final class Minimax implements Bot {
      * @param maxDepth how far to search. 9 ~ perfect for 3x3.
      */
     public Minimax(Mark aiMark, boolean useAlphaBeta, int maxDepth) {
+        this(aiMark, useAlphaBeta, maxDepth, TranspositionTable.shared());
+    }
+
+    /**
+     * @param memo transposition table to read/write, or null to disable memoization.
+     *             Values are stored from the side to move's view, so bots for X and O
+     *             (and different depths) can share one table.
+     */
+    public Minimax(Mark aiMark, boolean useAlphaBeta, int maxDepth, TranspositionTable memo) {
+        this(aiMark, useAlphaBeta, maxDepth, memo, "minimax-depth-" + maxDepth);
+    }
+
+    /** @param statsName metrics label, e.g. the difficulty this bot plays */
+    public Minimax(Mark aiMark, boolean useAlphaBeta, int maxDepth, TranspositionTable memo, String statsName) {
         if (aiMark == Mark.EMPTY) throw new IllegalArgumentException("aiMark must be X or O");
         if (maxDepth < 1) throw new IllegalArgumentException("maxDepth >= 1 required");
         this.aiMark = aiMark;
         this.useAlphaBeta = useAlphaBeta;
         this.maxDepth = maxDepth;
+        this.memo = memo;
+        this.stats = SearchStats.named(statsName);
     }
 
     // Convenience factories for difficulty levels.
@@ -54,82 +83,209 @@ public final class Minimax implements Bot {
 
     @Override
     public int chooseMove(Board board) {
-        List<Integer> legal = board.legalMoves();
-        if (legal.isEmpty()) throw new IllegalStateException("No legal moves.");
-
-        // Small practical opening heuristic: if we're deep search and center is open, just take center.
-        if (maxDepth >= 9 && board.isLegal(CENTER)) {
+        int legal = board.emptyMask();
+        if (legal == 0) throw new IllegalStateException("No legal moves.");
+        long start = SearchStats.start();
+        Tally t = new Tally();
+
+        // Small practical opening heuristic: if we're deep search and the board is empty, just take center.
+        // (Only on the empty board: later on the center may be worse than an immediate win or block.)
+        if (maxDepth >= 9 && legal == Board.FULL_MASK) {
+            stats.record(start, 0, 0, 0, 0, 0, false);
             return CENTER;
         }
 
-        int bestMove = legal.get(0);
-        int bestScore = Integer.MIN_VALUE;
+        // Root is a MAX node when it's our turn; if asked to move for the other side
+        // we pick the reply that is worst for aiMark.
+        boolean ourTurn = board.toMove() == aiMark;
+
+        int bestMove = Integer.numberOfTrailingZeros(legal);
+        int bestScore = ourTurn ? Integer.MIN_VALUE : Integer.MAX_VALUE;
 
         int alpha = Integer.MIN_VALUE;
         int beta  = Integer.MAX_VALUE;
 
-        for (int mv : legal) {
+        for (int m = legal; m != 0; m &= m - 1) {
+            int mv = Integer.numberOfTrailingZeros(m);
             Board next = board.apply(mv);
-            int score = minValue(next, 1, alpha, beta);
-            if (score > bestScore) {
-                bestScore = score;
-                bestMove = mv;
-            }
-            if (useAlphaBeta) {
-                alpha = Math.max(alpha, bestScore);
+            if (ourTurn) {
+                int score = minValue(next, 1, alpha, beta, t);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = mv;
+                }
+                if (useAlphaBeta) {
+                    alpha = Math.max(alpha, bestScore);
+                }
+            } else {
+                int score = maxValue(next, 1, alpha, beta, t);
+                if (score < bestScore) {
+                    bestScore = score;
+                    bestMove = mv;
+                }
+                if (useAlphaBeta) {
+                    beta = Math.min(beta, bestScore);
+                }
             }
         }
+        stats.record(start, t.nodes, t.prunes, t.memoProbes, t.memoHits, Math.min(maxDepth, board.empties()), false);
         return bestMove;
     }
 
     // MIN layer: opponent tries to reduce our score
-    private int minValue(Board b, int depth, int alpha, int beta) {
+    private int minValue(Board b, int depth, int alpha, int beta, Tally t) {
+        t.nodes++;
         GameResult res = Rules.result(b);
         if (res != GameResult.IN_PROGRESS) return terminalScore(res);
         if (depth >= maxDepth) return heuristic(b);
 
-        StateKey key = new StateKey(b, depth, false);
-        Integer cached = memo.get(key);
-        if (cached != null) return cached;
+        // Table values are from the side to move's view; at a MIN node that's the opponent,
+        // so negate the value and swap LOWER/UPPER.
+        int searchDepth = searchDepth(b, depth);
+        long e = 0L;
+        int sym = Symmetry.IDENTITY;
+        int key = 0;
+        if (memo != null) {
+            sym = Symmetry.canonicalTransform(b);
+            key = Symmetry.transform(b.packed(), sym);
+            e = memo.probe(key);
+            t.memoProbes++;
+            if (hit(e, searchDepth)) {
+                int v = -TranspositionTable.value(e);
+                int bound = TranspositionTable.bound(e);
+                if (bound == TranspositionTable.EXACT) return hit(t, v);
+                if (bound == TranspositionTable.UPPER && v >= beta) return hit(t, v); // stm <= x  ->  us >= -x
+                if (bound == TranspositionTable.LOWER && v <= alpha) return hit(t, v);
+            }
+        }
 
+        int alpha0 = alpha;
+        int beta0 = beta;
         int val = Integer.MAX_VALUE;
-        for (int mv : b.legalMoves()) {
-            int score = maxValue(b.apply(mv), depth + 1, alpha, beta);
-            val = Math.min(val, score);
+        int best = TranspositionTable.NO_MOVE;
+        int todo = b.emptyMask();
+        for (int mv = firstMove(e, todo, sym); ; mv = Integer.numberOfTrailingZeros(todo)) {
+            todo &= ~(1 << mv);
+            int score = maxValue(b.applyUnchecked(mv), depth + 1, alpha, beta, t);
+            if (score < val) {
+                val = score;
+                best = mv;
+            }
 
             if (useAlphaBeta) {
-                if (val <= alpha) break;       // prune
+                if (val <= alpha) {            // prune
+                    if (todo != 0) t.prunes++;
+                    break;
+                }
                 beta = Math.min(beta, val);
             }
+            if (todo == 0) break;
+        }
+        if (memo != null) {
+            // val <= alpha0: we stopped early, the true value may be even lower -> our upper bound,
+            // which is a lower bound for the side to move.
+            int bound = val <= alpha0 ? TranspositionTable.LOWER
+                      : val >= beta0  ? TranspositionTable.UPPER
+                      : TranspositionTable.EXACT;
+            memo.store(key, -val, searchDepth, bound, canonicalMove(sym, best));
         }
-        memo.put(key, val);
         return val;
     }
 
     // MAX layer: AI tries to improve its score
-    private int maxValue(Board b, int depth, int alpha, int beta) {
+    private int maxValue(Board b, int depth, int alpha, int beta, Tally t) {
+        t.nodes++;
         GameResult res = Rules.result(b);
         if (res != GameResult.IN_PROGRESS) return terminalScore(res);
         if (depth >= maxDepth) return heuristic(b);
 
-        StateKey key = new StateKey(b, depth, true);
-        Integer cached = memo.get(key);
-        if (cached != null) return cached;
+        int searchDepth = searchDepth(b, depth);
+        long e = 0L;
+        int sym = Symmetry.IDENTITY;
+        int key = 0;
+        if (memo != null) {
+            sym = Symmetry.canonicalTransform(b);
+            key = Symmetry.transform(b.packed(), sym);
+            e = memo.probe(key);
+            t.memoProbes++;
+            if (hit(e, searchDepth)) {
+                int v = TranspositionTable.value(e);
+                int bound = TranspositionTable.bound(e);
+                if (bound == TranspositionTable.EXACT) return hit(t, v);
+                if (bound == TranspositionTable.LOWER && v >= beta) return hit(t, v);
+                if (bound == TranspositionTable.UPPER && v <= alpha) return hit(t, v);
+            }
+        }
 
+        int alpha0 = alpha;
+        int beta0 = beta;
         int val = Integer.MIN_VALUE;
-        for (int mv : b.legalMoves()) {
-            int score = minValue(b.apply(mv), depth + 1, alpha, beta);
-            val = Math.max(val, score);
+        int best = TranspositionTable.NO_MOVE;
+        int todo = b.emptyMask();
+        for (int mv = firstMove(e, todo, sym); ; mv = Integer.numberOfTrailingZeros(todo)) {
+            todo &= ~(1 << mv);
+            int score = minValue(b.applyUnchecked(mv), depth + 1, alpha, beta, t);
+            if (score > val) {
+                val = score;
+                best = mv;
+            }
 
             if (useAlphaBeta) {
-                if (val >= beta) break;        // prune
+                if (val >= beta) {             // prune
+                    if (todo != 0) t.prunes++;
+                    break;
+                }
                 alpha = Math.max(alpha, val);
             }
+            if (todo == 0) break;
+        }
+        if (memo != null) {
+            int bound = val <= alpha0 ? TranspositionTable.UPPER
+                      : val >= beta0  ? TranspositionTable.LOWER
+                      : TranspositionTable.EXACT;
+            memo.store(key, val, searchDepth, bound, canonicalMove(sym, best));
         }
-        memo.put(key, val);
         return val;
     }
 
+    /**
+     * Plies left before the heuristic cut-off, capped at the number of empty cells:
+     * once the horizon is past the end of the game the result no longer depends on it,
+     * so a depth-9 and a depth-4 search can share entries for late positions.
+     */
+    private int searchDepth(Board b, int depth) {
+        return Math.min(maxDepth - depth, b.empties());
+    }
+
+    // A usable table entry: counted, then returned as the node's value
+    private static int hit(Tally t, int value) {
+        t.memoHits++;
+        return value;
+    }
+
+    // Only reuse an entry searched to exactly our horizon: deeper results would make
+    // easy/medium play differently depending on what other bots searched before.
+    private static boolean hit(long e, int searchDepth) {
+        return e != 0L && TranspositionTable.depth(e) == searchDepth;
+    }
+
+    // Search the table's best move first (it caused the last cut-off), then the rest in index order.
+    // The table holds it in canonical orientation; sym maps it back onto this board.
+    private static int firstMove(long e, int legal, int sym) {
+        if (e != 0L) {
+            int mv = TranspositionTable.move(e);
+            if (mv != TranspositionTable.NO_MOVE) {
+                mv = Symmetry.fromCanonical(sym, mv);
+                if ((legal & (1 << mv)) != 0) return mv;
+            }
+        }
+        return Integer.numberOfTrailingZeros(legal);
+    }
+
+    private static int canonicalMove(int sym, int mv) {
+        return mv == TranspositionTable.NO_MOVE ? mv : Symmetry.toCanonical(sym, mv);
+    }
+
     /**
      * Assign scores to terminal states from aiMark's perspective.
      */
@@ -152,85 +308,28 @@ public final class Minimax implements Bot {
         // 1. Line-based threats:
         //    + if ai has 2 in a line and the 3rd is empty (winning threat)
         //    - if opponent has that
-        for (int[] line : LINES) {
-            int aiCount = 0;
-            int oppCount = 0;
-            int emptyCount = 0;
-
-            for (int idx : line) {
-                Mark m = b.cell(idx);
-                if (m == aiMark) aiCount++;
-                else if (m == Mark.EMPTY) emptyCount++;
-                else oppCount++;
-            }
+        int ai = b.mask(aiMark);
+        int opp = b.mask(aiMark.opponent());
+        int empty = b.emptyMask();
+        for (int line : LINES) {
+            int aiCount = Integer.bitCount(ai & line);
+            int oppCount = Integer.bitCount(opp & line);
+            int emptyCount = Integer.bitCount(empty & line);
 
             if (aiCount == 2 && emptyCount == 1) score += TWO_IN_ROW_OPEN;
             if (oppCount == 2 && emptyCount == 1) score -= TWO_IN_ROW_OPEN;
         }
 
         // 2. Center control
-        if (b.cell(CENTER) == aiMark) {
+        if ((ai & (1 << CENTER)) != 0) {
             score += CENTER_WEIGHT;
-        } else if (b.cell(CENTER) == aiMark.opponent()) {
+        } else if ((opp & (1 << CENTER)) != 0) {
             score -= CENTER_WEIGHT;
         }
 
         // 3. Corner control
-        for (int c : CORNERS) {
-            if (b.cell(c) == aiMark) {
-                score += CORNER_WEIGHT;
-            } else if (b.cell(c) == aiMark.opponent()) {
-                score -= CORNER_WEIGHT;
-            }
-        }
+        score += CORNER_WEIGHT * (Integer.bitCount(ai & CORNERS) - Integer.bitCount(opp & CORNERS));
 
         return score;
     }
-
-    /**
-     * Compact hash key for memoization.
-     * We encode:
-     * - which marks are in each of the 9 cells
-     * - which depth we're at (just parity, not full depth)
-     * - whether we're in a MAX node or MIN node
-     *
-     * This keeps repeated board states from being re-evaluated.
-     */
-    private static final class StateKey {
-        private final long packed;
-
-        StateKey(Board b, int depth, boolean maxNode) {
-            long p = 0L;
-            for (int i = 0; i < 9; i++) {
-                long v = switch (b.cell(i)) {
-                    case EMPTY -> 0L;
-                    case X -> 1L;
-                    case O -> 2L;
-                };
-                p |= (v << (i * 2)); // 2 bits per cell
-            }
-
-            // Add a couple bits of extra context to reduce collisions
-            // bit 20: maxNode flag
-            if (maxNode) {
-                p |= (1L << 20);
-            }
-            // bit 21: depth parity
-            if ((depth & 1) == 1) {
-                p |= (1L << 21);
-            }
-
-            this.packed = p;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            return (o instanceof StateKey k) && k.packed == this.packed;
-        }
-
-        @Override
-        public int hashCode() {
-            return Long.hashCode(packed);
-        }
-    }
 }
@@ -0,0 +1,421 @@
+package ttt.core.ai;
+
+import ttt.core.Board;
+import ttt.core.Position;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Monte Carlo tree search (UCT) for m,n,k boards, where no evaluation function written
+ * for one shape says much about another.
+ *
+ * Each iteration walks down the tree picking the child with the best UCT value, adds
+ * children to a leaf once it has been visited a few times, then plays random moves to
+ * the end of the game and credits the result to every node on the path. Playouts run
+ * on the same {@link SearchGrid} the tree walk used, placing and undoing stones in
+ * place, so an iteration allocates nothing unless it expands a node.
+ *
+ * Several workers share one tree. A worker counts its visit on each node as it goes down
+ * and only adds the reward on the way back up, so until then the node looks like a loss
+ * (virtual loss) and the other workers spread out instead of all following the same line.
+ * Node statistics are one long each, updated with a single atomic add.
+ *
+ * After a search the subtree under the chosen move is kept in a small table keyed by
+ * position. When the same game comes back after the opponent's reply, the search starts
+ * from the matching grandchild with everything already learned about it. What goes in the
+ * table is a copy of the KEPT_NODES nodes nearest its root, so the table holds at most
+ * reuseSlots x KEPT_NODES nodes however long the searches ran, and other searches still
+ * running in the original (games at the same position share kept subtrees) lose nothing.
+ *
+ * Stops at the time budget or after maxIterations playouts, whichever comes first. Answers
+ * for the side to move, with the most visited root move. Thread-safe; results depend on
+ * thread timing and random playouts, so it has no reproducible mode.
+ */
+public final class MonteCarloTreeSearch implements Bot {
+
+    static final SearchStats STATS = SearchStats.named("mcts");
+
+    private static final double EXPLORATION = 1.0; // UCT constant for rewards in 0..1
+    private static final int EXPAND_AFTER = 8;      // visits before a leaf gets children
+    private static final int MAX_CELLS = 19 * 19;
+    static final int KEPT_NODES = 1024;             // per kept subtree; deeper nodes are copied without children
+
+    // Position keys for tree reuse: one random number per (cell, side), plus side to move and shape
+    private static final long[] ZOBRIST = new long[MAX_CELLS * 2];
+    private static final long SIDE_TO_MOVE;
+
+    static {
+        SplittableRandom r = new SplittableRandom(0x5eed_7777L);
+        for (int i = 0; i < ZOBRIST.length; i++) ZOBRIST[i] = r.nextLong();
+        SIDE_TO_MOVE = r.nextLong();
+    }
+
+    private final ForkJoinPool pool; // null = search on the calling thread only
+    private final long defaultBudgetMillis;
+    private final long maxIterations;
+    private final AtomicReferenceArray<Kept> kept; // null = no tree reuse
+
+    /** A subtree kept for the next search, with the key of the position at its root. */
+    private record Kept(long key, Node node) {}
+
+    /**
+     * @param pool threads to run playouts on (its parallelism is the number of workers),
+     *             or null to search on the calling thread
+     * @param defaultBudgetMillis wall-clock budget when the caller doesn't give one
+     * @param maxIterations stop after this many playouts (0 = only the clock)
+     * @param reuseSlots positions whose subtrees are kept for the next move (0 = no reuse);
+     *                   rounded up to a power of two
+     */
+    public MonteCarloTreeSearch(ForkJoinPool pool, long defaultBudgetMillis, long maxIterations, int reuseSlots) {
+        if (defaultBudgetMillis < 1) throw new IllegalArgumentException("budget >= 1ms required");
+        if (maxIterations < 0) throw new IllegalArgumentException("maxIterations >= 0 required");
+        if (reuseSlots < 0) throw new IllegalArgumentException("reuseSlots >= 0 required");
+        this.pool = pool;
+        this.defaultBudgetMillis = defaultBudgetMillis;
+        this.maxIterations = maxIterations;
+        this.kept = reuseSlots == 0 ? null
+                : new AtomicReferenceArray<>(Integer.highestOneBit(Math.max(1, reuseSlots - 1)) << 1);
+    }
+
+    @Override
+    public int chooseMove(Board board) {
+        return chooseMove((Position) board, defaultBudgetMillis);
+    }
+
+    @Override
+    public int chooseMove(Position position) {
+        return chooseMove(position, defaultBudgetMillis);
+    }
+
+    @Override
+    public int chooseMove(Position position, long budgetMillis) {
+        return search(position, budgetMillis).bestMove();
+    }
+
+    /**
+     * @param playouts iterations run by this search
+     * @param visits times the chosen move has been tried, including visits from earlier searches
+     * @param reused root visits inherited from an earlier search (0 = fresh tree)
+     * @param depth deepest tree node reached
+     */
+    public record Result(int bestMove, long playouts, long visits, long reused, int depth, boolean timedOut) {}
+
+    public Result search(Position position, long budgetMillis) {
+        if (position.isTerminal()) throw new IllegalStateException("No legal moves.");
+        if (position.cellCount() > MAX_CELLS) throw new IllegalArgumentException("Board too big for MCTS");
+        long start = SearchStats.start();
+        SearchGrid root = new SearchGrid(position, IterativeDeepening.radiusFor(position), false);
+        if (root.empties() == root.cells) { // empty board: take the middle, nothing to learn
+            STATS.record(start, 0, 0, 0, 0, 0, false);
+            return new Result((root.rows / 2) * root.cols + root.cols / 2, 0, 0, 0, 0, false);
+        }
+        long key = key(root);
+        Node tree = reuse(root, key);
+        long reused = tree.visits();
+        tree.expand(root, ThreadLocalRandom.current()); // so there is a move even if no playout runs
+        long budget = budgetMillis > 0 ? budgetMillis : defaultBudgetMillis;
+        long deadline = System.nanoTime() + budget * 1_000_000L;
+        AtomicLong iterations = new AtomicLong();
+        AtomicBoolean timedOut = new AtomicBoolean();
+
+        int workers = pool == null ? 1 : pool.getParallelism();
+        List<Worker> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) tasks.add(new Worker(root, tree, deadline, iterations, timedOut));
+        if (pool == null) {
+            tasks.get(0).compute();
+        } else {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                }
+            });
+        }
+
+        Node best = tree.bestChild();
+        int depth = 0;
+        for (Worker w : tasks) depth = Math.max(depth, w.maxDepth);
+        if (kept != null) {
+            long childKey = key ^ ZOBRIST[best.move * 2 + root.toMove() - 1] ^ SIDE_TO_MOVE;
+            kept.set(slot(childKey), new Kept(childKey, prune(best)));
+        }
+        long playouts = Math.min(iterations.get(), maxIterations > 0 ? maxIterations : Long.MAX_VALUE);
+        STATS.record(start, playouts, 0, 0, 0, depth, timedOut.get());
+        return new Result(best.move, playouts, best.visits(), reused, depth, timedOut.get());
+    }
+
+    // The kept subtree for this position (after the opponent's reply, or the same position
+    // again), or a new root.
+    private Node reuse(SearchGrid g, long key) {
+        if (kept == null) return new Node(-1, SearchGrid.EMPTY);
+        Kept k = kept.get(slot(key));
+        if (k != null && k.key() == key) return k.node();
+        byte opponent = g.toMove() == SearchGrid.X ? SearchGrid.O : SearchGrid.X;
+        for (int i = 0; i < g.cells; i++) {
+            if (g.cell[i] != opponent) continue;
+            long before = key ^ ZOBRIST[i * 2 + opponent - 1] ^ SIDE_TO_MOVE; // take back the reply
+            k = kept.get(slot(before));
+            if (k == null || k.key() != before) continue;
+            Node[] kids = k.node().children;
+            if (kids == null) continue;
+            for (Node c : kids) {
+                if (c.move == i) return c;
+            }
+        }
+        return new Node(-1, SearchGrid.EMPTY);
+    }
+
+    // A copy of the subtree cut down to KEPT_NODES nodes, nearest the root first: the replies and
+    // the positions after them are what the next search starts from. Copied, not cut in place:
+    // the nodes may be shared with searches still running. Leaves of the copy re-expand if needed.
+    static Node prune(Node root) {
+        Node top = root.copy();
+        ArrayDeque<Node> from = new ArrayDeque<>();
+        ArrayDeque<Node> to = new ArrayDeque<>();
+        from.add(root);
+        to.add(top);
+        int room = KEPT_NODES - 1;
+        for (Node n; (n = from.poll()) != null; ) {
+            Node m = to.poll();
+            Node[] kids = n.children;
+            if (kids == null || kids.length > room) continue;
+            room -= kids.length;
+            Node w = n.winning;
+            Node[] copies = new Node[kids.length];
+            for (int i = 0; i < kids.length; i++) {
+                copies[i] = kids[i].copy();
+                if (kids[i] == w) m.winning = copies[i];
+                from.add(kids[i]);
+                to.add(copies[i]);
+            }
+            m.children = copies;
+        }
+        return top;
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & (kept.length() - 1);
+    }
+
+    private static long key(SearchGrid g) {
+        long key = ((long) g.rows << 16 | (long) g.cols << 8 | g.k) * 0x9E37_79B9_7F4A_7C15L;
+        for (int i = 0; i < g.cells; i++) {
+            if (g.cell[i] != SearchGrid.EMPTY) key ^= ZOBRIST[i * 2 + g.cell[i] - 1];
+        }
+        return g.toMove() == SearchGrid.O ? key ^ SIDE_TO_MOVE : key;
+    }
+
+    /** Runs iterations on its own grid copy until the budget is spent. */
+    private final class Worker extends RecursiveAction {
+        private final SearchGrid grid;
+        private final Node root;
+        private final long deadline;
+        private final AtomicLong iterations;
+        private final AtomicBoolean timedOut;
+        private final Node[] path;
+        private final int[] moves;
+        int maxDepth; // read after invokeAll (which happens-before)
+
+        Worker(SearchGrid root, Node tree, long deadline, AtomicLong iterations, AtomicBoolean timedOut) {
+            this.grid = new SearchGrid(root);
+            this.root = tree;
+            this.deadline = deadline;
+            this.iterations = iterations;
+            this.timedOut = timedOut;
+            this.path = new Node[grid.empties() + 1];
+            this.moves = new int[grid.cells];
+        }
+
+        @Override
+        protected void compute() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            while (true) {
+                if (root.winning() != null) return; // a move wins on the spot: nothing to learn
+                if (System.nanoTime() - deadline > 0) {
+                    timedOut.set(true);
+                    return;
+                }
+                if (iterations.incrementAndGet() > maxIterations && maxIterations > 0) return;
+                iterate(rnd);
+            }
+        }
+
+        private void iterate(ThreadLocalRandom rnd) {
+            SearchGrid g = grid;
+            Node node = root;
+            node.visit();
+            path[0] = node;
+            int depth = 0;
+            byte winner = -1; // -1 = not decided in the tree
+            while (true) {
+                Node[] kids = node.children;
+                if (kids == null) {
+                    if (depth > 0 && node.visits() < EXPAND_AFTER) break;
+                    kids = node.expand(g, rnd);
+                }
+                Node c = node.select(kids);
+                c.visit(); // virtual loss until the reward comes back
+                path[++depth] = c;
+                if (g.place(c.move)) {
+                    c.markWin();
+                    winner = c.mover;
+                    break;
+                }
+                if (g.empties() == 0) {
+                    winner = SearchGrid.EMPTY; // draw
+                    break;
+                }
+                node = c;
+            }
+            if (winner < 0) winner = playout(g, rnd);
+            for (int i = depth; i > 0; i--) g.undo(path[i].move);
+            for (int i = 0; i <= depth; i++) path[i].reward(winner);
+            if (depth > maxDepth) maxDepth = depth;
+        }
+
+        // Random moves to the end of the game; returns the winner (EMPTY = draw). Undoes them.
+        private byte playout(SearchGrid g, ThreadLocalRandom rnd) {
+            int n = 0;
+            for (int i = 0; i < g.cells; i++) {
+                if (g.isEmpty(i)) moves[n++] = i;
+            }
+            byte winner = SearchGrid.EMPTY;
+            int placed = 0;
+            while (placed < n) {
+                int j = placed + rnd.nextInt(n - placed); // partial Fisher-Yates: moves[0..placed) are played
+                int mv = moves[j];
+                moves[j] = moves[placed];
+                moves[placed++] = mv;
+                byte who = g.toMove();
+                if (g.place(mv)) {
+                    winner = who;
+                    break;
+                }
+            }
+            for (int i = placed - 1; i >= 0; i--) g.undo(moves[i]);
+            return winner;
+        }
+    }
+
+    /** One move in the tree, with its statistics from the view of the side that played it. */
+    static final class Node {
+        private static final AtomicLongFieldUpdater<Node> STATS_UPDATER =
+                AtomicLongFieldUpdater.newUpdater(Node.class, "stats");
+        private static final long ONE_VISIT = 1L << 32;
+
+        final int move;   // cell played to get here (-1 for a fresh root)
+        final byte mover; // side that played it
+        private volatile long stats;  // visits << 32 | reward in half points (win 2, draw 1)
+        private volatile boolean win; // move completes a line: always the best reply
+        volatile Node[] children;     // null until expanded
+        private volatile Node winning; // a child that wins on the spot, once one is seen
+
+        Node(int move, byte mover) {
+            this.move = move;
+            this.mover = mover;
+        }
+
+        long visits() {
+            return stats >>> 32;
+        }
+
+        void visit() {
+            STATS_UPDATER.getAndAdd(this, ONE_VISIT);
+        }
+
+        void reward(byte winner) {
+            int half = winner == mover ? 2 : winner == SearchGrid.EMPTY ? 1 : 0;
+            if (half != 0) STATS_UPDATER.getAndAdd(this, half);
+        }
+
+        void markWin() {
+            win = true;
+        }
+
+        Node winning() {
+            return winning;
+        }
+
+        // The move and its statistics so far, without children
+        Node copy() {
+            Node c = new Node(move, mover);
+            c.stats = stats;
+            c.win = win;
+            return c;
+        }
+
+        // One child per candidate cell, in random order so unvisited ties don't favour a corner
+        Node[] expand(SearchGrid g, ThreadLocalRandom rnd) {
+            synchronized (this) {
+                Node[] kids = children;
+                if (kids != null) return kids;
+                int n = 0;
+                for (int i = 0; i < g.cells; i++) {
+                    if (g.isCandidate(i)) n++;
+                }
+                int[] cells = new int[n];
+                n = 0;
+                for (int i = 0; i < g.cells; i++) {
+                    if (g.isCandidate(i)) cells[n++] = i;
+                }
+                kids = new Node[n];
+                byte side = g.toMove();
+                for (int i = n - 1; i >= 0; i--) {
+                    int j = rnd.nextInt(i + 1);
+                    int c = cells[j];
+                    cells[j] = cells[i];
+                    kids[i] = new Node(c, side);
+                }
+                children = kids;
+                return kids;
+            }
+        }
+
+        // UCT, trying every child once first; a child known to win is always taken
+        Node select(Node[] kids) {
+            Node w = winning;
+            if (w != null) return w;
+            double logN = Math.log(Math.max(1, visits()));
+            Node best = kids[0];
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Node c : kids) {
+                if (c.win) {
+                    winning = c;
+                    return c;
+                }
+                long s = c.stats;
+                long n = s >>> 32;
+                if (n == 0) return c;
+                double value = (s & 0xFFFF_FFFFL) / (2.0 * n) + EXPLORATION * Math.sqrt(logN / n);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        // Most visited child (a winning move if one was found)
+        Node bestChild() {
+            Node w = winning;
+            if (w != null) return w;
+            Node[] kids = children; // once: every pick comes from the same expansion
+            Node best = kids[0];
+            for (Node c : kids) {
+                if (c.visits() > best.visits()) best = c;
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package ttt.core.ai;
+
+import ttt.core.Board;
+import ttt.core.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Root-split parallel version of {@link IterativeDeepening}.
+ *
+ * Each iteration forks one task per root move onto a ForkJoinPool. Every task searches
+ * its move on a private copy of the grid with a {@link GridSearch}, using the best root
+ * score found so far by any task as its alpha (shared through one AtomicLong), so
+ * finished moves keep narrowing the window for the rest.
+ *
+ * The winner is the highest score, ties broken by lowest cell index. A task whose move
+ * could still win a tie searches with alpha - 1, so exact values are found for every
+ * contender no matter which order tasks finish in: at a fixed depth the result does not
+ * depend on thread timing. In reproducible mode the clock is ignored and every search
+ * runs to maxDepth, so the same position always gets the same move.
+ */
+public final class ParallelSearch implements Bot {
+
+    private static final int NO_MOVE = Integer.MAX_VALUE;
+
+    private final ForkJoinPool pool;
+    private final long defaultBudgetMillis;
+    private final int maxDepth;
+    private final boolean reproducible;
+
+    /**
+     * @param pool threads to search on (its parallelism is the speed-up ceiling)
+     * @param defaultBudgetMillis wall-clock budget when the caller doesn't give one
+     * @param maxDepth never deepen past this many plies; in reproducible mode, always search this deep
+     * @param reproducible ignore wall-clock budgets so results only depend on the position
+     */
+    public ParallelSearch(ForkJoinPool pool, long defaultBudgetMillis, int maxDepth, boolean reproducible) {
+        if (defaultBudgetMillis < 1) throw new IllegalArgumentException("budget >= 1ms required");
+        if (maxDepth < 1 || maxDepth > GridSearch.MAX_PLY) {
+            throw new IllegalArgumentException("maxDepth b/w 1-" + GridSearch.MAX_PLY);
+        }
+        this.pool = pool;
+        this.defaultBudgetMillis = defaultBudgetMillis;
+        this.maxDepth = maxDepth;
+        this.reproducible = reproducible;
+    }
+
+    @Override
+    public int chooseMove(Board board) {
+        return chooseMove((Position) board, defaultBudgetMillis);
+    }
+
+    @Override
+    public int chooseMove(Position position) {
+        return chooseMove(position, defaultBudgetMillis);
+    }
+
+    @Override
+    public int chooseMove(Position position, long budgetMillis) {
+        return search(position, budgetMillis).bestMove();
+    }
+
+    public IterativeDeepening.Result search(Position position, long budgetMillis) {
+        if (position.isTerminal()) throw new IllegalStateException("No legal moves.");
+        long start = SearchStats.start();
+        SearchGrid root = new SearchGrid(position, IterativeDeepening.radiusFor(position), true);
+        if (root.empties() == root.cells) { // empty board: take the middle, nothing to search
+            return new IterativeDeepening.Result((root.rows / 2) * root.cols + root.cols / 2, 0, 0, 0, false);
+        }
+        long budget = budgetMillis > 0 ? budgetMillis : defaultBudgetMillis;
+        long deadline = reproducible ? Long.MAX_VALUE : System.nanoTime() + budget * 1_000_000L;
+        AtomicBoolean stop = new AtomicBoolean();
+
+        // Root moves in index order; the previous iteration's best goes first.
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < root.cells; i++) {
+            if (root.isCandidate(i)) candidates.add(i);
+        }
+        int[][] pvByMove = new int[root.cells][];
+
+        int bestMove = -1;
+        int bestScore = 0;
+        int depthDone = 0;
+        long nodes = 0;
+        long prunes = 0;
+        int limit = Math.min(maxDepth, root.empties());
+        for (int depth = 1; depth <= limit; depth++) {
+            AtomicLong best = new AtomicLong(pack(-GridSearch.WIN - 1, NO_MOVE));
+            List<RootTask> tasks = new ArrayList<>(candidates.size());
+            for (int mv : candidates) {
+                RootTask t = new RootTask(root, mv, depth, deadline, stop, best, pvByMove[mv]);
+                if (mv == bestMove) tasks.add(0, t);
+                else tasks.add(t);
+            }
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                }
+            });
+
+            boolean prevBestDone = bestMove < 0;
+            for (RootTask t : tasks) {
+                nodes += t.nodes;
+                prunes += t.prunes;
+                if (t.done) {
+                    pvByMove[t.move] = t.pv;
+                    if (t.move == bestMove) prevBestDone = true;
+                }
+            }
+            long b = best.get();
+            // Partial iteration: only trust it if the old best was re-searched, so the
+            // new pick is proven at least as good at the deeper depth.
+            if (moveOf(b) != NO_MOVE && (!stop.get() || prevBestDone)) {
+                bestMove = moveOf(b);
+                bestScore = scoreOf(b);
+            }
+            if (stop.get()) break;
+            depthDone = depth;
+            if (Math.abs(bestScore) >= GridSearch.WIN - GridSearch.MAX_PLY) break; // forced result
+        }
+        if (bestMove < 0) bestMove = candidates.get(0);
+        IterativeDeepening.STATS.record(start, nodes, prunes, 0, 0, depthDone, stop.get());
+        return new IterativeDeepening.Result(bestMove, bestScore, depthDone, nodes, stop.get());
+    }
+
+    // Higher score wins; on equal scores the lower cell index wins. Packed so one CAS orders both.
+    private static long pack(int score, int move) {
+        return ((long) score << 32) | (NO_MOVE - move);
+    }
+
+    private static int scoreOf(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    private static int moveOf(long packed) {
+        return NO_MOVE - (int) packed;
+    }
+
+    /** Searches one root move to a fixed depth on its own grid copy. */
+    private static final class RootTask extends RecursiveAction {
+        private final SearchGrid root;
+        private final int move;
+        private final int depth;
+        private final long deadline;
+        private final AtomicBoolean stop;
+        private final AtomicLong best;
+        private final int[] prevPv;
+        // written by the worker, read after invokeAll (which happens-before)
+        boolean done;
+        long nodes;
+        long prunes;
+        int[] pv;
+
+        RootTask(SearchGrid root, int move, int depth, long deadline, AtomicBoolean stop,
+                 AtomicLong best, int[] prevPv) {
+            this.root = root;
+            this.move = move;
+            this.depth = depth;
+            this.deadline = deadline;
+            this.stop = stop;
+            this.best = best;
+            this.prevPv = prevPv;
+        }
+
+        @Override
+        protected void compute() {
+            if (stop.get()) return;
+            SearchGrid g = new SearchGrid(root);
+            int score;
+            if (g.place(move)) {
+                score = GridSearch.WIN - 1;
+                pv = new int[]{move};
+            } else {
+                GridSearch s = new GridSearch(g, deadline, 0, stop, depth);
+                if (prevPv != null) s.setPrevPv(prevPv);
+                long b = best.get();
+                // Strictly-better is enough against a lower index; a higher index can still be
+                // beaten on a tie, so widen by one to get an exact score for equal values.
+                int alpha = moveOf(b) < move ? scoreOf(b) : scoreOf(b) - 1;
+                score = -s.negamax(depth - 1, 1, -GridSearch.WIN - 1, -alpha, prevPv != null);
+                nodes = s.nodes();
+                prunes = s.prunes();
+                if (s.aborted()) return;
+                int[] line = s.pv(1);
+                pv = new int[line.length + 1];
+                pv[0] = move;
+                System.arraycopy(line, 0, pv, 1, line.length);
+            }
+            long mine = pack(score, move);
+            long cur;
+            do {
+                cur = best.get();
+                if (mine <= cur) break;
+            } while (!best.compareAndSet(cur, mine));
+            done = true;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package ttt.core.ai;
+
+import ttt.core.Mark;
+import ttt.core.Position;
+
+/**
+ * Mutable, primitive scratch board for search on any m,n,k shape.
+ * place()/undo() work in place (no allocation), and place() reports a win by only
+ * walking the lines through the new stone, like {@link ttt.core.MnkBoard#apply}.
+ *
+ * It also keeps, per cell, how many stones sit within {@code radius} (Chebyshev
+ * distance); search uses that to only consider moves near the action on big boards.
+ *
+ * With score tracking on, it maintains a static evaluation incrementally: every k-long
+ * window only one side occupies counts for that side, weighted by how few stones it
+ * still needs. place()/undo() only rescore the 4*k windows through the changed cell.
+ *
+ * Not thread-safe: one grid per search thread.
+ */
+final class SearchGrid {
+    static final byte EMPTY = 0;
+    static final byte X = 1;
+    static final byte O = 2;
+
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    // Window weights by stones still missing: 1 missing = one move from winning.
+    private static final int[] MISSING_WEIGHT = {0, 50_000, 1_000, 50, 5, 1};
+
+    final int rows;
+    final int cols;
+    final int k;
+    final int cells;
+    final byte[] cell;
+    private final int radius;
+    private final short[] near;
+    private final boolean trackScore;
+    private byte toMove;
+    private int empties;
+    private long score; // X-positive window score, only maintained when trackScore
+
+    SearchGrid(Position p, int radius, boolean trackScore) {
+        this.rows = p.rows();
+        this.cols = p.cols();
+        this.k = p.winLength();
+        this.cells = rows * cols;
+        this.cell = new byte[cells];
+        this.radius = radius;
+        this.near = new short[cells];
+        this.trackScore = trackScore;
+        this.toMove = p.toMove() == Mark.X ? X : O;
+        for (int i = 0; i < cells; i++) {
+            Mark m = p.cell(i);
+            if (m != Mark.EMPTY) {
+                set(i, m == Mark.X ? X : O);
+                touch(i, 1);
+            } else {
+                empties++;
+            }
+        }
+    }
+
+    /** Copy for another search thread. */
+    SearchGrid(SearchGrid g) {
+        this.rows = g.rows;
+        this.cols = g.cols;
+        this.k = g.k;
+        this.cells = g.cells;
+        this.cell = g.cell.clone();
+        this.radius = g.radius;
+        this.near = g.near.clone();
+        this.trackScore = g.trackScore;
+        this.toMove = g.toMove;
+        this.empties = g.empties;
+        this.score = g.score;
+    }
+
+    byte toMove() {
+        return toMove;
+    }
+
+    int empties() {
+        return empties;
+    }
+
+    /** Window score, positive = good for X. Only meaningful with score tracking on. */
+    long score() {
+        return score;
+    }
+
+    boolean isEmpty(int idx) {
+        return cell[idx] == EMPTY;
+    }
+
+    /** True if idx is empty and has a stone within the radius (always true on an empty board). */
+    boolean isCandidate(int idx) {
+        return cell[idx] == EMPTY && (near[idx] > 0 || empties == cells);
+    }
+
+    /** Put the side to move on idx, pass the turn. Returns true if that stone completes k in a row. */
+    boolean place(int idx) {
+        byte me = toMove;
+        set(idx, me);
+        empties--;
+        touch(idx, 1);
+        toMove = me == X ? O : X;
+        return completesLine(idx, me);
+    }
+
+    /** Take back the stone on idx (must be the last one placed). */
+    void undo(int idx) {
+        toMove = cell[idx];
+        set(idx, EMPTY);
+        empties++;
+        touch(idx, -1);
+    }
+
+    private boolean completesLine(int idx, byte me) {
+        int r0 = idx / cols;
+        int c0 = idx % cols;
+        for (int[] d : DIRECTIONS) {
+            int run = 1;
+            for (int sign = -1; sign <= 1; sign += 2) {
+                int r = r0 + sign * d[0];
+                int c = c0 + sign * d[1];
+                while (run < k && r >= 0 && r < rows && c >= 0 && c < cols && cell[r * cols + c] == me) {
+                    run++;
+                    r += sign * d[0];
+                    c += sign * d[1];
+                }
+            }
+            if (run >= k) return true;
+        }
+        return false;
+    }
+
+    private void set(int idx, byte v) {
+        if (!trackScore) {
+            cell[idx] = v;
+            return;
+        }
+        score -= windowsThrough(idx);
+        cell[idx] = v;
+        score += windowsThrough(idx);
+    }
+
+    // Sum of window weights over every k-window (4 directions) that contains idx.
+    private long windowsThrough(int idx) {
+        int r0 = idx / cols;
+        int c0 = idx % cols;
+        long sum = 0;
+        for (int[] d : DIRECTIONS) {
+            for (int back = 0; back < k; back++) {
+                int rs = r0 - back * d[0];
+                int cs = c0 - back * d[1];
+                int re = rs + (k - 1) * d[0];
+                int ce = cs + (k - 1) * d[1];
+                if (rs < 0 || rs >= rows || cs < 0 || cs >= cols || re < 0 || re >= rows || ce < 0 || ce >= cols) {
+                    continue;
+                }
+                int xs = 0;
+                int os = 0;
+                for (int i = 0, r = rs, c = cs; i < k; i++, r += d[0], c += d[1]) {
+                    byte v = cell[r * cols + c];
+                    if (v == X) xs++;
+                    else if (v == O) os++;
+                }
+                if (os == 0 && xs > 0) sum += MISSING_WEIGHT[Math.min(k - xs, MISSING_WEIGHT.length - 1)];
+                else if (xs == 0 && os > 0) sum -= MISSING_WEIGHT[Math.min(k - os, MISSING_WEIGHT.length - 1)];
+            }
+        }
+        return sum;
+    }
+
+    private void touch(int idx, int delta) {
+        int r0 = idx / cols;
+        int c0 = idx % cols;
+        for (int r = Math.max(0, r0 - radius); r <= Math.min(rows - 1, r0 + radius); r++) {
+            for (int c = Math.max(0, c0 - radius); c <= Math.min(cols - 1, c0 + radius); c++) {
+                near[r * cols + c] += delta;
+            }
+        }
+    }
+}
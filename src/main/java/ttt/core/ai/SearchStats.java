@@ -0,0 +1,69 @@
+package ttt.core.ai;
+
+import ttt.metrics.Histogram;
+import ttt.metrics.Metrics;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals for one kind of search (a difficulty, or the m,n,k engine), fed once
+ * per chooseMove. Searches count into plain locals and publish here at the end, so the
+ * per-node cost is an increment in a register whether metrics are on or off.
+ */
+public final class SearchStats {
+    private static final ConcurrentHashMap<String, SearchStats> BY_NAME = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder prunes = new LongAdder();
+    private final LongAdder memoProbes = new LongAdder();
+    private final LongAdder memoHits = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final Histogram time = Histogram.latency();
+    private final Histogram depth = new Histogram(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 12, 16, 24, 32, 64);
+
+    private SearchStats(String name) {
+        this.name = name;
+    }
+
+    /** The stats for this search kind, created on first use. */
+    public static SearchStats named(String name) {
+        return BY_NAME.computeIfAbsent(name, SearchStats::new);
+    }
+
+    public static Collection<SearchStats> all() {
+        return BY_NAME.values();
+    }
+
+    /** Nanosecond clock for timing a search, or 0 when metrics are off (no clock read). */
+    static long start() {
+        return Metrics.enabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * @param startNanos from {@link #start()}; 0 = metrics were off when the search began
+     * @param depth plies searched (deepest completed iteration for iterative deepening)
+     */
+    void record(long startNanos, long nodes, long prunes, long memoProbes, long memoHits, int depth,
+                boolean timedOut) {
+        if (startNanos == 0L || !Metrics.enabled()) return;
+        time.record(System.nanoTime() - startNanos);
+        this.nodes.add(nodes);
+        this.prunes.add(prunes);
+        this.memoProbes.add(memoProbes);
+        this.memoHits.add(memoHits);
+        this.depth.record(depth);
+        if (timedOut) timeouts.increment();
+    }
+
+    public String name() { return name; }
+    public long nodes() { return nodes.sum(); }
+    public long prunes() { return prunes.sum(); }
+    public long memoProbes() { return memoProbes.sum(); }
+    public long memoHits() { return memoHits.sum(); }
+    public long timeouts() { return timeouts.sum(); }
+    public Histogram time() { return time; }
+    public Histogram depth() { return depth; }
+}
@@ -0,0 +1,128 @@
+package ttt.core.ai;
+
+import ttt.core.*;
+
+/**
+ * Perfect-play lookup table for 3x3.
+ *
+ * Every position reachable from an empty board (X or O starting) is solved once,
+ * and its best move and game value are stored in one byte, indexed by
+ * base-3 cell encoding * 2 + side to move. After that, chooseMove is one array read.
+ *
+ * Best move prefers the fastest win and the slowest loss.
+ * The table is side-agnostic: it always answers for board.toMove().
+ */
+public final class SolvedPositionTable implements Bot {
+
+    // Outcome for the side to move, stored in bits 4..5 of an entry.
+    public static final int LOSS = -1;
+    public static final int DRAW = 0;
+    public static final int WIN  = 1;
+
+    private static final int NO_MOVE = 0x0F;     // terminal position
+    private static final int UNREACHED = 0;      // outcome bits 00 = never visited
+    private static final int OUTCOME_SHIFT = 4;
+
+    private static final int KEYS = 19683;       // 3^9
+    private static final int[] BASE3 = new int[1 << 9]; // cell bitmask -> sum of 3^i over set bits
+
+    static {
+        for (int mask = 0; mask < BASE3.length; mask++) {
+            int v = 0;
+            int p = 1;
+            for (int i = 0; i < 9; i++) {
+                if ((mask & (1 << i)) != 0) v += p;
+                p *= 3;
+            }
+            BASE3[mask] = v;
+        }
+    }
+
+    private final byte[] entries = new byte[KEYS * 2];
+    private final int positions;
+
+    private SolvedPositionTable() {
+        byte[] scores = new byte[entries.length]; // build-time only: distance-aware negamax score
+        solve(Board.initial(Mark.X), scores);
+        solve(Board.initial(Mark.O), scores);
+        int n = 0;
+        for (byte e : entries) {
+            if (e != UNREACHED) n++;
+        }
+        this.positions = n;
+    }
+
+    /** Shared table, built on first use. */
+    public static SolvedPositionTable instance() {
+        return Holder.INSTANCE;
+    }
+
+    private static final class Holder {
+        static final SolvedPositionTable INSTANCE = new SolvedPositionTable();
+    }
+
+    @Override
+    public int chooseMove(Board board) {
+        int e = entry(board);
+        int mv = e & NO_MOVE;
+        if (mv == NO_MOVE) throw new IllegalStateException("No legal moves.");
+        return mv;
+    }
+
+    /** Game value for board.toMove() under perfect play: WIN, DRAW or LOSS. */
+    public int outcome(Board board) {
+        return ((entry(board) >>> OUTCOME_SHIFT) & 0x3) - 2;
+    }
+
+    /** Number of distinct reachable positions stored. */
+    public int positions() {
+        return positions;
+    }
+
+    private int entry(Board board) {
+        int e = entries[index(board)];
+        if (e == UNREACHED) {
+            throw new IllegalArgumentException("Position not reachable in a legal game: " + board);
+        }
+        return e;
+    }
+
+    static int index(Board b) {
+        int key = BASE3[b.xMask()] + 2 * BASE3[b.oMask()];
+        return key * 2 + (b.toMove() == Mark.O ? 1 : 0);
+    }
+
+    /**
+     * Negamax over the full tree, memoized in the table itself.
+     * Score for the side to move: win = 1 + empties left (sooner is better), draw = 0, loss = negative.
+     */
+    private int solve(Board b, byte[] scores) {
+        int idx = index(b);
+        if (entries[idx] != UNREACHED) return scores[idx];
+
+        int empties = b.emptyMask();
+        GameResult r = Rules.result(b);
+        int score;
+        int best = NO_MOVE;
+        if (r == GameResult.DRAW) {
+            score = 0;
+        } else if (r != GameResult.IN_PROGRESS) {
+            score = -(1 + Integer.bitCount(empties)); // previous mover won
+        } else {
+            score = Integer.MIN_VALUE;
+            for (int m = empties; m != 0; m &= m - 1) {
+                int mv = Integer.numberOfTrailingZeros(m);
+                int s = -solve(b.applyUnchecked(mv), scores);
+                if (s > score) {
+                    score = s;
+                    best = mv;
+                }
+            }
+        }
+
+        int outcome = Integer.signum(score);
+        scores[idx] = (byte) score;
+        entries[idx] = (byte) (((outcome + 2) << OUTCOME_SHIFT) | best);
+        return score;
+    }
+}
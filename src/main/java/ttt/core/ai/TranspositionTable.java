@@ -0,0 +1,139 @@
+package ttt.core.ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free transposition table for 3x3 search, shared by all bots.
+ *
+ * Each entry is one long, so reads and writes are atomic without locks:
+ * - bits 0..18  : packed board (Board.packed(), includes side to move) -> the full key, no collisions
+ * - bit 19      : occupied flag
+ * - bits 20..23 : search depth the value is good for
+ * - bits 24..25 : bound type (EXACT / LOWER / UPPER)
+ * - bits 26..29 : best move (NO_MOVE if none)
+ * - bits 32..47 : value (signed 16-bit), from the side to move's point of view
+ *
+ * Buckets hold two entries. Slot 0 is depth-preferred (only replaced by an equal or deeper
+ * result, or an update of the same key); slot 1 is always-replace.
+ * Racing writers may overwrite each other's entries, but since every entry carries its
+ * full key a probe never returns data for the wrong position.
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER = 2; // value is a lower bound (search failed high)
+    public static final int UPPER = 3; // value is an upper bound (search failed low)
+    public static final int NO_MOVE = 0x0F;
+
+    private static final long KEY_MASK = (1L << 19) - 1;
+    private static final long OCCUPIED = 1L << 19;
+
+    private static final TranspositionTable SHARED =
+            new TranspositionTable(Integer.getInteger("ttt.ai.ttBuckets", 1 << 14));
+
+    private final AtomicLongArray slots;
+    private final int bucketMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** @param buckets number of 2-entry buckets, rounded up to a power of two */
+    public TranspositionTable(int buckets) {
+        if (buckets < 1) throw new IllegalArgumentException("buckets >= 1 required");
+        int n = Integer.highestOneBit(buckets);
+        if (n < buckets) n <<= 1;
+        this.slots = new AtomicLongArray(n * 2);
+        this.bucketMask = n - 1;
+    }
+
+    /** Process-wide table; size via -Dttt.ai.ttBuckets (default 16384 buckets = 256 KB). */
+    public static TranspositionTable shared() {
+        return SHARED;
+    }
+
+    /**
+     * Look up a position. Returns the raw entry (decode with {@link #value}, {@link #depth},
+     * {@link #bound}, {@link #move}) or 0 if absent.
+     */
+    public long probe(int key) {
+        int base = bucket(key);
+        long e = slots.get(base);
+        if (matches(e, key)) {
+            hits.increment();
+            return e;
+        }
+        e = slots.get(base + 1);
+        if (matches(e, key)) {
+            hits.increment();
+            return e;
+        }
+        misses.increment();
+        return 0L;
+    }
+
+    public void store(int key, int value, int depth, int bound, int move) {
+        long e = (key & KEY_MASK) | OCCUPIED
+                | ((long) (depth & 0xF) << 20)
+                | ((long) (bound & 0x3) << 24)
+                | ((long) (move & 0xF) << 26)
+                | ((long) (value & 0xFFFF) << 32);
+        int base = bucket(key);
+        stores.increment();
+
+        long old = slots.get(base);
+        if (old == 0L || matches(old, key) || depth >= depth(old)) {
+            if (old != 0L && !matches(old, key)) {
+                // Demote the shallower entry to the always-replace slot rather than dropping it.
+                long victim = slots.getAndSet(base + 1, old);
+                if (victim != 0L) evictions.increment();
+            }
+            slots.set(base, e);
+            return;
+        }
+        long victim = slots.getAndSet(base + 1, e);
+        if (victim != 0L && !matches(victim, key)) evictions.increment();
+    }
+
+    public static int value(long entry) { return (short) (entry >>> 32); }
+    public static int depth(long entry) { return (int) (entry >>> 20) & 0xF; }
+    public static int bound(long entry) { return (int) (entry >>> 24) & 0x3; }
+    public static int move(long entry)  { return (int) (entry >>> 26) & 0xF; }
+
+    /** Drop all entries (counters are kept). */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, 0L);
+        }
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public Stats stats() {
+        int used = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != 0L) used++;
+        }
+        return new Stats(capacity(), used, hits.sum(), misses.sum(), stores.sum(), evictions.sum());
+    }
+
+    public record Stats(int capacity, int used, long hits, long misses, long stores, long evictions) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    private int bucket(int key) {
+        int h = key * 0x9E3779B9; // Fibonacci hashing spreads the low board bits
+        return ((h ^ (h >>> 16)) & bucketMask) << 1;
+    }
+
+    private static boolean matches(long entry, int key) {
+        return (entry & OCCUPIED) != 0 && (entry & KEY_MASK) == (key & KEY_MASK);
+    }
+}
@@ -0,0 +1,4 @@
+package ttt.domain;
+
+/** How well the AI plays in a PVE game; chosen at creation, fixed for the game. */
+public enum Difficulty { EASY, MEDIUM, HARD }
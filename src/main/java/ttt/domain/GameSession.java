@@ -1,30 +1,77 @@
 package ttt.domain;
 
-import ttt.core.Board;
+import ttt.core.GameResult;
 import ttt.core.Mark;
+import ttt.core.MoveHistory;
+import ttt.core.Position;
 
 import java.time.Instant;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class GameSession {
     private final UUID id;
-    private Board board;
+    private final AtomicReference<State> state; // swapped whole on every move, never mutated
     private final Mode mode;
     private final Mark aiPlays; // null for PVP; otherwise X or O
+    private final Difficulty difficulty; // how the AI plays (kept for PVP too, unused there)
     private final Instant createdAt;
+    private volatile long lastAccessMillis; // read by the store's eviction sweep
+    private String idString;                // id.toString(), made on first use
 
-    public GameSession(UUID id, Board board, Mode mode, Mark aiPlays) {
+    /**
+     * Board plus a version that goes up by one on every change, so a client can say
+     * which state it based a move on. The result is worked out once per change here,
+     * not on every read. The history holds the moves since the game was created (undo
+     * and redo change it and the board together).
+     */
+    public record State(Position board, long version, GameResult result, MoveHistory history) {
+        public State(Position board, long version) {
+            this(board, version, MoveHistory.empty(board));
+        }
+
+        public State(Position board, long version, MoveHistory history) {
+            this(board, version, board.result(), history);
+        }
+    }
+
+    public GameSession(UUID id, Position board, Mode mode, Mark aiPlays) {
+        this(id, new State(board, 0), mode, aiPlays, Difficulty.HARD, Instant.now());
+    }
+
+    // for stores that rebuild sessions from their own encoding
+    public GameSession(UUID id, State state, Mode mode, Mark aiPlays, Difficulty difficulty, Instant createdAt) {
         this.id = id;
-        this.board = board;
+        this.state = new AtomicReference<>(state);
         this.mode = mode;
         this.aiPlays = aiPlays;
-        this.createdAt = Instant.now();
+        this.difficulty = difficulty;
+        this.createdAt = createdAt;
+        this.lastAccessMillis = createdAt.toEpochMilli();
     }
 
     public UUID id() { return id; }
-    public Board board() { return board; }
-    public void setBoard(Board b) { this.board = b; }
+    // racy but safe: at worst two threads both build the same immutable string
+    public String idString() {
+        String s = idString;
+        if (s == null) idString = s = id.toString();
+        return s;
+    }
+    public State state() { return state.get(); }
+    public Position board() { return state.get().board(); }
+    public long version() { return state.get().version(); }
     public Mode mode() { return mode; }
     public Mark aiPlays() { return aiPlays; }
+    public Difficulty difficulty() { return difficulty; }
     public Instant createdAt() { return createdAt; }
+    public long lastAccessMillis() { return lastAccessMillis; }
+    public void touch(long nowMillis) { this.lastAccessMillis = nowMillis; }
+
+    /**
+     * Move from {@code expected} to {@code board} and {@code history} (version + 1) unless
+     * another request changed the game first. Lock-free: losers re-read and decide again.
+     */
+    public boolean compareAndSet(State expected, Position board, MoveHistory history) {
+        return state.compareAndSet(expected, new State(board, expected.version() + 1, history));
+    }
 }
@@ -0,0 +1,68 @@
+package ttt.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket histogram safe to record into from any number of threads: one striped
+ * counter per bucket, so concurrent recorders don't contend on a shared cache line.
+ * Bucket bounds are inclusive upper limits; values above the last bound land in an
+ * overflow bucket (+Inf in Prometheus).
+ */
+public final class Histogram {
+    private final long[] bounds;
+    private final LongAdder[] counts; // counts[bounds.length] = overflow
+    private final LongAdder sum = new LongAdder();
+
+    public Histogram(long... bounds) {
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) throw new IllegalArgumentException("bounds must be ascending");
+        }
+        this.bounds = bounds.clone();
+        this.counts = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < counts.length; i++) counts[i] = new LongAdder();
+    }
+
+    /** For durations in nanoseconds: 1us, 2us, 4us ... ~67s. */
+    public static Histogram latency() {
+        long[] b = new long[27];
+        for (int i = 0; i < b.length; i++) b[i] = 1_000L << i;
+        return new Histogram(b);
+    }
+
+    public void record(long value) {
+        int i = Arrays.binarySearch(bounds, value);
+        counts[i < 0 ? -i - 1 : i].increment();
+        sum.add(value);
+    }
+
+    public long count() {
+        long n = 0;
+        for (LongAdder c : counts) n += c.sum();
+        return n;
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * Append in Prometheus text format: cumulative name_bucket{...,le=".."} lines, then
+     * name_sum and name_count. labels is the inside of the braces (may be empty);
+     * recorded values are divided by divisor on the way out (1e9 for nanoseconds -> seconds).
+     */
+    public void writePrometheus(StringBuilder out, String name, String labels, double divisor) {
+        String sep = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i].sum();
+            String le = i < bounds.length ? PrometheusText.number(bounds[i] / divisor) : "+Inf";
+            out.append(name).append("_bucket{").append(labels).append(sep)
+                    .append("le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+        }
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(braces).append(' ')
+                .append(PrometheusText.number(sum.sum() / divisor)).append('\n');
+        out.append(name).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+    }
+}
@@ -0,0 +1,19 @@
+package ttt.metrics;
+
+/**
+ * Process-wide switch for the hot-path instrumentation (search stats, request timings).
+ * On by default; ttt.metrics.enabled=false turns every record call into one volatile read.
+ */
+public final class Metrics {
+    private static volatile boolean enabled = true;
+
+    private Metrics() {}
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    public static void enable(boolean on) {
+        enabled = on;
+    }
+}
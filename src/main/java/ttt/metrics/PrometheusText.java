@@ -0,0 +1,51 @@
+package ttt.metrics;
+
+/**
+ * Builds the Prometheus text exposition format (version 0.0.4): a HELP and TYPE line
+ * per metric family, then one line per sample.
+ */
+public final class PrometheusText {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final StringBuilder out = new StringBuilder(4096);
+
+    public PrometheusText family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    public PrometheusText sample(String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ').append(number(value)).append('\n');
+        return this;
+    }
+
+    /** A histogram of nanosecond durations, exported in seconds. */
+    public PrometheusText seconds(String name, String labels, Histogram h) {
+        h.writePrometheus(out, name, labels, NANOS_PER_SECOND);
+        return this;
+    }
+
+    public PrometheusText histogram(String name, String labels, Histogram h) {
+        h.writePrometheus(out, name, labels, 1);
+        return this;
+    }
+
+    // Whole numbers without a trailing ".0" (counts stay readable), everything else as Java prints it
+    static String number(double v) {
+        return v == Math.rint(v) && Math.abs(v) < 1e15 ? Long.toString((long) v) : Double.toString(v);
+    }
+
+    /** key="value" with the value escaped; join several with ','. */
+    public static String label(String key, String value) {
+        return key + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package ttt.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool for AI searches, so a burst of expensive moves can't tie up the web
+ * server's request threads. A fixed number of workers pull from a fixed-size queue;
+ * when the queue is full new work is refused at once with {@link OverloadedException}
+ * (503 + Retry-After) instead of piling up behind work that is already late.
+ */
+public final class AiWorkers implements AutoCloseable {
+
+    private final ThreadPoolExecutor pool;
+    private final long typicalTaskMillis;
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param threads searches that run at once
+     * @param queueCapacity searches that may wait for a worker
+     * @param typicalTaskMillis expected run time of one search, to estimate Retry-After
+     */
+    public AiWorkers(int threads, int queueCapacity, long typicalTaskMillis) {
+        if (threads < 1) throw new IllegalArgumentException("threads >= 1 required");
+        if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity >= 1 required");
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "ai-worker-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.typicalTaskMillis = typicalTaskMillis;
+    }
+
+    /** Run task on a worker. Throws OverloadedException right away if the queue is full. */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, pool);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new OverloadedException("AI is busy, try again shortly.", retryAfterSeconds());
+        }
+    }
+
+    // Time for the workers to drain what's queued now, at least a second.
+    private long retryAfterSeconds() {
+        long backlogMillis = (long) pool.getQueue().size() * typicalTaskMillis / pool.getMaximumPoolSize();
+        return Math.max(1, (backlogMillis + 999) / 1000);
+    }
+
+    public Stats stats() {
+        return new Stats(pool.getMaximumPoolSize(), pool.getActiveCount(), pool.getQueue().size(),
+                pool.getQueue().size() + pool.getQueue().remainingCapacity(),
+                pool.getCompletedTaskCount(), rejected.sum());
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * @param workers pool size
+     * @param active workers running a search right now
+     * @param queued searches waiting for a worker
+     * @param queueCapacity most searches that may wait
+     * @param completed searches finished since start
+     * @param rejected requests turned away with 503 since start
+     */
+    public record Stats(int workers, int active, int queued, int queueCapacity, long completed, long rejected) {}
+}
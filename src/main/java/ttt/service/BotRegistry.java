@@ -0,0 +1,112 @@
+package ttt.service;
+
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.Position;
+import ttt.core.ai.Bot;
+import ttt.core.ai.EpsilonBot;
+import ttt.core.ai.IterativeDeepening;
+import ttt.core.ai.Minimax;
+import ttt.core.ai.SolvedPositionTable;
+import ttt.core.ai.TranspositionTable;
+import ttt.domain.Difficulty;
+
+import java.util.function.Function;
+
+/**
+ * The bot for each (difficulty, board shape, side to move), built once at startup and
+ * shared by every request. Bots must be thread-safe; the ones here keep per-search state
+ * on the stack and share only thread-safe tables, so a lookup is an array read and the
+ * transposition table stays warm across games.
+ *
+ * New strategies plug in through {@link Builder#register}, on their own or over the
+ * {@link #standard} line-up (a later registration replaces an earlier one). A registry
+ * must cover every combination before it is built, so a lookup never comes back empty.
+ */
+public final class BotRegistry {
+
+    /** Boards the registry tells apart: the 3x3 bitboard, or any m,n,k board. */
+    public enum Shape {
+        CLASSIC, LARGE;
+
+        public static Shape of(Position board) {
+            return board instanceof Board ? CLASSIC : LARGE;
+        }
+    }
+
+    private static final Mark[] SIDES = {Mark.X, Mark.O};
+    private static final int SHAPES = Shape.values().length;
+
+    private final Bot[] bots; // [difficulty][shape][side], flattened
+
+    private BotRegistry(Bot[] bots) {
+        this.bots = bots;
+    }
+
+    /** The bot that moves for board.toMove() at this difficulty. */
+    public Bot bot(Difficulty difficulty, Position board) {
+        return bots[slot(difficulty, Shape.of(board), board.toMove())];
+    }
+
+    /**
+     * The default line-up:
+     * - 3x3: HARD is the solved table, MEDIUM a 4-ply Minimax, EASY a 2-ply Minimax that
+     *   sometimes plays at random
+     * - bigger: HARD is largeBoardBot; MEDIUM and EASY are single-threaded searches capped
+     *   at 4 and 2 plies, so the cheap levels never hold a parallel search's threads
+     *
+     * @param budgetMs default think time for the capped searches
+     * @param easyEpsilon chance of a random move at EASY (0 = never, e.g. for reproducible games)
+     */
+    public static Builder standard(Bot largeBoardBot, long budgetMs, double easyEpsilon) {
+        Bot mnkMedium = new IterativeDeepening(budgetMs, 0, 4, "mnk-medium");
+        Bot mnkEasy = new EpsilonBot(new IterativeDeepening(budgetMs, 0, 2, "mnk-easy"), easyEpsilon);
+        return builder()
+                .register(Difficulty.HARD, Shape.CLASSIC, SolvedPositionTable.instance())
+                .registerPerSide(Difficulty.MEDIUM, Shape.CLASSIC,
+                        side -> new Minimax(side, true, 4, TranspositionTable.shared(), "medium"))
+                .registerPerSide(Difficulty.EASY, Shape.CLASSIC,
+                        side -> new EpsilonBot(new Minimax(side, true, 2, TranspositionTable.shared(), "easy"), easyEpsilon))
+                .register(Difficulty.HARD, Shape.LARGE, largeBoardBot)
+                .register(Difficulty.MEDIUM, Shape.LARGE, mnkMedium)
+                .register(Difficulty.EASY, Shape.LARGE, mnkEasy);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final Bot[] bots = new Bot[Difficulty.values().length * SHAPES * SIDES.length];
+
+        private Builder() {}
+
+        /** One instance for both sides (bots that answer for the side to move). */
+        public Builder register(Difficulty difficulty, Shape shape, Bot bot) {
+            return registerPerSide(difficulty, shape, side -> bot);
+        }
+
+        /** One instance per side, made now (bots that are told which side they play). */
+        public Builder registerPerSide(Difficulty difficulty, Shape shape, Function<Mark, Bot> perSide) {
+            for (Mark side : SIDES) bots[slot(difficulty, shape, side)] = perSide.apply(side);
+            return this;
+        }
+
+        /** @throws IllegalStateException if some difficulty and shape has no bot */
+        public BotRegistry build() {
+            for (Difficulty d : Difficulty.values()) {
+                for (Shape s : Shape.values()) {
+                    if (bots[slot(d, s, Mark.X)] == null) {
+                        throw new IllegalStateException("No bot for " + d + " on " + s + " boards");
+                    }
+                }
+            }
+            return new BotRegistry(bots.clone());
+        }
+    }
+
+    private static int slot(Difficulty difficulty, Shape shape, Mark side) {
+        return (difficulty.ordinal() * SHAPES + shape.ordinal()) * SIDES.length
+                + (side == Mark.O ? 1 : 0);
+    }
+}
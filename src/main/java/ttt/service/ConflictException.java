@@ -0,0 +1,5 @@
+package ttt.service;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String m) { super(m); }
+}
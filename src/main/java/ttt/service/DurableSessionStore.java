@@ -0,0 +1,496 @@
+package ttt.service;
+
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.MnkBoard;
+import ttt.core.MoveHistory;
+import ttt.core.PackedMoveHistory;
+import ttt.core.Position;
+import ttt.domain.Difficulty;
+import ttt.domain.GameSession;
+import ttt.domain.Mode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps games across restarts: wraps another store and writes every create, move, undo,
+ * redo and removal to a {@link WriteAheadLog} in a local directory, with a periodic
+ * snapshot of all live games so the log stays short.
+ *
+ * On startup the latest snapshot is loaded into the wrapped store (through a memory
+ * mapping), then the log segments written since it are replayed. A snapshot is taken
+ * while games keep changing: the log is first moved to a new segment, so every change
+ * the snapshot might have missed is in a segment that is kept. Replaying a change the
+ * snapshot already has is harmless, since change records carry the version they produce
+ * and are skipped unless they are the game's next version. Snapshots hold each game's
+ * move history too, so undo and redo keep working after a restart.
+ *
+ * Games the wrapped store drops for idleness or space are not logged; they disappear at
+ * the next snapshot, and one replayed from the log before that just expires again.
+ *
+ * Log records (32 bytes, see WriteAheadLog), after the game id:
+ * <pre>
+ *   CREATE: u8 type | u8 size | u8 k | u8 flags | u32 created (epoch seconds) || u32 millis into that second
+ *   MOVE:   u8 type | u8 stones | 16 unused | u32 version after || u16 first cell | u16 second cell
+ *   UNDO:   u8 type | u8 plies  | 16 unused | u32 version after || unused
+ *   REDO:   same as UNDO
+ *   REMOVE: u8 type || unused
+ * </pre>
+ * flags: bit 0 PVE | bits 1-2 aiPlays (0 none, 1 X, 2 O) | bits 3-4 difficulty | bit 5 O starts
+ *        | bit 6 classic 3x3 board. A move record holds one stone, or two for a /turn, played in order
+ *        as {@link MoveHistory#play} does (playing the move an undo took back is a redo).
+ */
+public final class DurableSessionStore implements SessionStore {
+
+    private static final int CREATE = 1;
+    private static final int MOVE = 2;
+    private static final int REMOVE = 3;
+    private static final int UNDO = 4;
+    private static final int REDO = 5;
+
+    private static final int SNAPSHOT_MAGIC = 0x7474_7453; // "tttS"
+    private static final int SNAPSHOT_FORMAT = 2; // 1 had no move histories
+    private static final int SNAPSHOT_HEADER = 4 + 4 + 8 + 8; // magic, format, first log segment, games
+    private static final int MAX_CELLS = MnkBoard.MAX_SIZE * MnkBoard.MAX_SIZE;
+    private static final int MAX_ENTRY = 16 + 8 + 8 + 4 + 2 * 8 * ((MAX_CELLS + 63) / 64) + 4 + 2 * MAX_CELLS;
+    private static final long MAP_WINDOW = 64L << 20; // snapshot bytes mapped at a time
+
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+
+    private final SessionStore store;
+    private final Path dir;
+    private final Clock clock;
+    private final WriteAheadLog log;
+    private final ScheduledExecutorService snapshots; // null: only on close
+    private final Object snapshotLock = new Object();
+    private final Recovery recovery;
+
+    /**
+     * What startup found on disk.
+     * @param snapshotGames games loaded from the snapshot
+     * @param logRecords records replayed from the log
+     * @param millis time the recovery took
+     */
+    public record Recovery(long snapshotGames, long logRecords, long millis) {}
+
+    /**
+     * @param store where games live while the server runs
+     * @param dir directory for the log and snapshot (created if missing)
+     * @param syncMillis how often the log is fsynced: changes from the last syncMillis may be lost
+     *                   in a crash (0 = each change waits for its fsync, shared with concurrent ones)
+     * @param snapshotInterval how often to snapshot and drop old log segments (zero = only on close)
+     */
+    public DurableSessionStore(SessionStore store, Path dir, long syncMillis, Duration snapshotInterval,
+                               Clock clock) throws IOException {
+        this.store = store;
+        this.dir = Files.createDirectories(dir);
+        this.clock = clock;
+        long started = clock.millis();
+        long[] counts = recover();
+        this.recovery = new Recovery(counts[0], counts[1], clock.millis() - started);
+        // New writes always go to a fresh segment, after anything a crash may have cut short
+        var segments = WriteAheadLog.segments(dir);
+        long next = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        this.log = new WriteAheadLog(dir, next, syncMillis, 1 << 14);
+        if (snapshotInterval.isZero()) {
+            this.snapshots = null;
+        } else {
+            this.snapshots = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "session-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            long every = snapshotInterval.toMillis();
+            snapshots.scheduleWithFixedDelay(this::snapshotQuietly, every, every, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Recovery recovery() {
+        return recovery;
+    }
+
+    @Override
+    public GameSession create(Position board, Mode mode, Mark aiPlays, Difficulty difficulty) {
+        log.checkWritable(); // no game the log can't record
+        GameSession s = store.create(board, mode, aiPlays, difficulty);
+        int flags = (mode == Mode.PVE ? 1 : 0)
+                | markCode(aiPlays) << 1
+                | difficulty.ordinal() << 3
+                | (board.toMove() == Mark.O ? 1 << 5 : 0)
+                | (board instanceof Board ? 1 << 6 : 0);
+        long header = (long) CREATE << 56 | (long) board.rows() << 48 | (long) board.winLength() << 40
+                | (long) flags << 32 | (s.createdAt().getEpochSecond() & 0xFFFF_FFFFL);
+        log.append(s.id().getMostSignificantBits(), s.id().getLeastSignificantBits(), header,
+                s.createdAt().getNano() / 1_000_000);
+        return s;
+    }
+
+    @Override
+    public boolean update(GameSession session, GameSession.State expected, Position board, MoveHistory history) {
+        long change = change(expected.history(), history); // before the update: unloggable changes never happen
+        log.checkWritable(); // nor ones a failed or closed log can't take
+        if (!store.update(session, expected, board, history)) return false;
+        long header = (change >>> 32) << 48 | ((expected.version() + 1) & 0xFFFF_FFFFL);
+        try {
+            log.append(session.id().getMostSignificantBits(), session.id().getLeastSignificantBits(), header,
+                    (int) change);
+        } catch (RuntimeException e) {
+            // the log broke since the check: the change is live, but may not survive a restart
+            throw new NotSavedException("Change applied as version " + (expected.version() + 1)
+                    + " of game " + session.id() + " but not saved", e);
+        }
+        return true;
+    }
+
+    /*
+     * What took the history from before to after, as a record's (type << 8 | count) << 32 | payload:
+     * UNDO or REDO of count plies, or a MOVE of one or two stones (payload move << 16 | reply,
+     * reply 0xFFFF for none).
+     */
+    private static long change(MoveHistory before, MoveHistory after) {
+        int from = before.ply();
+        int to = after.ply();
+        int plies = Math.abs(to - from);
+        if (plies == 0 || plies > 0xFF) throw unloggable();
+        MoveHistory h = before;
+        for (int i = 0; i < plies && (to < from ? h.ply() > 0 : h.ply() < h.length()); i++) {
+            h = to < from ? h.undo() : h.redo();
+        }
+        if (h.equals(after)) return (long) ((to < from ? UNDO : REDO) << 8 | plies) << 32;
+        if (to < from || plies > 2) throw unloggable();
+        int move = after.move(from);
+        int reply = plies == 2 ? after.move(from + 1) : 0xFFFF;
+        h = before.play(move);
+        if (plies == 2) h = h.play(reply);
+        if (!h.equals(after)) throw unloggable();
+        return (long) (MOVE << 8 | plies) << 32 | (move << 16 | reply);
+    }
+
+    private static IllegalArgumentException unloggable() {
+        return new IllegalArgumentException("A logged change is one move, a move and the reply, an undo or a redo");
+    }
+
+    @Override
+    public GameSession get(UUID id) {
+        return store.get(id);
+    }
+
+    @Override
+    public void remove(UUID id) {
+        store.remove(id);
+        log.append(id.getMostSignificantBits(), id.getLeastSignificantBits(), (long) REMOVE << 56, 0);
+    }
+
+    @Override
+    public void forEach(Consumer<GameSession> action) {
+        store.forEach(action);
+    }
+
+    /**
+     * Puts a game saved elsewhere back in the wrapped store. It isn't logged (a log record
+     * can't hold a whole history); {@link #restored()} snapshots it to disk.
+     */
+    @Override
+    public void restore(GameSession session) {
+        store.restore(session);
+    }
+
+    /** @throws UncheckedIOException if the snapshot that makes restored games durable fails */
+    @Override
+    public void restored() {
+        store.restored();
+        try {
+            snapshot();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Snapshot of restored games failed", e);
+        }
+    }
+
+    @Override
+    public Stats stats() {
+        return store.stats();
+    }
+
+    /** Take a final snapshot, so the next start has no log to replay, then close the wrapped store. */
+    @Override
+    public void close() {
+        if (snapshots != null) snapshots.shutdownNow();
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            // the log still has everything
+        } finally {
+            log.close();
+            store.close();
+        }
+    }
+
+    // ---- snapshots ----
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            // keep the log segments and try again next time
+        }
+    }
+
+    /**
+     * Write every live game to a new snapshot, then delete the log segments it covers.
+     * @return games written
+     */
+    long snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long firstSegment = log.rotate(); // changes from here on are in segments the snapshot keeps
+            Path tmp = dir.resolve("snapshot.tmp");
+            long games;
+            long size;
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                var out = new SnapshotWriter(ch);
+                out.reserve(SNAPSHOT_HEADER).position(SNAPSHOT_HEADER);
+                store.forEach(s -> out.write(s, s.state()));
+                size = out.end();
+                games = out.games;
+                ch.map(FileChannel.MapMode.READ_WRITE, 0, SNAPSHOT_HEADER)
+                        .putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_FORMAT).putLong(firstSegment).putLong(games);
+                ch.truncate(size);
+                ch.force(true);
+            }
+            Files.move(tmp, dir.resolve("snapshot.bin"), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            for (long seq : WriteAheadLog.segments(dir)) {
+                if (seq < firstSegment) Files.deleteIfExists(WriteAheadLog.path(dir, seq));
+            }
+            return games;
+        }
+    }
+
+    /** Appends entries through a sliding memory-mapped window. */
+    private static final class SnapshotWriter {
+        private final FileChannel ch;
+        private MappedByteBuffer window;
+        private long windowStart;
+        long games;
+
+        SnapshotWriter(FileChannel ch) {
+            this.ch = ch;
+        }
+
+        MappedByteBuffer reserve(int bytes) {
+            try {
+                if (window == null || window.remaining() < bytes) {
+                    long at = window == null ? 0 : windowStart + window.position();
+                    if (window != null) window.force();
+                    window = ch.map(FileChannel.MapMode.READ_WRITE, at, MAP_WINDOW);
+                    windowStart = at;
+                }
+                return window;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void write(GameSession s, GameSession.State st) {
+            MappedByteBuffer out = reserve(MAX_ENTRY);
+            Position b = st.board();
+            out.putLong(s.id().getMostSignificantBits()).putLong(s.id().getLeastSignificantBits())
+                    .putLong(s.createdAt().toEpochMilli()).putLong(st.version());
+            int flags = (s.mode() == Mode.PVE ? 1 : 0)
+                    | markCode(s.aiPlays()) << 1
+                    | s.difficulty().ordinal() << 3
+                    | (b.toMove() == Mark.O ? 1 << 5 : 0)
+                    | (b instanceof Board ? 1 << 6 : 0);
+            out.put((byte) b.rows()).put((byte) b.cols()).put((byte) b.winLength()).put((byte) flags);
+            if (b instanceof Board classic) {
+                out.putInt(classic.packed());
+                out.putLong(((PackedMoveHistory) st.history()).bits());
+            } else {
+                MnkBoard m = (MnkBoard) b;
+                for (long w : m.stones(Mark.X)) out.putLong(w);
+                for (long w : m.stones(Mark.O)) out.putLong(w);
+                MoveHistory h = st.history();
+                out.putShort((short) h.ply()).putShort((short) h.length());
+                for (int move : h.moves()) out.putShort((short) move);
+            }
+            games++;
+        }
+
+        long end() throws IOException {
+            long size = windowStart + window.position();
+            window.force();
+            return size;
+        }
+    }
+
+    // ---- recovery ----
+
+    // Load the snapshot and replay the log after it; returns {snapshot games, log records}
+    private long[] recover() throws IOException {
+        long firstSegment = 0;
+        long games = 0;
+        Path snap = dir.resolve("snapshot.bin");
+        if (Files.exists(snap)) {
+            try (FileChannel ch = FileChannel.open(snap, StandardOpenOption.READ)) {
+                long size = ch.size();
+                long at = 0;
+                MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, MAP_WINDOW));
+                int format = in.getInt() == SNAPSHOT_MAGIC ? in.getInt() : -1;
+                if (format < 1 || format > SNAPSHOT_FORMAT) throw new IOException("Not a session snapshot: " + snap);
+                firstSegment = in.getLong();
+                long count = in.getLong();
+                for (; games < count; games++) {
+                    if (in.remaining() < MAX_ENTRY && at + in.position() < size) {
+                        at += in.position();
+                        in = ch.map(FileChannel.MapMode.READ_ONLY, at, Math.min(size - at, MAP_WINDOW));
+                    }
+                    store.restore(readEntry(in, format));
+                }
+            }
+        }
+        long records = 0;
+        var replay = new LogReplay();
+        for (long seq : WriteAheadLog.segments(dir)) {
+            if (seq >= firstSegment) records += WriteAheadLog.replay(WriteAheadLog.path(dir, seq), replay);
+        }
+        store.restored();
+        return new long[]{games, records};
+    }
+
+    private static GameSession readEntry(MappedByteBuffer in, int format) {
+        UUID id = new UUID(in.getLong(), in.getLong());
+        Instant created = Instant.ofEpochMilli(in.getLong());
+        long version = in.getLong();
+        int rows = in.get() & 0xFF;
+        int cols = in.get() & 0xFF;
+        int k = in.get() & 0xFF;
+        int flags = in.get() & 0xFF;
+        Mark toMove = (flags & 1 << 5) != 0 ? Mark.O : Mark.X;
+        Position board;
+        MoveHistory history;
+        if ((flags & 1 << 6) != 0) {
+            board = Board.fromPacked(in.getInt());
+            history = format >= 2 ? PackedMoveHistory.fromBits(in.getLong()) : MoveHistory.empty(board);
+        } else {
+            long[] x = new long[(rows * cols + 63) >>> 6];
+            long[] o = new long[x.length];
+            for (int i = 0; i < x.length; i++) x[i] = in.getLong();
+            for (int i = 0; i < o.length; i++) o[i] = in.getLong();
+            board = MnkBoard.of(rows, cols, k, x, o, toMove);
+            history = MoveHistory.empty(board);
+            if (format >= 2) {
+                int ply = in.getShort() & 0xFFFF;
+                int[] moves = new int[in.getShort() & 0xFFFF];
+                for (int i = 0; i < moves.length; i++) moves[i] = in.getShort() & 0xFFFF;
+                history = MoveHistory.of(board, moves, ply);
+            }
+        }
+        return new GameSession(id, new GameSession.State(board, version, history),
+                (flags & 1) != 0 ? Mode.PVE : Mode.PVP,
+                markOf(flags >>> 1), DIFFICULTIES[(flags >>> 3) & 3], created);
+    }
+
+    /**
+     * Applies log records to the store. A change logged out of order (two racing requests
+     * append in the order they finish) waits here until the version before it has been applied.
+     */
+    private final class LogReplay implements WriteAheadLog.Replay {
+        private final Map<UUID, Map<Long, Long>> early = new HashMap<>();
+
+        @Override
+        public void record(long msb, long lsb, long header, int payload) {
+            UUID id = new UUID(msb, lsb);
+            switch ((int) (header >>> 56)) {
+                case CREATE -> {
+                    if (store.get(id) != null) return; // already in the snapshot
+                    int size = (int) (header >>> 48) & 0xFF;
+                    int k = (int) (header >>> 40) & 0xFF;
+                    int flags = (int) (header >>> 32) & 0xFF;
+                    Mark starts = (flags & 1 << 5) != 0 ? Mark.O : Mark.X;
+                    Position board = (flags & 1 << 6) != 0 ? Board.initial(starts)
+                            : MnkBoard.initial(size, size, k, starts);
+                    store.restore(new GameSession(id, new GameSession.State(board, 0),
+                            (flags & 1) != 0 ? Mode.PVE : Mode.PVP, markOf(flags >>> 1),
+                            DIFFICULTIES[(flags >>> 3) & 3],
+                            Instant.ofEpochSecond(header & 0xFFFF_FFFFL, payload * 1_000_000L)));
+                }
+                case MOVE, UNDO, REDO -> {
+                    change(id, header & 0xFFFF_FFFFL, (header >>> 48) << 32 | (payload & 0xFFFF_FFFFL));
+                    var waiting = early.get(id);
+                    while (waiting != null && !waiting.isEmpty()) {
+                        GameSession s = store.get(id);
+                        if (s == null) break;
+                        var next = waiting.remove((s.version() + 1) & 0xFFFF_FFFFL);
+                        if (next == null) break;
+                        change(id, (s.version() + 1) & 0xFFFF_FFFFL, next);
+                    }
+                    if (waiting != null && waiting.isEmpty()) early.remove(id);
+                }
+                case REMOVE -> {
+                    store.remove(id);
+                    early.remove(id);
+                }
+                default -> throw new IllegalStateException("Unknown log record type " + (header >>> 56));
+            }
+        }
+
+        // change as from DurableSessionStore.change()
+        private void change(UUID id, long version, long change) {
+            GameSession s = store.get(id);
+            if (s == null) return; // removed later in the log, or expired
+            long expected = (s.version() + 1) & 0xFFFF_FFFFL;
+            if (version != expected) {
+                // already in the snapshot, or a gap an out-of-order record will fill
+                if (Long.compareUnsigned(version, expected) > 0) {
+                    early.computeIfAbsent(id, k -> new HashMap<>()).put(version, change);
+                }
+                return;
+            }
+            int type = (int) (change >>> 40);
+            int count = (int) (change >>> 32) & 0xFF;
+            Position board = s.board();
+            MoveHistory history = s.state().history();
+            for (int i = 0; i < count; i++) {
+                if (type == UNDO) {
+                    board = board.takeBack(history.move(history.ply() - 1));
+                    history = history.undo();
+                } else {
+                    int cell = type == REDO ? history.move(history.ply())
+                            : i == 0 ? (int) change >>> 16 : (int) change & 0xFFFF;
+                    board = board.apply(cell);
+                    history = history.play(cell);
+                }
+            }
+            store.update(s, s.state(), board, history);
+        }
+    }
+
+    private static int markCode(Mark m) {
+        return m == null ? 0 : m == Mark.X ? 1 : 2;
+    }
+
+    private static Mark markOf(int code) {
+        return switch (code & 3) {
+            case 1 -> Mark.X;
+            case 2 -> Mark.O;
+            default -> null;
+        };
+    }
+}
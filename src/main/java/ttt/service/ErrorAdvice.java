@@ -15,4 +15,18 @@ public class ErrorAdvice {
     public ResponseEntity<Map<String,String>> badReq(BadRequestException ex) {
         return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
     }
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<Map<String,String>> conflict(ConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<Map<String,String>> overloaded(OverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.retryAfterSeconds()))
+                .body(Map.of("error", ex.getMessage()));
+    }
+    @ExceptionHandler(NotSavedException.class)
+    public ResponseEntity<Map<String,String>> notSaved(NotSavedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", ex.getMessage()));
+    }
 }
@@ -0,0 +1,263 @@
+package ttt.service;
+
+import ttt.api.dto.GameDelta;
+import ttt.api.dto.GameStateDTO;
+import ttt.core.GameResult;
+import ttt.core.Mark;
+import ttt.core.Position;
+import ttt.domain.GameSession;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes game changes to watching clients, so they don't have to poll GET /api/games/{id}.
+ *
+ * A subscriber first gets the whole state, then one {@link GameDelta} per change. Each
+ * subscriber has its own bounded queue drained by a virtual thread, so the request that
+ * made the move only enqueues and never waits on a client's network, and a client that
+ * is slow to read parks only its own sender. A subscriber whose queue fills up, or whose
+ * write hasn't finished within the write timeout (a client that stopped reading), is
+ * closed rather than allowed to hold memory or miss a delta silently; clients reconnect
+ * and start again from a fresh state.
+ *
+ * Two moves on one game can notify in the other order, so a delta may be queued before
+ * the one it follows. A delta is only sent on top of the version just before it; on a
+ * gap the subscriber gets a fresh "state" instead, which already includes the late one.
+ */
+public final class GameEvents implements GameListener, AutoCloseable {
+
+    /** Where one subscriber's events go (an SSE stream in the web layer). */
+    public interface Sink {
+        void send(String event, Object data) throws IOException;
+
+        void close();
+    }
+
+    private final GameService games;
+    private final int bufferSize;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService watchdog;
+    private final long writeTimeoutNanos;
+    private final ConcurrentHashMap<UUID, List<Subscription>> byGame = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param bufferSize deltas a subscriber may fall behind by before it is closed
+     * @param writeTimeout a subscriber whose write takes longer than this is closed
+     */
+    public GameEvents(GameService games, int bufferSize, Duration writeTimeout) {
+        if (bufferSize < 1) throw new IllegalArgumentException("bufferSize >= 1 required");
+        if (writeTimeout.isNegative() || writeTimeout.isZero()) {
+            throw new IllegalArgumentException("writeTimeout > 0 required");
+        }
+        this.games = games;
+        this.bufferSize = bufferSize;
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        // a thread per drain, but each subscription has at most one drain running
+        this.senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("game-events-", 0).factory());
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "game-events-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        long every = Math.max(1, writeTimeout.toMillis() / 2);
+        watchdog.scheduleWithFixedDelay(this::closeStuck, every, every, TimeUnit.MILLISECONDS);
+        games.addListener(this);
+    }
+
+    /**
+     * Send the game's current state to sink as "state", then each later change as "delta".
+     * Throws NotFoundException (nothing registered) if there is no such game.
+     */
+    public Subscription subscribe(String gameId, Sink sink) throws IOException {
+        UUID id = UUID.fromString(games.getState(gameId).gameId()); // 404 before registering anything
+        var sub = new Subscription(id, sink);
+        byGame.compute(id, (k, subs) -> {
+            if (subs == null) subs = new CopyOnWriteArrayList<>();
+            subs.add(sub);
+            return subs;
+        });
+        subscribers.incrementAndGet();
+        try {
+            // Read after registering: earlier changes are in this state, later ones are queued
+            // (and any queued change it already includes is skipped by version).
+            GameStateDTO now = games.getState(gameId);
+            sink.send("state", now);
+            sub.start(now.version());
+            return sub;
+        } catch (IOException | RuntimeException e) {
+            sub.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void changed(GameSession session, GameSession.State before, GameSession.State after) {
+        List<Subscription> subs = byGame.get(session.id());
+        if (subs == null) return; // nobody watching: the usual case, no delta built
+        GameDelta d = delta(before.board(), after);
+        for (Subscription sub : subs) sub.offer(d);
+    }
+
+    static GameDelta delta(Position before, GameSession.State after) {
+        Position b = after.board();
+        int n = b.cellCount();
+        int changed = 0;
+        int[] cells = new int[n];
+        StringBuilder marks = new StringBuilder(2);
+        for (int i = 0; i < n; i++) {
+            Mark m = b.cell(i);
+            if (m != before.cell(i)) {
+                cells[changed++] = i;
+                marks.append(m == Mark.EMPTY ? '.' : m.name().charAt(0));
+            }
+        }
+        GameResult r = after.result();
+        String winner = switch (r) {
+            case X_WIN -> "X";
+            case O_WIN -> "O";
+            default -> "";
+        };
+        return new GameDelta(after.version(), Arrays.copyOf(cells, changed), marks.toString(),
+                b.toMove().name(), r.name(), winner, after.history().ply(),
+                after.history().length() - after.history().ply());
+    }
+
+    // Close subscribers stuck in one write for longer than the timeout
+    private void closeStuck() {
+        long now = System.nanoTime();
+        for (List<Subscription> subs : byGame.values()) {
+            for (Subscription sub : subs) {
+                long since = sub.sendingSince;
+                if (since != Subscription.IDLE && now - since > writeTimeoutNanos) {
+                    dropped.increment();
+                    sub.close();
+                }
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(subscribers.get(), sent.sum(), dropped.sum());
+    }
+
+    @Override
+    public void close() {
+        games.removeListener(this);
+        watchdog.shutdownNow();
+        senders.shutdownNow();
+        byGame.values().forEach(subs -> subs.forEach(Subscription::close));
+    }
+
+    /** One client watching one game. */
+    public final class Subscription {
+        private static final long IDLE = Long.MIN_VALUE;
+
+        private final UUID gameId;
+        private final Sink sink;
+        private final ArrayBlockingQueue<GameDelta> queue = new ArrayBlockingQueue<>(bufferSize);
+        // true while a drain is queued or running; held until start() so nothing overtakes the state
+        private final AtomicBoolean draining = new AtomicBoolean(true);
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private long sentVersion; // only touched by the one running drain (ordered by draining)
+        private volatile long sendingSince = IDLE; // System.nanoTime() a write started, for the watchdog
+
+        private Subscription(UUID gameId, Sink sink) {
+            this.gameId = gameId;
+            this.sink = sink;
+        }
+
+        private void start(long stateVersion) {
+            sentVersion = stateVersion;
+            draining.set(false);
+            schedule();
+        }
+
+        private void offer(GameDelta d) {
+            if (closed.get()) return;
+            if (!queue.offer(d)) {
+                dropped.increment(); // slow consumer: the client resyncs when it reconnects
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (queue.isEmpty() || closed.get() || !draining.compareAndSet(false, true)) return;
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) { // shutting down
+                close();
+            }
+        }
+
+        private void drain() {
+            try {
+                for (GameDelta d; (d = queue.poll()) != null && !closed.get(); ) {
+                    if (d.version() <= sentVersion) continue; // already in a state sent earlier
+                    if (d.version() == sentVersion + 1) {
+                        send("delta", d);
+                        sentVersion = d.version();
+                        sent.increment();
+                    } else {
+                        // an earlier change hasn't been queued yet: resync, it is in this state
+                        GameStateDTO now = games.getState(gameId.toString());
+                        send("state", now);
+                        sentVersion = now.version();
+                    }
+                }
+            } catch (IOException | RuntimeException e) { // client or game went away
+                close();
+            } finally {
+                draining.set(false);
+            }
+            schedule(); // a delta may have arrived after the last poll
+        }
+
+        private void send(String event, Object data) throws IOException {
+            sendingSince = System.nanoTime();
+            try {
+                sink.send(event, data);
+            } finally {
+                sendingSince = IDLE;
+            }
+        }
+
+        public void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            byGame.computeIfPresent(gameId, (k, subs) -> {
+                subs.remove(this);
+                return subs.isEmpty() ? null : subs;
+            });
+            subscribers.decrementAndGet();
+            queue.clear();
+            sink.close();
+        }
+    }
+
+    /**
+     * @param subscribers open subscriptions
+     * @param sent deltas delivered since start
+     * @param dropped subscriptions closed for falling bufferSize deltas behind or for a write
+     *                that outlasted the write timeout
+     */
+    public record Stats(int subscribers, long sent, long dropped) {}
+}
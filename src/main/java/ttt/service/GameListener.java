@@ -0,0 +1,16 @@
+package ttt.service;
+
+import ttt.domain.GameSession;
+
+/**
+ * Told about every game change {@link GameService} makes, after it is in the store.
+ * Called on the request thread that made the change, so implementations must be quick
+ * and should hand slow work (network, disk) to their own threads.
+ */
+public interface GameListener {
+
+    default void created(GameSession session) {}
+
+    /** before -> after is one version step; a /turn (human + AI move) is a single change. */
+    void changed(GameSession session, GameSession.State before, GameSession.State after);
+}
@@ -0,0 +1,55 @@
+package ttt.service;
+
+import ttt.core.GameResult;
+import ttt.core.MoveHistory;
+import ttt.domain.GameSession;
+import ttt.metrics.Metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Games created, changes applied and games finished (by result), counted off GameService's listener hook.
+ *
+ * A finish is counted when a game first reaches that end: redoing back into a result already
+ * counted isn't counted again, but playing a different ending after an undo is a new finish.
+ */
+public final class GameMetrics implements GameListener {
+    private final LongAdder created = new LongAdder();
+    private final LongAdder changes = new LongAdder();
+    private final Map<GameResult, LongAdder> finished = new EnumMap<>(GameResult.class);
+
+    public GameMetrics(GameService games) {
+        for (GameResult r : GameResult.values()) finished.put(r, new LongAdder());
+        games.addListener(this);
+    }
+
+    @Override
+    public void created(GameSession session) {
+        if (Metrics.enabled()) created.increment();
+    }
+
+    @Override
+    public void changed(GameSession session, GameSession.State before, GameSession.State after) {
+        if (!Metrics.enabled()) return;
+        changes.increment();
+        if (after.result() != GameResult.IN_PROGRESS && before.result() == GameResult.IN_PROGRESS
+                && !replayed(before.history(), after.history())) {
+            finished.get(after.result()).increment();
+        }
+    }
+
+    // The change only brought back moves that were undone (redo): the end was counted when first played
+    private static boolean replayed(MoveHistory before, MoveHistory after) {
+        if (after.ply() <= before.ply() || after.ply() > before.length()) return false;
+        for (int i = before.ply(); i < after.ply(); i++) {
+            if (before.move(i) != after.move(i)) return false;
+        }
+        return true;
+    }
+
+    public long created() { return created.sum(); }
+    public long changes() { return changes.sum(); }
+    public long finished(GameResult result) { return finished.get(result).sum(); }
+}
@@ -1,23 +1,65 @@
 package ttt.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ttt.api.dto.GameStateDTO;
+import ttt.api.dto.TurnResponse;
 import ttt.core.*;
-import ttt.core.ai.Minimax;
+import ttt.domain.Difficulty;
 import ttt.domain.GameSession;
 import ttt.domain.Mode;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @Service
 public class GameService {
-    private final Map<UUID, GameSession> store = new ConcurrentHashMap<>();
+    private final SessionStore store;
+    private final AiWorkers aiWorkers;
+    private final long defaultBudgetMs;
+    private final long maxBudgetMs;
+    private final BotRegistry bots;
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+    // Last view built per game, direct-mapped by id: a fixed size whatever the store holds,
+    // and two games on one slot only cost each other a rebuild.
+    private final AtomicReferenceArray<CachedView> views = new AtomicReferenceArray<>(VIEW_SLOTS);
 
-    public GameStateDTO createGame(String modeStr, String aiPlaysStr) {
+    private static final int VIEW_SLOTS = 4096; // power of two
+
+    private record CachedView(UUID id, View view) {}
+
+    public GameService(@Value("${ttt.ai.budget-ms:100}") long defaultBudgetMs,
+                       @Value("${ttt.ai.max-budget-ms:2000}") long maxBudgetMs,
+                       BotRegistry bots,
+                       SessionStore store,
+                       AiWorkers aiWorkers) {
+        this.store = store;
+        this.aiWorkers = aiWorkers;
+        this.defaultBudgetMs = defaultBudgetMs;
+        this.maxBudgetMs = maxBudgetMs;
+        this.bots = bots;
+    }
+
+    public GameStateDTO createGame(String modeStr, String aiPlaysStr, Integer sizeOpt, Integer kOpt) {
+        return createGame(modeStr, aiPlaysStr, sizeOpt, kOpt, null);
+    }
+
+    /** @param difficultyStr EASY, MEDIUM or HARD (null = HARD); only matters in PVE */
+    public GameStateDTO createGame(String modeStr, String aiPlaysStr, Integer sizeOpt, Integer kOpt,
+                                   String difficultyStr) {
         Mode mode = Mode.valueOf(modeStr);
+        Difficulty difficulty = difficultyStr == null ? Difficulty.HARD : Difficulty.valueOf(difficultyStr);
         Mark starts = Mark.X; // X starts standard
-        Board board = Board.initial(starts);
+        int size = sizeOpt == null ? 3 : sizeOpt;
+        int k = kOpt == null ? Math.min(size, 5) : kOpt;
+        if (size < MnkBoard.MIN_SIZE || size > MnkBoard.MAX_SIZE) {
+            throw new BadRequestException("size must be b/w " + MnkBoard.MIN_SIZE + "-" + MnkBoard.MAX_SIZE);
+        }
+        if (k < 3 || k > size) throw new BadRequestException("k must be b/w 3 and size");
+        // Classic 3x3 keeps the bitboard (and the solved table); everything else is m,n,k
+        Position board = (size == 3 && k == 3) ? Board.initial(starts) : MnkBoard.initial(size, size, k, starts);
 
         Mark aiPlays = null;
         if (mode == Mode.PVE) {
@@ -25,86 +67,336 @@ public class GameService {
             aiPlays = Mark.valueOf(aiPlaysStr);
         }
 
-        UUID id = UUID.randomUUID();
-        var session = new GameSession(id, board, mode, aiPlays);
-        store.put(id, session);
-        return toDTO(session);
+        var session = store.create(board, mode, aiPlays, difficulty);
+        for (GameListener l : listeners) l.created(session);
+        return toDTO(session, session.state());
+    }
+
+    /** Subscribe to every create and move from now on (e.g. push to clients, logging). */
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GameListener listener) {
+        listeners.remove(listener);
     }
 
     public GameStateDTO getState(String id) {
+        return view(id).state();
+    }
+
+    /** Current state with its ETag, for conditional GETs. */
+    public View view(String id) {
         var s = get(id);
-        return toDTO(s);
+        return view(s, s.state());
     }
 
-    public GameStateDTO playHumanMove(String id, int index) {
+    /** {@link #view(String)}, with the move list in the state when moves is set (built fresh, not cached). */
+    public View view(String id, boolean moves) {
+        if (!moves) return view(id);
         var s = get(id);
-        if (Rules.isTerminal(s.board())) throw new BadRequestException("Game is already terminal.");
-        if (!s.board().isLegal(index)) throw new BadRequestException("Illegal move: " + index);
+        var st = s.state();
+        return new View(st.version(), render(s, st, true), "W/\"" + st.version() + "-m\"");
+    }
+
+    /**
+     * A state as rendered for clients, with a weak ETag (the version, plus "-m" when it
+     * carries the move list). Cached by game id and version until the next change, so
+     * repeated reads of an unchanged game build nothing.
+     */
+    public record View(long version, GameStateDTO state, String etag) {}
+
+    /**
+     * @param expectedVersion version the client last saw; null = apply to whatever the game is now.
+     *                        If the game has moved on since, nothing is applied and this throws 409.
+     */
+    public GameStateDTO playHumanMove(String id, int index, Long expectedVersion) {
+        while (true) {
+            var s = get(id);
+            var st = s.state();
+            if (expectedVersion != null && st.version() != expectedVersion) {
+                throw new ConflictException("Game is at version " + st.version() + ", not " + expectedVersion);
+            }
+            Position board = st.board();
+            if (board.isTerminal()) throw new BadRequestException("Game is already terminal.");
+            if (!board.isLegal(index)) throw new BadRequestException("Illegal move: " + index);
 
-        s.setBoard(s.board().apply(index));
-        return toDTO(s);
+            Position next = board.apply(index);
+            MoveHistory history = st.history().play(index);
+            if (update(s, st, next, history)) return toDTO(s, changed(s, st, next, history));
+            // lost a race with another move: re-read and re-validate against the new board
+        }
     }
 
-    public GameStateDTO playAiMove(String id) {
+    /** @param budgetMs think-time limit for this request (null = server default, capped at ttt.ai.max-budget-ms) */
+    public GameStateDTO playAiMove(String id, Long budgetMs) {
         var s = get(id);
+        var st = s.state();
+        Position board = st.board();
         if (s.mode() != Mode.PVE) throw new BadRequestException("AI move only allowed in PVE mode.");
-        if (Rules.isTerminal(s.board())) throw new BadRequestException("Game is already terminal.");
+        if (board.isTerminal()) throw new BadRequestException("Game is already terminal.");
 
         Mark aiSide = s.aiPlays();
         if (aiSide == null) throw new BadRequestException("AI side not set.");
 
         // Only move if it's AI's turn
-        if (s.board().toMove() != aiSide) throw new BadRequestException("It's not AI's turn.");
+        if (board.toMove() != aiSide) throw new BadRequestException("It's not AI's turn.");
+
+        int mv = bots.bot(s.difficulty(), board).chooseMove(board, budget(budgetMs));
+        Position next = board.apply(mv);
+        MoveHistory history = st.history().play(mv);
+        // The move was chosen for st: if anything changed while thinking (e.g. a second
+        // ai-move request won), don't apply it to a different position.
+        if (!update(s, st, next, history)) {
+            get(id); // 404 if the game was evicted meanwhile
+            throw new ConflictException("Game changed while the AI was thinking.");
+        }
+        return toDTO(s, changed(s, st, next, history));
+    }
+
+    /**
+     * Human move and, in PVE, the AI's reply in one request and one state change: either
+     * both land or neither does. Saves the client the second round trip of /play + /ai-move.
+     *
+     * @param expectedVersion as for {@link #playHumanMove}
+     * @param budgetMs AI think time, as for {@link #playAiMove}
+     */
+    public TurnResponse playTurn(String id, int index, Long expectedVersion, Long budgetMs) {
+        while (true) {
+            var s = get(id);
+            var st = s.state();
+            if (expectedVersion != null && st.version() != expectedVersion) {
+                throw new ConflictException("Game is at version " + st.version() + ", not " + expectedVersion);
+            }
+            Position board = st.board();
+            if (board.isTerminal()) throw new BadRequestException("Game is already terminal.");
+            if (s.mode() == Mode.PVE && board.toMove() == s.aiPlays()) {
+                throw new BadRequestException("It's AI's turn; use /ai-move.");
+            }
+            if (!board.isLegal(index)) throw new BadRequestException("Illegal move: " + index);
+
+            Position next = board.apply(index);
+            MoveHistory history = st.history().play(index);
+            Integer aiMove = null;
+            if (s.mode() == Mode.PVE && !next.isTerminal()) {
+                aiMove = bots.bot(s.difficulty(), next).chooseMove(next, budget(budgetMs));
+                next = next.apply(aiMove);
+                history = history.play(aiMove);
+            }
+            if (update(s, st, next, history)) {
+                return new TurnResponse(index, aiMove, toDTO(s, changed(s, st, next, history)));
+            }
+            // lost a race: with a version the client's view is stale; without, decide again
+            if (expectedVersion != null) throw new ConflictException("Game changed during the turn.");
+        }
+    }
+
+    /** {@link #playTurn} with the AI's part on the AI pool, like {@link #playAiMoveAsync}. */
+    public CompletableFuture<TurnResponse> playTurnAsync(String id, int index, Long expectedVersion, Long budgetMs) {
+        var s = get(id);
+        if (s.board() instanceof Board || s.mode() != Mode.PVE) {
+            return CompletableFuture.completedFuture(playTurn(id, index, expectedVersion, budgetMs));
+        }
+        return aiWorkers.submit(() -> playTurn(id, index, expectedVersion, budgetMs));
+    }
+
+    /**
+     * {@link #playAiMove} off the request thread: searches run on the bounded AI pool and
+     * fail fast with OverloadedException (503) when it is full. 3x3 answers are a table
+     * read or a search of a few plies, so they skip the queue and are never shed.
+     */
+    public CompletableFuture<GameStateDTO> playAiMoveAsync(String id, Long budgetMs) {
+        if (get(id).board() instanceof Board) return CompletableFuture.completedFuture(playAiMove(id, budgetMs));
+        return aiWorkers.submit(() -> playAiMove(id, budgetMs));
+    }
+
+    /** {@link #hint} on the AI pool, like {@link #playAiMoveAsync}. */
+    public CompletableFuture<Integer> hintAsync(String id, Long budgetMs) {
+        if (get(id).board() instanceof Board) return CompletableFuture.completedFuture(hint(id, budgetMs));
+        return aiWorkers.submit(() -> hint(id, budgetMs));
+    }
+
+    /**
+     * Take back the last move, and in PVE the AI's reply with it, so the human is to move
+     * again. One change (version + 1) however many plies; {@link #redo} brings them back
+     * until a different move is played.
+     *
+     * @param expectedVersion as for {@link #playHumanMove}
+     */
+    public GameStateDTO undo(String id, Long expectedVersion) {
+        while (true) {
+            var s = get(id);
+            var st = s.state();
+            if (expectedVersion != null && st.version() != expectedVersion) {
+                throw new ConflictException("Game is at version " + st.version() + ", not " + expectedVersion);
+            }
+            Position board = st.board();
+            MoveHistory history = st.history();
+            do {
+                if (history.ply() == 0) throw new BadRequestException("Nothing to undo.");
+                board = board.takeBack(history.move(history.ply() - 1));
+                history = history.undo();
+            } while (s.mode() == Mode.PVE && board.toMove() == s.aiPlays());
+            if (update(s, st, board, history)) return toDTO(s, changed(s, st, board, history));
+        }
+    }
 
-        Minimax ai = Minimax.hard(aiSide); // or medium/easy depending on query param later
-        int mv = ai.chooseMove(s.board());
-        s.setBoard(s.board().apply(mv));
-        return toDTO(s);
+    /**
+     * Play again what {@link #undo} took back: one move, or in PVE up to the human's next
+     * turn. One change, like undo.
+     *
+     * @param expectedVersion as for {@link #playHumanMove}
+     */
+    public GameStateDTO redo(String id, Long expectedVersion) {
+        while (true) {
+            var s = get(id);
+            var st = s.state();
+            if (expectedVersion != null && st.version() != expectedVersion) {
+                throw new ConflictException("Game is at version " + st.version() + ", not " + expectedVersion);
+            }
+            Position board = st.board();
+            MoveHistory history = st.history();
+            if (history.ply() == history.length()) throw new BadRequestException("Nothing to redo.");
+            do {
+                board = board.apply(history.move(history.ply()));
+                history = history.redo();
+            } while (s.mode() == Mode.PVE && board.toMove() == s.aiPlays() && history.ply() < history.length());
+            if (update(s, st, board, history)) return toDTO(s, changed(s, st, board, history));
+        }
+    }
+
+    /**
+     * The game as it stood after ply moves (up to the last undone one), for replays and
+     * post-game review. The board is rebuilt from the current one and the move history;
+     * nothing is stored or changed, and version stays the game's current one.
+     */
+    public GameStateDTO replay(String id, int ply) {
+        var s = get(id);
+        var st = s.state();
+        MoveHistory history = st.history();
+        if (ply < 0 || ply > history.length()) {
+            throw new BadRequestException("ply must be b/w 0 and " + history.length());
+        }
+        var at = new GameSession.State(history.board(st.board(), ply), st.version(), history.at(ply));
+        return render(s, at, true);
     }
 
-    public int hint(String id) {
+    public int hint(String id, Long budgetMs) {
         var s = get(id);
-        if (Rules.isTerminal(s.board())) throw new BadRequestException("Game is terminal; no hint.");
-        // Hint from the current player's perspective:
-        Mark side = s.board().toMove();
-        Minimax ai = Minimax.hard(side);
-        return ai.chooseMove(s.board());
+        if (s.board().isTerminal()) throw new BadRequestException("Game is terminal; no hint.");
+        // Best move for the current player, whatever level the AI in this game plays at
+        return bots.bot(Difficulty.HARD, s.board()).chooseMove(s.board(), budget(budgetMs));
+    }
+
+    // store.update, unless the game is out of versions: one past the last would wrap on disk
+    private boolean update(GameSession s, GameSession.State st, Position board, MoveHistory history) {
+        if (st.version() >= SessionStore.MAX_VERSION) {
+            throw new ConflictException("Game is at its last version; start a new one");
+        }
+        return store.update(s, st, board, history);
+    }
+
+    // The state store.update just moved s to, passed on to the listeners
+    private GameSession.State changed(GameSession s, GameSession.State before, Position board,
+                                      MoveHistory history) {
+        var after = new GameSession.State(board, before.version() + 1, history);
+        for (GameListener l : listeners) l.changed(s, before, after);
+        return after;
+    }
+
+    private long budget(Long budgetMs) {
+        if (budgetMs == null) return defaultBudgetMs;
+        if (budgetMs < 1) throw new BadRequestException("budgetMs must be >= 1");
+        return Math.min(budgetMs, maxBudgetMs);
     }
 
     private GameSession get(String id) {
+        if (id == null) throw new NotFoundException("Missing game id"); // batch items can omit it
         try {
             UUID uuid = UUID.fromString(id);
             var s = store.get(uuid);
-            if (s == null) throw new NotFoundException("Game not found: " + id);
+            if (s == null) throw new NotFoundException("Game not found: " + id); // or expired
             return s;
         } catch (IllegalArgumentException e) {
             throw new NotFoundException("Invalid UUID: " + id);
         }
     }
 
-    private static GameStateDTO toDTO(GameSession s) {
-        Board b = s.board();
-        GameResult r = Rules.result(b);
+    private GameStateDTO toDTO(GameSession s, GameSession.State st) {
+        return view(s, st).state();
+    }
+
+    private View view(GameSession s, GameSession.State st) {
+        int slot = (s.id().hashCode() * 0x9E3779B9 >>> 20) & (VIEW_SLOTS - 1);
+        CachedView c = views.get(slot);
+        if (c != null && c.view().version() == st.version() && c.id().equals(s.id())) return c.view();
+        var v = new View(st.version(), render(s, st), etag(st));
+        views.set(slot, new CachedView(s.id(), v)); // a racing reader may put back an older one: that only costs a rebuild
+        return v;
+    }
+
+    private static String etag(GameSession.State st) {
+        return "W/\"" + st.version() + "\"";
+    }
+
+    // package-private for the JMH benchmarks (src/jmh), like encodeBoard
+    static GameStateDTO render(GameSession s, GameSession.State st) {
+        return render(s, st, false);
+    }
+
+    private static GameStateDTO render(GameSession s, GameSession.State st, boolean moves) {
+        Position b = st.board();
+        MoveHistory h = st.history();
+        GameResult r = st.result();
         String winner = switch (r) {
             case X_WIN -> "X";
             case O_WIN -> "O";
             default -> "";
         };
         return new GameStateDTO(
-                s.id().toString(),
+                s.idString(),
                 encodeBoard(b),
                 b.toMove().name(),
                 r.name(),
                 winner,
                 s.mode().name(),
-                s.aiPlays() == null ? "" : s.aiPlays().name()
+                s.aiPlays() == null ? "" : s.aiPlays().name(),
+                s.mode() == Mode.PVE ? s.difficulty().name() : "",
+                b.rows(),
+                b.winLength(),
+                st.version(),
+                h.ply(),
+                h.length() - h.ply(),
+                moves ? h.moves() : null
         );
     }
 
-    /** Encode board to string like "XO..O.X.." */
-    private static String encodeBoard(Board b) {
-        StringBuilder sb = new StringBuilder(9);
-        for (int i = 0; i < 9; i++) {
+    // Strings of 3x3 boards by the board read as a base-3 number (empty 0, X 1, O 2 per cell),
+    // filled in as boards are first seen. Racy but safe: both writers store equal immutable strings.
+    private static final String[] CLASSIC_BOARDS = new String[19_683]; // 3^9
+    private static final int[] BASE3 = new int[1 << Board.CELLS]; // a cell mask with every set cell a 1
+
+    static {
+        for (int mask = 0; mask < BASE3.length; mask++) {
+            for (int i = Board.CELLS - 1; i >= 0; i--) BASE3[mask] = BASE3[mask] * 3 + ((mask >>> i) & 1);
+        }
+    }
+
+    /** Encode board to string like "XO..O.X.." (row-major, one char per cell) */
+    static String encodeBoard(Position b) {
+        if (b instanceof Board classic) {
+            int key = BASE3[classic.xMask()] + 2 * BASE3[classic.oMask()];
+            String str = CLASSIC_BOARDS[key];
+            if (str == null) CLASSIC_BOARDS[key] = str = buildBoardString(b);
+            return str;
+        }
+        return buildBoardString(b);
+    }
+
+    private static String buildBoardString(Position b) {
+        int n = b.cellCount();
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
             sb.append(switch (b.cell(i)) {
                 case X -> 'X';
                 case O -> 'O';
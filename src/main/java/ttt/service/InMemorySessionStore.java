@@ -0,0 +1,209 @@
+package ttt.service;
+
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.MoveHistory;
+import ttt.core.Position;
+import ttt.domain.Difficulty;
+import ttt.domain.GameSession;
+import ttt.domain.Mode;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Heap session store with an idle TTL and an approximate LRU size cap.
+ *
+ * Reads and writes go straight to a ConcurrentHashMap; a get() only stamps the
+ * session's last-access time. A background sweep walks the map (no global lock,
+ * requests keep running) and drops idle sessions, then, if still over the cap,
+ * about the least recently used ones: ages are bucketed into a histogram to find the
+ * cut-off, as in {@link PackedSessionStore}, so a sweep is two passes and no sort.
+ * A put() that pushes the store over the cap kicks off a sweep early instead of
+ * waiting for the next tick (one at a time: puts while one is pending don't queue
+ * more), and the sweep trims 1% under the cap so a full store doesn't sweep per put.
+ */
+public final class InMemorySessionStore implements SessionStore {
+
+    // GameSession + UUID + Instant + map node, roughly, on a 64-bit JVM with compressed oops
+    private static final long SESSION_OVERHEAD_BYTES = 160;
+
+    private final ConcurrentHashMap<UUID, GameSession> sessions = new ConcurrentHashMap<>();
+    private final long idleTtlMillis;
+    private final int maxSessions;
+    private final Clock clock;
+    private final ScheduledExecutorService sweeper; // null: sweep inline when over the cap
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicBoolean sweepQueued = new AtomicBoolean(); // an early sweep is waiting for the sweeper
+
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * @param idleTtl drop a session this long after its last use
+     * @param maxSessions soft cap; the sweep trims back to it, least recently used first
+     * @param sweepInterval how often to look for idle sessions (zero = no background thread)
+     */
+    public InMemorySessionStore(Duration idleTtl, int maxSessions, Duration sweepInterval, Clock clock) {
+        if (idleTtl.isNegative() || idleTtl.isZero()) throw new IllegalArgumentException("idleTtl > 0 required");
+        if (maxSessions < 1) throw new IllegalArgumentException("maxSessions >= 1 required");
+        this.idleTtlMillis = idleTtl.toMillis();
+        this.maxSessions = maxSessions;
+        this.clock = clock;
+        if (sweepInterval.isZero()) {
+            this.sweeper = null;
+        } else {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "session-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            long every = sweepInterval.toMillis();
+            sweeper.scheduleWithFixedDelay(this::sweep, every, every, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public GameSession create(Position board, Mode mode, Mark aiPlays, Difficulty difficulty) {
+        GameSession s = new GameSession(UUID.randomUUID(), new GameSession.State(board, 0), mode, aiPlays,
+                difficulty, clock.instant());
+        put(s);
+        return s;
+    }
+
+    @Override
+    public boolean update(GameSession session, GameSession.State expected, Position board, MoveHistory history) {
+        // Sessions are shared objects here, so the session's own CAS is the whole transition.
+        if (!session.compareAndSet(expected, board, history)) return false;
+        session.touch(clock.millis());
+        // a session evicted or removed meanwhile took the move with it: report the game gone
+        return sessions.get(session.id()) == session;
+    }
+
+    /** Add (or replace) a session under its own id. */
+    public void put(GameSession session) {
+        session.touch(clock.millis());
+        GameSession old = sessions.put(session.id(), session);
+        bytes.add(estimateBytes(session) - (old == null ? 0 : estimateBytes(old)));
+        if (sessions.size() > maxSessions) {
+            if (sweeper == null) {
+                sweep();
+            } else if (sweepQueued.compareAndSet(false, true)) {
+                sweeper.execute(() -> {
+                    sweepQueued.set(false);
+                    sweep();
+                });
+            }
+        }
+    }
+
+    @Override
+    public GameSession get(UUID id) {
+        GameSession s = sessions.get(id);
+        if (s == null) return null;
+        long now = clock.millis();
+        if (now - s.lastAccessMillis() > idleTtlMillis) {
+            // expired but not swept yet: treat as gone
+            if (sessions.remove(id, s)) dropped(s, expired);
+            return null;
+        }
+        s.touch(now);
+        return s;
+    }
+
+    @Override
+    public void remove(UUID id) {
+        GameSession s = sessions.remove(id);
+        if (s != null) bytes.add(-estimateBytes(s));
+    }
+
+    @Override
+    public void forEach(Consumer<GameSession> action) {
+        sessions.values().forEach(action);
+    }
+
+    @Override
+    public void restore(GameSession session) {
+        put(session);
+    }
+
+    @Override
+    public Stats stats() {
+        return new Stats(sessions.size(), expired.sum(), evicted.sum(), bytes.sum());
+    }
+
+    @Override
+    public void close() {
+        if (sweeper != null) sweeper.shutdownNow();
+    }
+
+    /**
+     * One eviction pass: idle sessions first, then about the least recently used ones until
+     * 1% under the cap. Runs on one thread at a time.
+     */
+    void sweep() {
+        if (!sweeping.compareAndSet(false, true)) return;
+        try {
+            long now = clock.millis();
+            long cutoff = now - idleTtlMillis;
+            long span = 1; // age of the oldest session kept, + 1
+            for (GameSession s : sessions.values()) {
+                if (s.lastAccessMillis() < cutoff) {
+                    if (sessions.remove(s.id(), s)) dropped(s, expired);
+                } else {
+                    span = Math.max(span, now - s.lastAccessMillis() + 1);
+                }
+            }
+            int over = sessions.size() - maxSessions;
+            if (over <= 0) return;
+            over += maxSessions / 100;
+
+            // Approximate: the cut-off bucket goes in map order, and a session touched
+            // between the passes falls into a younger bucket and is skipped.
+            int[] hist = new int[256];
+            for (GameSession s : sessions.values()) hist[bucket(now - s.lastAccessMillis(), span)]++;
+            int oldest = hist.length - 1;
+            for (int seen = 0; oldest > 0; oldest--) {
+                seen += hist[oldest];
+                if (seen >= over) break;
+            }
+            for (GameSession s : sessions.values()) {
+                if (over <= 0) break;
+                if (bucket(now - s.lastAccessMillis(), span) >= oldest && sessions.remove(s.id(), s)) {
+                    dropped(s, evicted);
+                    over--;
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    // Age as one of 256 buckets from now to the oldest session's last use
+    private static int bucket(long ageMillis, long span) {
+        return (int) Math.min(255, Math.max(0, ageMillis) * 256 / span);
+    }
+
+    private void dropped(GameSession s, LongAdder counter) {
+        counter.increment();
+        bytes.add(-estimateBytes(s));
+    }
+
+    // A session's size only depends on the board shape, so the estimate is stable across moves.
+    // (An m,n,k history also grows by 2 bytes per move; those aren't counted.)
+    static long estimateBytes(GameSession s) {
+        Position b = s.board();
+        if (b instanceof Board) return SESSION_OVERHEAD_BYTES + 16 + 24; // Board + PackedMoveHistory
+        long words = (b.cellCount() + 63) >>> 6;
+        return SESSION_OVERHEAD_BYTES + 48 + 2 * (16 + 8 * words) + 32; // MnkBoard + its two bitsets + history
+    }
+}
@@ -0,0 +1,6 @@
+package ttt.service;
+
+/** A change was applied, but couldn't be made durable: don't retry it, re-read the game. */
+public class NotSavedException extends RuntimeException {
+    public NotSavedException(String m, Throwable cause) { super(m, cause); }
+}
@@ -0,0 +1,12 @@
+package ttt.service;
+
+public class OverloadedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public OverloadedException(String m, long retryAfterSeconds) {
+        super(m);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long retryAfterSeconds() { return retryAfterSeconds; }
+}
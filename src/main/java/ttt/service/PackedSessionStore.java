@@ -0,0 +1,548 @@
+package ttt.service;
+
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.MoveHistory;
+import ttt.core.PackedMoveHistory;
+import ttt.core.Position;
+import ttt.domain.Difficulty;
+import ttt.domain.GameSession;
+import ttt.domain.Mode;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * High-density store for 3x3 games: 32 bytes per game in primitive slabs, no objects per
+ * session, so 10M live games take ~320 MB and the GC has nothing per game to trace.
+ *
+ * Each game is a slot of four longs in a page of 65536 slots (pages are allocated on demand):
+ * - state   : bits 0..18 Board.packed(), bit 19 mode (1 = PVE), bits 20..21 AI side
+ *             (0 none, 1 X, 2 O), bit 22 occupied, bits 23..24 difficulty (ordinal),
+ *             bits 25..31 generation, bits 32..63 move version (all of it: see MAX_VERSION)
+ * - times   : bits 0..31 created, bits 32..63 last access, seconds since the store started
+ * - history : bits 0..43 PackedMoveHistory.bits(), bits 44..52 the low 9 bits of the version
+ *             it belongs to, bits 53..56 the ply of the history it replaced, bits 57..63 the
+ *             generation of the game it belongs to
+ * - key     : 64 random bits, the low half of the game id
+ *
+ * The game id is a UUID carrying the slot index and the key. Slot indexes are easy to
+ * guess, so the key comes from a SecureRandom and every lookup compares it: holding an id
+ * is what lets a client play the game. The generation counts the slot's games; it goes
+ * up on every reuse, so a CAS on the state long also fails if the game it was read for
+ * has been evicted and the slot handed to another since (short of 128 reuses in between,
+ * which the key check before the CAS narrows further). A free slot keeps its generation
+ * with the occupied bit clear, and the next free slot + 1 in its key long.
+ * Every state change is a CAS on the state long, which also checks the generation and version, so
+ * eviction, removal and moves on the same slot can race without locks. Free slots form a lock-free
+ * stack threaded through their key longs. A move first reserves the slot by a CAS of the
+ * history long from the current version's history to the next one's, then CASes the state.
+ * The next history and the ply it replaced are enough to work out the next board, so a
+ * reader that finds a move reserved but not applied yet finishes it with the same state CAS
+ * rather than waiting on a mover that may have stalled; nobody ever drops a history. A mover
+ * whose state CAS loses to something other than a reader finishing its move (the game was
+ * evicted or removed) puts the old history back.
+ *
+ * Other board shapes don't fit in a slot and go to a heap {@link InMemorySessionStore}.
+ * get() returns a detached GameSession built from the slot; moves come back via update().
+ */
+public final class PackedSessionStore implements SessionStore {
+
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SLOTS = 1 << PAGE_BITS;
+    private static final long SLOT_BYTES = 32;
+    private static final int SLOT_LONGS = 4;
+
+    private static final long BOARD_MASK = (1L << 19) - 1;
+    private static final long PVE = 1L << 19;
+    private static final int AI_SHIFT = 20;
+    private static final long OCCUPIED = 1L << 22;
+    private static final int DIFFICULTY_SHIFT = 23;
+    private static final Difficulty[] DIFFICULTIES = Difficulty.values();
+    private static final int GENERATION_SHIFT = 25;
+    private static final long GENERATION_MASK = (1L << 7) - 1;
+    private static final int VERSION_SHIFT = 32;
+    private static final long VERSION_MASK = MAX_VERSION;
+    private static final int TAG_SHIFT = PackedMoveHistory.BITS;
+    private static final long TAG_VERSION_MASK = (1L << 9) - 1;
+    private static final int PREV_PLY_SHIFT = TAG_SHIFT + 9;
+    private static final int TAG_GENERATION_SHIFT = PREV_PLY_SHIFT + 4;
+    private static final long TAG_MASK = GENERATION_MASK << TAG_GENERATION_SHIFT | TAG_VERSION_MASK << TAG_SHIFT;
+
+    // High half of UUID.mostSignificantBits for ids from this store (low half is the slot).
+    private static final long ID_PREFIX = 0x7a3b_5e55_0000_0000L;
+    private static final long ID_PREFIX_MASK = 0xFFFF_FFFF_0000_0000L;
+    private static final SecureRandom KEYS = new SecureRandom(); // as UUID.randomUUID() uses
+
+    private final InMemorySessionStore heap; // m,n,k boards
+    private final Clock clock;
+    private final long epochMillis;
+    private final long idleTtlSeconds;
+    private final int maxSessions;
+    private final ScheduledExecutorService sweeper; // null: only evict when full
+
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[0];
+    private final Object growLock = new Object(); // only taken to add a page
+    private final AtomicInteger used = new AtomicInteger(); // slots ever handed out
+    // free-slot stack head: low 32 bits = slot + 1 (0 = empty), high 32 bits = pop count (ABA guard)
+    private final AtomicLong freeHead = new AtomicLong();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final LongAdder live = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * @param idleTtl drop a game this long after its last use
+     * @param maxSessions 3x3 slot capacity; when full, the oldest ~1% of games are evicted
+     * @param sweepInterval how often to look for idle games (zero = no background thread)
+     * @param heap where games on other board shapes go
+     */
+    public PackedSessionStore(Duration idleTtl, int maxSessions, Duration sweepInterval, Clock clock,
+                              InMemorySessionStore heap) {
+        if (idleTtl.toSeconds() < 1) throw new IllegalArgumentException("idleTtl >= 1s required");
+        if (maxSessions < 1) throw new IllegalArgumentException("maxSessions >= 1 required");
+        this.heap = heap;
+        this.clock = clock;
+        this.epochMillis = clock.millis();
+        this.idleTtlSeconds = idleTtl.toSeconds();
+        this.maxSessions = maxSessions;
+        if (sweepInterval.isZero()) {
+            this.sweeper = null;
+        } else {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "packed-session-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            long every = sweepInterval.toMillis();
+            sweeper.scheduleWithFixedDelay(this::sweep, every, every, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public GameSession create(Position board, Mode mode, Mark aiPlays, Difficulty difficulty) {
+        if (!(board instanceof Board b)) return heap.create(board, mode, aiPlays, difficulty);
+        int slot = allocate();
+        long key = KEYS.nextLong();
+        int now = now();
+        AtomicLongArray p = page(slot);
+        int o = offset(slot);
+        p.set(o + 1, times(now, now));
+        long state = nextGeneration(p.get(o)) | OCCUPIED | fields(b, mode, aiPlays, difficulty);
+        p.set(o + 2, historyWord(MoveHistory.empty(b), state)); // no moves yet, version 0
+        p.set(o + 3, key);
+        p.set(o, state); // publishes the slot
+        live.increment();
+        return new GameSession(id(slot, key), new GameSession.State(b, 0), mode, aiPlays, difficulty, instant(now));
+    }
+
+    @Override
+    public GameSession get(UUID id) {
+        if (!isOurs(id)) return heap.get(id);
+        int slot = slotOf(id);
+        if (slot < 0) return null;
+        AtomicLongArray p = page(slot);
+        int o = offset(slot);
+        long state;
+        long history;
+        do {
+            state = p.get(o);
+            if (!matches(p, o, state, id)) return null;
+            history = historyFor(p, o, state);
+        } while (history == -1);
+        long t = p.get(o + 1);
+        int now = now();
+        if (now - lastAccess(t) > idleTtlSeconds) {
+            // expired but not swept yet: treat as gone
+            if (release(slot, state)) expired.increment();
+            return null;
+        }
+        p.set(o + 1, times(created(t), now)); // a lost race here only loses a touch
+        return session(id, state, t, history);
+    }
+
+    private GameSession session(UUID id, long state, long times, long history) {
+        var st = new GameSession.State(Board.fromPacked((int) (state & BOARD_MASK)),
+                state >>> VERSION_SHIFT,
+                PackedMoveHistory.fromBits(history & ((1L << TAG_SHIFT) - 1)));
+        return new GameSession(id, st, (state & PVE) != 0 ? Mode.PVE : Mode.PVP, aiOf(state),
+                DIFFICULTIES[(int) (state >>> DIFFICULTY_SHIFT) & 0x3], instant(created(times)));
+    }
+
+    @Override
+    public boolean update(GameSession session, GameSession.State expected, Position board, MoveHistory history) {
+        if (!isOurs(session.id())) return heap.update(session, expected, board, history);
+        int slot = slotOf(session.id());
+        if (slot < 0) return false;
+        Board b = (Board) board; // a game never changes shape
+        AtomicLongArray p = page(slot);
+        int o = offset(slot);
+        long state = p.get(o);
+        long cur = p.get(o + 2);
+        long version = expected.version();
+        if (version >= VERSION_MASK) throw new IllegalStateException("Version " + version + " is the last one");
+        if (!matches(p, o, state, session.id()) || (state >>> VERSION_SHIFT) != version) return false;
+        long after = state + (1L << VERSION_SHIFT);
+        if (!belongsTo(cur, state)) {
+            // Another move has this version reserved: see it applied, ours is stale
+            if (belongsTo(cur, after)) p.compareAndSet(o, state, advance(state, cur));
+            return false;
+        }
+        long word = historyWord(history, after) | (long) expected.history().ply() << PREV_PLY_SHIFT;
+        long next = advance(state, word);
+        if ((next & BOARD_MASK) != b.packed()) {
+            throw new IllegalArgumentException("Board doesn't follow from the history: " + history);
+        }
+        if (!p.compareAndSet(o + 2, cur, word)) return false; // reserves the version
+        if (!p.compareAndSet(o, state, next)) {
+            // A reader finished it for us, or the game is gone and the history goes back
+            long now = p.get(o);
+            boolean applied = (now & OCCUPIED) != 0 && ((now ^ state) >>> GENERATION_SHIFT & GENERATION_MASK) == 0
+                    && (now >>> VERSION_SHIFT) > version;
+            if (!applied) {
+                p.compareAndSet(o + 2, word, cur);
+                return false;
+            }
+        }
+        p.set(o + 1, times(created(p.get(o + 1)), now()));
+        return true;
+    }
+
+    @Override
+    public void remove(UUID id) {
+        if (!isOurs(id)) {
+            heap.remove(id);
+            return;
+        }
+        int slot = slotOf(id);
+        if (slot < 0) return;
+        AtomicLongArray p = page(slot);
+        int o = offset(slot);
+        long state = p.get(o);
+        if (matches(p, o, state, id)) release(slot, state);
+    }
+
+    @Override
+    public void forEach(Consumer<GameSession> action) {
+        int n = used.get();
+        for (int slot = 0; slot < n; slot++) {
+            AtomicLongArray p = page(slot);
+            int o = offset(slot);
+            long state;
+            long key;
+            long history;
+            do {
+                state = p.get(o);
+                key = p.get(o + 3);
+                history = (state & OCCUPIED) != 0 ? historyFor(p, o, state) : 0; // also checks state held
+            } while (history == -1);
+            if ((state & OCCUPIED) != 0) {
+                action.accept(session(id(slot, key), state, p.get(o + 1), history));
+            }
+        }
+        heap.forEach(action);
+    }
+
+    /**
+     * Puts the game back in the slot its id names. Doesn't maintain the free-slot stack;
+     * {@link #restored()} rebuilds it once all games are back.
+     */
+    @Override
+    public void restore(GameSession session) {
+        if (!isOurs(session.id())) {
+            heap.restore(session);
+            return;
+        }
+        if (!(session.board() instanceof Board b)) throw new IllegalArgumentException("3x3 ids hold 3x3 games");
+        int slot = (int) session.id().getMostSignificantBits();
+        if (slot < 0 || slot >= maxSessions) throw new IllegalArgumentException("Slot out of range: " + slot);
+        if (session.version() > VERSION_MASK) throw new IllegalArgumentException("Version out of range: " + session.version());
+        ensurePage(slot); // before used covers the slot, as in allocate()
+        used.accumulateAndGet(slot + 1, Math::max);
+        AtomicLongArray p = page(slot);
+        int o = offset(slot);
+        if ((p.get(o) & OCCUPIED) == 0) live.increment();
+        int now = now();
+        int created = (int) Math.floorDiv(session.createdAt().toEpochMilli() - epochMillis, 1000);
+        p.set(o + 1, times(created, now));
+        long state = nextGeneration(p.get(o)) | OCCUPIED
+                | fields(b, session.mode(), session.aiPlays(), session.difficulty())
+                | (session.version() << VERSION_SHIFT);
+        p.set(o + 2, historyWord(session.state().history(), state));
+        p.set(o + 3, session.id().getLeastSignificantBits());
+        p.set(o, state);
+    }
+
+    @Override
+    public void restored() {
+        // Slots below used() that no game came back to are free; stack them, lowest on top
+        freeHead.set(0);
+        for (int slot = used.get() - 1; slot >= 0; slot--) {
+            AtomicLongArray p = page(slot);
+            int o = offset(slot);
+            if ((p.get(o) & OCCUPIED) == 0) {
+                p.set(o + 3, freeHead.get() & 0xFFFF_FFFFL);
+                freeHead.set(slot + 1L);
+            }
+        }
+        heap.restored();
+    }
+
+    @Override
+    public Stats stats() {
+        Stats h = heap.stats();
+        long slab = (long) pages.length * PAGE_SLOTS * SLOT_BYTES;
+        return new Stats(live.sum() + h.live(), expired.sum() + h.expired(), evicted.sum() + h.evicted(),
+                slab + h.estimatedBytes());
+    }
+
+    @Override
+    public void close() {
+        if (sweeper != null) sweeper.shutdownNow();
+        heap.close();
+    }
+
+    /** Drop idle games, in the slab and on the heap. */
+    void sweep() {
+        heap.sweep();
+        if (!sweeping.compareAndSet(false, true)) return;
+        try {
+            int now = now();
+            int n = used.get();
+            for (int slot = 0; slot < n; slot++) {
+                AtomicLongArray p = page(slot);
+                int o = offset(slot);
+                long state = p.get(o);
+                if ((state & OCCUPIED) != 0 && now - lastAccess(p.get(o + 1)) > idleTtlSeconds
+                        && release(slot, state)) {
+                    expired.increment();
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * Make room when every slot is taken: evict about {@code count} least recently used
+     * games. Ages are bucketed into a histogram to find the cut-off in two passes instead
+     * of sorting millions of slots.
+     */
+    private void evictOldest(int count) {
+        int now = now();
+        int n = used.get();
+        long span = Math.max(1, idleTtlSeconds);
+        int[] hist = new int[256];
+        for (int slot = 0; slot < n; slot++) {
+            AtomicLongArray p = page(slot);
+            int o = offset(slot);
+            if ((p.get(o) & OCCUPIED) != 0) hist[bucket(now - lastAccess(p.get(o + 1)), span)]++;
+        }
+        int cutoff = hist.length - 1;
+        for (int seen = 0; cutoff > 0; cutoff--) {
+            seen += hist[cutoff];
+            if (seen >= count) break;
+        }
+        int dropped = 0;
+        for (int slot = 0; slot < n && dropped < count; slot++) {
+            AtomicLongArray p = page(slot);
+            int o = offset(slot);
+            long state = p.get(o);
+            if ((state & OCCUPIED) != 0 && bucket(now - lastAccess(p.get(o + 1)), span) >= cutoff
+                    && release(slot, state)) {
+                evicted.increment();
+                dropped++;
+            }
+        }
+    }
+
+    private static int bucket(long age, long span) {
+        return (int) Math.min(255, Math.max(0, age) * 256 / span);
+    }
+
+    // ---- slots ----
+
+    private int allocate() {
+        for (int attempt = 0; ; attempt++) {
+            int slot = popFree();
+            if (slot >= 0) return slot;
+            int fresh = used.get();
+            if (fresh < maxSessions) {
+                // The page first: sweeps and scans page() every slot below used, unchecked
+                ensurePage(fresh);
+                if (!used.compareAndSet(fresh, fresh + 1)) continue;
+                return fresh;
+            }
+            if (attempt >= 2) throw new IllegalStateException("Session store full");
+            evictOldest(Math.max(1, maxSessions / 100));
+        }
+    }
+
+    // Claim an occupied slot (CAS against the state we saw) and put it on the free stack.
+    private boolean release(int slot, long state) {
+        AtomicLongArray p = page(slot);
+        int o = offset(slot);
+        // free, keeping the generation so the slot's next game gets a new one
+        long free = state & (GENERATION_MASK << GENERATION_SHIFT);
+        if (!p.compareAndSet(o, state, free)) return false; // moved, removed or reused meanwhile
+        live.decrement();
+        long head;
+        do {
+            head = freeHead.get();
+            p.set(o + 3, head & 0xFFFF_FFFFL); // link to the previous top
+        } while (!freeHead.compareAndSet(head, (head & ~0xFFFF_FFFFL) | (slot + 1L)));
+        return true;
+    }
+
+    private int popFree() {
+        while (true) {
+            long head = freeHead.get();
+            int top = (int) head - 1;
+            if (top < 0) return -1;
+            long link = page(top).get(offset(top) + 3);
+            long next = ((head >>> 32) + 1) << 32 | link;
+            if (freeHead.compareAndSet(head, next)) return top;
+        }
+    }
+
+    private void ensurePage(int slot) {
+        int idx = slot >>> PAGE_BITS;
+        if (idx < pages.length) return;
+        synchronized (growLock) {
+            AtomicLongArray[] cur = pages;
+            if (idx < cur.length) return;
+            AtomicLongArray[] grown = Arrays.copyOf(cur, idx + 1);
+            for (int i = cur.length; i <= idx; i++) grown[i] = new AtomicLongArray(PAGE_SLOTS * SLOT_LONGS);
+            pages = grown;
+        }
+    }
+
+    private AtomicLongArray page(int slot) {
+        return pages[slot >>> PAGE_BITS];
+    }
+
+    private static int offset(int slot) {
+        return (slot & (PAGE_SLOTS - 1)) * SLOT_LONGS;
+    }
+
+    // ---- encoding ----
+
+    private static long fields(Board b, Mode mode, Mark aiPlays, Difficulty difficulty) {
+        long ai = aiPlays == null ? 0 : aiPlays == Mark.X ? 1 : 2;
+        return b.packed() | (mode == Mode.PVE ? PVE : 0) | (ai << AI_SHIFT)
+                | ((long) difficulty.ordinal() << DIFFICULTY_SHIFT);
+    }
+
+    // Generation bits for the next game in a slot whose state long is state
+    private static long nextGeneration(long state) {
+        return (((state >>> GENERATION_SHIFT) + 1) & GENERATION_MASK) << GENERATION_SHIFT;
+    }
+
+    // The history word for history in the slot state, tagged with state's generation and version
+    private static long historyWord(MoveHistory history, long state) {
+        return ((PackedMoveHistory) history).bits() | tag(state);
+    }
+
+    private static long tag(long state) {
+        return ((state >>> GENERATION_SHIFT) & GENERATION_MASK) << TAG_GENERATION_SHIFT
+                | ((state >>> VERSION_SHIFT) & TAG_VERSION_MASK) << TAG_SHIFT;
+    }
+
+    // word is the history of state's version of state's game (versions compare modulo 2^9,
+    // which is plenty: the slot only ever holds the state's history or the next version's)
+    private static boolean belongsTo(long word, long state) {
+        return (word & TAG_MASK) == tag(state);
+    }
+
+    // The state after the move reserved by word, the next version's history: the board is
+    // walked from the ply word replaced to its own, along word's moves
+    private static long advance(long state, long word) {
+        Board b = Board.fromPacked((int) (state & BOARD_MASK));
+        PackedMoveHistory h = PackedMoveHistory.fromBits(word & ((1L << TAG_SHIFT) - 1));
+        int from = (int) (word >>> PREV_PLY_SHIFT) & 0xF;
+        for (int i = from; i > h.ply(); i--) b = b.takeBack(h.move(i - 1));
+        for (int i = from; i < h.ply(); i++) b = b.applyUnchecked(h.move(i));
+        return (state & ~BOARD_MASK) + (1L << VERSION_SHIFT) | b.packed();
+    }
+
+    /**
+     * The history word that goes with state, which was read from the slot at p[o]. -1 (never
+     * a history word: its length would be 15) if the state has changed since, or if a move
+     * had reserved the next version but not applied it yet: this finishes it, and the caller
+     * reads both again.
+     */
+    private static long historyFor(AtomicLongArray p, int o, long state) {
+        while (true) {
+            long history = p.get(o + 2);
+            if (p.get(o) != state) return -1;
+            if (belongsTo(history, state)) return history;
+            if (belongsTo(history, state + (1L << VERSION_SHIFT))) {
+                p.compareAndSet(o, state, advance(state, history));
+                return -1;
+            }
+            Thread.onSpinWait(); // only the history of a state no longer there gets put back
+        }
+    }
+
+    private static Mark aiOf(long state) {
+        return switch ((int) (state >>> AI_SHIFT) & 0x3) {
+            case 1 -> Mark.X;
+            case 2 -> Mark.O;
+            default -> null;
+        };
+    }
+
+    private static long times(int created, int lastAccess) {
+        return (created & 0xFFFF_FFFFL) | ((long) lastAccess << 32);
+    }
+
+    private static int created(long times) {
+        return (int) times;
+    }
+
+    private static int lastAccess(long times) {
+        return (int) (times >>> 32);
+    }
+
+    private int now() {
+        return (int) ((clock.millis() - epochMillis) / 1000);
+    }
+
+    private Instant instant(int seconds) {
+        return Instant.ofEpochMilli(epochMillis + seconds * 1000L);
+    }
+
+    private static UUID id(int slot, long key) {
+        return new UUID(ID_PREFIX | slot, key);
+    }
+
+    private static boolean isOurs(UUID id) {
+        return (id.getMostSignificantBits() & ID_PREFIX_MASK) == ID_PREFIX;
+    }
+
+    // -1 if the id names a slot that was never handed out
+    private int slotOf(UUID id) {
+        int slot = (int) id.getMostSignificantBits();
+        return slot >= 0 && slot < used.get() && (slot >>> PAGE_BITS) < pages.length ? slot : -1;
+    }
+
+    // state, read from the slot at p[o], is a live game with id's key. The caller checks state
+    // still holds afterwards (a CAS or historyFor), which also vouches for the key read here.
+    private static boolean matches(AtomicLongArray p, int o, long state, UUID id) {
+        return (state & OCCUPIED) != 0 && p.get(o + 3) == id.getLeastSignificantBits();
+    }
+}
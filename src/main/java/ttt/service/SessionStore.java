@@ -0,0 +1,73 @@
+package ttt.service;
+
+import ttt.core.Mark;
+import ttt.core.MoveHistory;
+import ttt.core.Position;
+import ttt.domain.Difficulty;
+import ttt.domain.GameSession;
+import ttt.domain.Mode;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Where live games are kept between requests. Implementations decide how long an
+ * idle game survives and how many fit; a game that is gone is simply not found.
+ */
+public interface SessionStore extends AutoCloseable {
+
+    /** The last version a game can reach: versions are 32 unsigned bits on disk and in a packed slot. */
+    long MAX_VERSION = 0xFFFF_FFFFL;
+
+    /** Start a new game; the store picks its id. */
+    GameSession create(Position board, Mode mode, Mark aiPlays, Difficulty difficulty);
+
+    /** {@link #create(Position, Mode, Mark, Difficulty)} at HARD. */
+    default GameSession create(Position board, Mode mode, Mark aiPlays) {
+        return create(board, mode, aiPlays, Difficulty.HARD);
+    }
+
+    /**
+     * Atomically replace the session's state {@code expected} with {@code board} and the
+     * history that led to it (version + 1): a move appends to expected's history, an undo
+     * or redo moves along it. Returns false if another request changed the game since
+     * {@code expected} was read, or the game is gone; callers re-read to tell which.
+     * Sessions from get() may be detached copies, so changes must go through here rather
+     * than {@link GameSession#compareAndSet}.
+     */
+    boolean update(GameSession session, GameSession.State expected, Position board, MoveHistory history);
+
+    /** The session, marked as just used, or null if it never existed or was evicted. */
+    GameSession get(UUID id);
+
+    void remove(UUID id);
+
+    /**
+     * Every live session, without marking any as used. Sessions may be detached copies,
+     * and games created or moved during the walk may or may not be seen.
+     */
+    void forEach(Consumer<GameSession> action);
+
+    /**
+     * Put back a game saved elsewhere (e.g. on disk) under its own id and version. Only
+     * for recovery at startup: call before the store serves requests, then {@link #restored()}.
+     */
+    void restore(GameSession session);
+
+    /** Recovery is over; the store may rebuild any bookkeeping restore() skipped. */
+    default void restored() {}
+
+    Stats stats();
+
+    /** Stop background work (eviction threads); the store is not used afterwards. */
+    @Override
+    default void close() {}
+
+    /**
+     * @param live sessions currently stored
+     * @param expired sessions dropped after sitting idle longer than the TTL
+     * @param evicted least recently used sessions dropped to stay under the size cap
+     * @param estimatedBytes rough memory held by the live sessions
+     */
+    record Stats(long live, long expired, long evicted, long estimatedBytes) {}
+}
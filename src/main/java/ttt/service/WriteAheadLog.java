@@ -0,0 +1,256 @@
+package ttt.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of fixed-size 32-byte records, in numbered segment files
+ * ({@code wal-<seq>.log}), for {@link DurableSessionStore}.
+ *
+ * A record is three longs and an int from the caller, then a CRC32C of those 28 bytes,
+ * so a torn write at the end of a segment is detected on replay and dropped. Appends go
+ * into an in-memory buffer; one writer thread moves the buffer to the file and fsyncs it
+ * (group commit: one fsync covers everything appended since the last). With syncMillis
+ * > 0 appends return at once and the writer syncs that often, so a crash loses at most
+ * the last syncMillis of changes; with 0, append() waits until its record is on disk,
+ * and concurrent appenders share the fsync.
+ */
+final class WriteAheadLog implements AutoCloseable {
+
+    static final int RECORD_BYTES = 32;
+    private static final int PAYLOAD_BYTES = 28;
+
+    /** Receives replayed records, in log order. */
+    interface Replay {
+        void record(long w0, long w1, long w2, int payload);
+    }
+
+    private final Path dir;
+    private final long syncMillis;
+    private final Object lock = new Object();
+    private final CRC32C crc = new CRC32C(); // guarded by lock
+    private final Thread writer;
+
+    // guarded by lock
+    private ByteBuffer active;
+    private ByteBuffer spare;
+    private long appended; // records appended so far
+    private long synced;   // records known to be on disk
+    private long segment;
+    private boolean rotate;
+    private boolean closed;
+    private IOException failure;
+
+    private FileChannel channel; // only touched by the writer thread (and the constructor)
+
+    /**
+     * @param segment number of the first segment to write (a new file: existing ones are never appended to)
+     * @param bufferRecords records that may wait in memory; appenders block while it is full
+     */
+    WriteAheadLog(Path dir, long segment, long syncMillis, int bufferRecords) throws IOException {
+        if (syncMillis < 0) throw new IllegalArgumentException("syncMillis >= 0 required");
+        if (bufferRecords < 1) throw new IllegalArgumentException("bufferRecords >= 1 required");
+        this.dir = dir;
+        this.syncMillis = syncMillis;
+        this.segment = segment;
+        this.active = ByteBuffer.allocate(bufferRecords * RECORD_BYTES);
+        this.spare = ByteBuffer.allocate(bufferRecords * RECORD_BYTES);
+        this.channel = open(segment);
+        this.writer = new Thread(this::run, "session-wal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Throws what append() would if the log has failed or been closed, for callers that
+     * must know before they change anything.
+     */
+    void checkWritable() {
+        synchronized (lock) {
+            check();
+        }
+    }
+
+    /** @throws UncheckedIOException if the log can no longer be written */
+    void append(long w0, long w1, long w2, int payload) {
+        long mine;
+        synchronized (lock) {
+            while (active.remaining() < RECORD_BYTES && failure == null && !closed) await();
+            check();
+            int at = active.position();
+            active.putLong(w0).putLong(w1).putLong(w2).putInt(payload);
+            crc.reset();
+            crc.update(active.array(), at, PAYLOAD_BYTES);
+            active.putInt((int) crc.getValue());
+            mine = ++appended;
+            // wake the writer only when it is waiting for this: a first record, a full buffer, or a sync
+            if (syncMillis == 0 || at == 0 || active.remaining() < RECORD_BYTES) lock.notifyAll();
+            if (syncMillis > 0) return;
+            while (synced < mine && failure == null) await();
+            check();
+        }
+    }
+
+    /**
+     * Sync everything appended so far and continue in a new segment.
+     * @return the new segment's number; older segments may be deleted once a snapshot covers them
+     */
+    long rotate() {
+        synchronized (lock) {
+            check();
+            long next = segment + 1;
+            rotate = true;
+            lock.notifyAll();
+            while (segment < next && failure == null) await();
+            check();
+            return next;
+        }
+    }
+
+    long segment() {
+        synchronized (lock) {
+            return segment;
+        }
+    }
+
+    /** Sync what is buffered and stop the writer. */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                ByteBuffer out;
+                long upTo;
+                boolean next;
+                boolean stop;
+                synchronized (lock) {
+                    if (syncMillis > 0 && !closed && !rotate) {
+                        // group commit by time: let a batch build up (a full buffer or a rotation ends the wait)
+                        long until = System.nanoTime() + syncMillis * 1_000_000L;
+                        for (long left; !closed && !rotate && active.remaining() >= RECORD_BYTES
+                                && (left = until - System.nanoTime()) > 0; ) {
+                            lock.wait(Math.max(1, left / 1_000_000L));
+                        }
+                    }
+                    while (active.position() == 0 && !closed && !rotate) lock.wait();
+                    out = active;
+                    active = spare;
+                    spare = null;
+                    upTo = appended;
+                    next = rotate;
+                    stop = closed;
+                    lock.notifyAll(); // the buffer has room again
+                }
+                out.flip();
+                while (out.hasRemaining()) channel.write(out);
+                channel.force(false);
+                out.clear();
+                if (next) {
+                    channel.close();
+                    channel = open(segment + 1);
+                }
+                synchronized (lock) {
+                    spare = out;
+                    synced = upTo;
+                    if (next) {
+                        segment++;
+                        rotate = false;
+                    }
+                    lock.notifyAll();
+                    if (stop && active.position() == 0) break;
+                }
+            }
+            channel.close();
+        } catch (IOException e) {
+            synchronized (lock) {
+                failure = e;
+                lock.notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private FileChannel open(long seq) throws IOException {
+        return FileChannel.open(path(dir, seq), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private void await() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the write-ahead log", e);
+        }
+    }
+
+    private void check() {
+        if (failure != null) throw new UncheckedIOException("Write-ahead log failed", failure);
+        if (closed) throw new IllegalStateException("Write-ahead log is closed");
+    }
+
+    static Path path(Path dir, long seq) {
+        return dir.resolve(String.format("wal-%016d.log", seq));
+    }
+
+    /** Segment numbers in dir, oldest first. */
+    static List<Long> segments(Path dir) throws IOException {
+        List<Long> seqs = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith("wal-") && n.endsWith(".log"))
+                    .forEach(n -> seqs.add(Long.parseLong(n.substring(4, n.length() - 4))));
+        }
+        seqs.sort(null);
+        return seqs;
+    }
+
+    /**
+     * Feed every intact record of one segment to replay. Stops at the first short or
+     * corrupt record (a write cut off by a crash): nothing after it was acknowledged.
+     * @return records replayed
+     */
+    static long replay(Path segment, Replay replay) throws IOException {
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return 0;
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32C check = new CRC32C();
+            byte[] payload = new byte[PAYLOAD_BYTES];
+            long n = 0;
+            while (in.remaining() >= RECORD_BYTES) {
+                int at = in.position();
+                in.get(payload);
+                check.reset();
+                check.update(payload);
+                if (in.getInt() != (int) check.getValue()) break;
+                in.position(at);
+                replay.record(in.getLong(), in.getLong(), in.getLong(), in.getInt());
+                in.getInt(); // the CRC again
+                n++;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ttt.api;
+
+import org.junit.jupiter.api.Test;
+import ttt.api.dto.GameStateDTO;
+import ttt.api.dto.PlayRequest;
+import ttt.api.dto.TurnResponse;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryGameCodecTest {
+
+    private static final String ID = "3f1c2a9e-7b4d-4e21-9c0a-5d6e7f809123";
+
+    @Test
+    void classicStateRoundTripsIn35Bytes() {
+        GameStateDTO s = new GameStateDTO(ID, "XO..X...O", "X", "IN_PROGRESS", "", "PVE", "O", "MEDIUM", 3, 3, 4, 3, 1, null);
+        byte[] bytes = BinaryGameCodec.encode(s);
+        assertEquals(35, bytes.length);
+        assertEquals(s, BinaryGameCodec.decodeState(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    void finishedAndLargeBoardsRoundTrip() {
+        GameStateDTO won = new GameStateDTO(ID, "XXXOO....", "O", "X_WIN", "X", "PVP", "", "", 3, 3, 5, 5, 0, null);
+        assertEquals(won, BinaryGameCodec.decodeState(ByteBuffer.wrap(BinaryGameCodec.encode(won))));
+
+        StringBuilder board = new StringBuilder(".".repeat(15 * 15));
+        board.setCharAt(0, 'X');
+        board.setCharAt(224, 'O');
+        GameStateDTO big = new GameStateDTO(ID, board.toString(), "X", "IN_PROGRESS", "", "PVE", "X", "EASY", 15, 5, 2, 2, 0, null);
+        byte[] bytes = BinaryGameCodec.encode(big);
+        assertEquals(32 + 57, bytes.length);
+        assertEquals(big, BinaryGameCodec.decodeState(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    void turnAndPlayRoundTrip() {
+        GameStateDTO s = new GameStateDTO(ID, "X...O....", "X", "IN_PROGRESS", "", "PVE", "O", "HARD", 3, 3, 1, 2, 0, null);
+        TurnResponse withAi = new TurnResponse(0, 4, s);
+        assertEquals(withAi, BinaryGameCodec.decodeTurn(ByteBuffer.wrap(BinaryGameCodec.encode(withAi))));
+        TurnResponse noAi = new TurnResponse(0, null, s);
+        assertEquals(noAi, BinaryGameCodec.decodeTurn(ByteBuffer.wrap(BinaryGameCodec.encode(noAi))));
+
+        PlayRequest bare = new PlayRequest(8, null);
+        assertEquals(2, BinaryGameCodec.encode(bare).length);
+        assertEquals(bare, BinaryGameCodec.decodePlay(BinaryGameCodec.encode(bare)));
+        PlayRequest versioned = new PlayRequest(360, 7L);
+        assertEquals(versioned, BinaryGameCodec.decodePlay(BinaryGameCodec.encode(versioned)));
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryGameCodec.decodePlay(new byte[3]));
+    }
+}
@@ -31,4 +31,54 @@ class BoardTest {
         Board b = Board.initial(Mark.X).apply(0);
         assertThrows(IllegalArgumentException.class, () -> b.apply(0));
     }
+
+    @Test
+    void emptyMaskTracksPlacedMarks() {
+        Board b = Board.initial(Mark.X).apply(0).apply(4); // X at 0, O at 4
+        assertEquals(0b000000001, b.xMask());
+        assertEquals(0b000010000, b.oMask());
+        assertEquals(0b111101110, b.emptyMask());
+        assertEquals(Mark.O, b.cell(4));
+    }
+
+    @Test
+    void packedRoundTripsThroughFromPacked() {
+        Board b = Board.initial(Mark.O).apply(8).apply(2).apply(5);
+        assertEquals(b, Board.fromPacked(b.packed()));
+        assertEquals(b, new Board(b.cells(), b.toMove()));
+        assertEquals(Mark.X, b.toMove());
+    }
+
+    @Test
+    void incrementalResultMatchesFullScanOnEveryReachableBoard() {
+        int[] boards = {0};
+        walk(Board.initial(Mark.X), boards);
+        assertEquals(549946, boards[0]); // every move sequence up to the end of the game
+    }
+
+    @Test
+    void takeBackReturnsThePositionBeforeTheMove() {
+        Board b = Board.initial(Mark.X).apply(4).apply(0);
+        Board back = b.takeBack(0);
+        assertEquals(Board.initial(Mark.X).apply(4), back);
+        assertEquals(8, back.empties());
+        assertThrows(IllegalArgumentException.class, () -> b.takeBack(4), "X didn't move last");
+        assertThrows(IllegalArgumentException.class, () -> b.takeBack(8), "empty cell");
+
+        Board won = Board.initial(Mark.X).apply(0).apply(3).apply(1).apply(4).apply(2);
+        assertEquals(GameResult.X_WIN, won.result());
+        assertEquals(GameResult.IN_PROGRESS, won.takeBack(2).result());
+    }
+
+    // fromPacked rebuilds the board from its stones alone, so its result is a full scan
+    private static void walk(Board b, int[] boards) {
+        boards[0]++;
+        Board scanned = Board.fromPacked(b.packed());
+        assertEquals(scanned.result(), b.result(), b.toString());
+        assertEquals(Integer.bitCount(b.emptyMask()), b.empties());
+        if (b.result() != GameResult.IN_PROGRESS) return;
+        for (int m = b.emptyMask(); m != 0; m &= m - 1) {
+            walk(b.apply(Integer.numberOfTrailingZeros(m)), boards);
+        }
+    }
 }
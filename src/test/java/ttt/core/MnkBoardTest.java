@@ -0,0 +1,71 @@
+package ttt.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MnkBoardTest {
+
+    @Test
+    void fiveInARowWinsOnGomokuBoard() {
+        // X plays 112..116 along the middle row, O answers on the row below
+        MnkBoard b = MnkBoard.initial(15, 15, 5, Mark.X);
+        for (int i = 0; i < 4; i++) {
+            b = b.apply(112 + i).apply(127 + i);
+            assertEquals(GameResult.IN_PROGRESS, b.result());
+        }
+        b = b.apply(116);
+        assertEquals(GameResult.X_WIN, b.result());
+        MnkBoard won = b;
+        assertThrows(IllegalStateException.class, () -> won.apply(0));
+    }
+
+    @Test
+    void takeBackUndoesAWinningMove() {
+        MnkBoard before = MnkBoard.initial(15, 15, 5, Mark.X);
+        for (int i = 0; i < 4; i++) before = before.apply(112 + i).apply(127 + i);
+        MnkBoard won = before.apply(116);
+
+        MnkBoard back = won.takeBack(116);
+        assertEquals(before, back);
+        assertEquals(GameResult.IN_PROGRESS, back.result());
+        assertEquals(before.empties(), back.empties());
+        assertEquals(won, back.apply(116));
+        assertThrows(IllegalArgumentException.class, () -> won.takeBack(127), "O didn't move last");
+    }
+
+    @Test
+    void diagonalWinDetectedFromMiddleStone() {
+        // 4x4, k=4: O fills the anti-diagonal 3,6,9,12 with the last stone in the middle
+        MnkBoard b = MnkBoard.initial(4, 4, 4, Mark.X)
+                .apply(0).apply(3)
+                .apply(1).apply(12)
+                .apply(2).apply(6)
+                .apply(4);
+        assertEquals(GameResult.IN_PROGRESS, b.result());
+        b = b.apply(9);
+        assertEquals(GameResult.O_WIN, b.result());
+        assertEquals(9, b.lastMove());
+    }
+
+    @Test
+    void lineDoesNotWrapAroundRowEnds() {
+        // cells 3 and 4 are adjacent indices but on different rows of a 4x4 board
+        MnkBoard b = MnkBoard.initial(4, 4, 3, Mark.X)
+                .apply(2).apply(8)
+                .apply(3).apply(9)
+                .apply(4);
+        assertEquals(GameResult.IN_PROGRESS, b.result());
+    }
+
+    @Test
+    void fullBoardWithoutLineIsDraw() {
+        // 3x3 board through the m,n,k engine, same draw line as RulesTest
+        MnkBoard b = MnkBoard.initial(3, 3, 3, Mark.X);
+        for (int mv : new int[]{0, 1, 2, 4, 3, 5, 7, 6, 8}) {
+            b = b.apply(mv);
+        }
+        assertEquals(GameResult.DRAW, b.result());
+        assertEquals(0, b.empties());
+    }
+}
@@ -0,0 +1,131 @@
+package ttt.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveHistoryTest {
+
+    @Test
+    void undoAndRedoMoveAlongTheSameMoves() {
+        MoveHistory h = MoveHistory.empty(Board.initial(Mark.X)).play(4).play(0).play(8);
+        assertArrayEquals(new int[]{4, 0, 8}, h.moves());
+
+        MoveHistory back = h.undo().undo();
+        assertEquals(1, back.ply());
+        assertEquals(3, back.length());
+        assertEquals(h, back.redo().redo());
+        assertThrows(IllegalStateException.class, () -> h.redo(), "nothing undone");
+        assertThrows(IllegalStateException.class, () -> back.undo().undo(), "nothing left to undo");
+    }
+
+    @Test
+    void playingTheUndoneMoveIsARedoAndAnyOtherDropsTheRest() {
+        MoveHistory h = MoveHistory.empty(Board.initial(Mark.X)).play(4).play(0).play(8).undo().undo();
+        assertEquals(h.redo(), h.play(0));
+        assertEquals(3, h.play(0).length());
+
+        MoveHistory other = h.play(2);
+        assertArrayEquals(new int[]{4, 2}, other.moves());
+        assertEquals(other.ply(), other.length());
+    }
+
+    @Test
+    void packedBitsRoundTripAndRejectJunk() {
+        PackedMoveHistory h = (PackedMoveHistory) MoveHistory.empty(Board.initial(Mark.X))
+                .play(4).play(0).play(8).play(2).undo();
+        assertEquals(h, PackedMoveHistory.fromBits(h.bits()));
+        assertTrue(h.bits() >>> PackedMoveHistory.BITS == 0);
+        assertThrows(IllegalArgumentException.class, () -> PackedMoveHistory.fromBits(9), "cell 9 past the length");
+        assertThrows(IllegalArgumentException.class, () -> PackedMoveHistory.fromBits(1L << 40), "ply past the length");
+    }
+
+    // Both encodings follow the same rules: random play/undo/redo on each must agree step by step
+    @Test
+    void packedAndArrayHistoriesAgree() {
+        Random rnd = new Random(7);
+        for (int game = 0; game < 200; game++) {
+            MoveHistory packed = MoveHistory.empty(Board.initial(Mark.X));
+            MoveHistory array = MoveHistory.empty(MnkBoard.initial(3, 3, 3, Mark.X));
+            Position board = Board.initial(Mark.X);
+            for (int step = 0; step < 30; step++) {
+                int op = rnd.nextInt(3);
+                if (op == 0 && packed.ply() > 0) {
+                    board = board.takeBack(packed.move(packed.ply() - 1));
+                    packed = packed.undo();
+                    array = array.undo();
+                } else if (op == 1 && packed.ply() < packed.length()) {
+                    board = board.apply(packed.move(packed.ply()));
+                    packed = packed.redo();
+                    array = array.redo();
+                } else if (!board.isTerminal()) {
+                    List<Integer> legal = ((Board) board).legalMoves();
+                    int cell = legal.get(rnd.nextInt(legal.size()));
+                    board = board.apply(cell);
+                    packed = packed.play(cell);
+                    array = array.play(cell);
+                }
+                assertArrayEquals(packed.moves(), array.moves());
+                assertEquals(packed.ply(), array.ply());
+                for (int i = 0; i < packed.length(); i++) assertEquals(packed.move(i), array.move(i));
+            }
+        }
+    }
+
+    @Test
+    void historiesSharingMovesDontSeeEachOthersLaterOnes() {
+        MoveHistory base = MoveHistory.empty(MnkBoard.initial(5, 5, 4, Mark.X)).play(12).play(13);
+        MoveHistory a = base.play(7);
+        MoveHistory b = base.play(8); // a second move raced from the same history
+        MoveHistory c = a.undo().play(9); // a different move after an undo
+        assertArrayEquals(new int[]{12, 13}, base.moves());
+        assertArrayEquals(new int[]{12, 13, 7}, a.moves());
+        assertArrayEquals(new int[]{12, 13, 8}, b.moves());
+        assertArrayEquals(new int[]{12, 13, 9}, c.moves());
+        assertEquals(7, a.undo().redo().move(2));
+
+        MoveHistory again = base.play(7);
+        assertEquals(a, again);
+        assertEquals(a.hashCode(), again.hashCode());
+        assertNotEquals(a, b);
+        assertNotEquals(a, a.undo());
+    }
+
+    @Test
+    void boardRebuildsEveryPlyFromTheCurrentOne() {
+        Random rnd = new Random(11);
+        MnkBoard start = MnkBoard.initial(7, 7, 4, Mark.X);
+        List<Position> boards = new ArrayList<>(List.of(start));
+        MoveHistory h = MoveHistory.empty(start);
+        Position b = start;
+        while (!b.isTerminal()) {
+            int cell;
+            do cell = rnd.nextInt(b.cellCount()); while (!b.isLegal(cell));
+            b = b.apply(cell);
+            h = h.play(cell);
+            boards.add(b);
+        }
+        int mid = h.length() / 2;
+        Position current = h.board(b, mid);
+        MoveHistory at = h.at(mid);
+        for (int ply = 0; ply <= h.length(); ply++) {
+            Position rebuilt = at.board(current, ply);
+            assertEquals(boards.get(ply), rebuilt, "ply " + ply);
+            assertEquals(boards.get(ply).result(), rebuilt.result());
+        }
+        int past = h.length() + 1;
+        assertThrows(IllegalArgumentException.class, () -> at.board(current, past));
+    }
+
+    @Test
+    void ofRebuildsAHistoryFromItsMoves() {
+        MoveHistory h = MoveHistory.of(MnkBoard.initial(9, 9, 5, Mark.X), new int[]{40, 41, 30, 50}, 2);
+        assertEquals(2, h.ply());
+        assertArrayEquals(new int[]{40, 41, 30, 50}, h.moves());
+        assertEquals(30, h.move(2));
+    }
+}
@@ -0,0 +1,53 @@
+package ttt.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymmetryTest {
+
+    @Test
+    void rotationsAndMirrorsShareOneCanonicalKey() {
+        // X in the top-left corner, O on the top edge; all 8 images of it
+        Board b = Board.initial(Mark.X).apply(0).apply(1);
+        Set<Integer> images = new HashSet<>();
+        Set<Integer> keys = new HashSet<>();
+        for (int t = 0; t < Symmetry.COUNT; t++) {
+            Board image = Board.fromPacked(Symmetry.transform(b.packed(), t));
+            images.add(image.packed());
+            keys.add(Symmetry.canonicalKey(image));
+        }
+        assertEquals(8, images.size());
+        assertEquals(1, keys.size());
+    }
+
+    @Test
+    void transformsAreDistinctPermutations() {
+        Set<String> perms = new HashSet<>();
+        for (int t = 0; t < Symmetry.COUNT; t++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < Board.CELLS; i++) {
+                int c = Symmetry.toCanonical(t, i);
+                assertEquals(i, Symmetry.fromCanonical(t, c));
+                sb.append(c);
+            }
+            perms.add(sb.toString());
+        }
+        assertEquals(8, perms.size());
+        assertEquals(4, Symmetry.toCanonical(5, 4), "centre stays put");
+    }
+
+    @Test
+    void moveMapsBackToOriginalOrientation() {
+        // X X . / O O . / . . .  -> X wins at 2; the canonical board's winning cell maps back to 2
+        Board b = Board.initial(Mark.X).apply(0).apply(3).apply(1).apply(4);
+        int t = Symmetry.canonicalTransform(b);
+        Board c = Symmetry.canonical(b);
+        int winOnCanonical = Symmetry.toCanonical(t, 2);
+        assertEquals(GameResult.X_WIN, c.apply(winOnCanonical).result());
+        assertEquals(2, Symmetry.fromCanonical(t, winOnCanonical));
+    }
+}
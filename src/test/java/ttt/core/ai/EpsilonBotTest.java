@@ -0,0 +1,44 @@
+package ttt.core.ai;
+
+import org.junit.jupiter.api.Test;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.MnkBoard;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EpsilonBotTest {
+
+    @Test
+    void zeroEpsilonAlwaysDefersToTheWrappedBot() {
+        Bot bot = new EpsilonBot(SolvedPositionTable.instance(), 0);
+        Board b = Board.initial(Mark.X).apply(0).apply(3).apply(1); // O must block at 2
+        for (int i = 0; i < 100; i++) assertEquals(2, bot.chooseMove(b));
+    }
+
+    @Test
+    void fullEpsilonPlaysEveryLegalMoveAndNothingElse() {
+        Bot bot = new EpsilonBot(SolvedPositionTable.instance(), 1);
+        Board b = Board.initial(Mark.X).apply(4).apply(0);
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            int mv = bot.chooseMove(b);
+            assertTrue(b.isLegal(mv), "move " + mv);
+            seen.add(mv);
+        }
+        assertEquals(7, seen.size());
+
+        MnkBoard big = MnkBoard.initial(5, 5, 4, Mark.X).apply(12);
+        Bot anyShape = new EpsilonBot(new IterativeDeepening(50, 0, 2), 1);
+        for (int i = 0; i < 100; i++) assertTrue(big.isLegal(anyShape.chooseMove(big, 50)));
+    }
+
+    @Test
+    void epsilonOutsideZeroToOneIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new EpsilonBot(SolvedPositionTable.instance(), 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new EpsilonBot(SolvedPositionTable.instance(), Double.NaN));
+    }
+}
@@ -0,0 +1,64 @@
+package ttt.core.ai;
+
+import org.junit.jupiter.api.Test;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.MnkBoard;
+import ttt.core.Position;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IterativeDeepeningTest {
+
+    private final IterativeDeepening bot = new IterativeDeepening(200, 0, 64);
+
+    @Test
+    void completesFiveOnGomokuBoard() {
+        // X has 112..115 in the middle row, left end blocked by O at 111
+        MnkBoard b = MnkBoard.initial(15, 15, 5, Mark.X)
+                .apply(112).apply(111)
+                .apply(113).apply(140)
+                .apply(114).apply(170)
+                .apply(115).apply(200);
+        assertEquals(116, bot.chooseMove(b));
+    }
+
+    @Test
+    void blocksOpponentsFour() {
+        // O has 4 in column 0 of a 5x5 k=5 board (cells 0,5,10,15); X must take 20
+        MnkBoard b = MnkBoard.initial(5, 5, 5, Mark.X)
+                .apply(12).apply(0)
+                .apply(7).apply(5)
+                .apply(13).apply(10)
+                .apply(3).apply(15);
+        assertEquals(20, bot.chooseMove(b));
+    }
+
+    @Test
+    void staysWithinBudgetOnBigBoard() {
+        Position b = MnkBoard.initial(15, 15, 5, Mark.X)
+                .apply(112).apply(113).apply(97).apply(127).apply(98).apply(96);
+        IterativeDeepening.Result r = bot.search(b, 50);
+        assertTrue(b.isLegal(r.bestMove()));
+        // 64 plies can't finish in 50ms: the clock, not the depth cap, ended it (no wall-clock
+        // assertion, which a cold or busy JVM would fail)
+        assertTrue(r.timedOut(), "the budget stopped the search");
+        assertTrue(r.depth() >= 1 && r.depth() < 64, "at least one full iteration, not all of them: " + r.depth());
+        assertTrue(r.nodes() > 0);
+    }
+
+    @Test
+    void nodeBudgetStopsSearch() {
+        IterativeDeepening capped = new IterativeDeepening(10_000, 5_000, 64);
+        Position b = MnkBoard.initial(9, 9, 5, Mark.X).apply(40).apply(41);
+        IterativeDeepening.Result r = capped.search(b, 10_000);
+        assertTrue(r.timedOut());
+        assertTrue(r.nodes() < 5_000 + 256);
+    }
+
+    @Test
+    void findsWinOn3x3() {
+        Board b = Board.initial(Mark.X).apply(0).apply(3).apply(1).apply(4);
+        assertEquals(2, bot.chooseMove(b));
+    }
+}
@@ -0,0 +1,77 @@
+package ttt.core.ai;
+
+import org.junit.jupiter.api.Test;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.Rules;
+import ttt.core.Symmetry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential test: alpha-beta + shared transposition table must pick exactly the same
+ * move as plain minimax (no pruning, no memo) on every reachable position and depth.
+ */
+class MinimaxMemoTest {
+
+    @Test
+    void memoizedAlphaBetaMatchesPlainMinimaxEverywhere() {
+        List<Board> positions = reachableNonTerminal();
+        // One small table for everything so entries from other depths, sides and windows
+        // are constantly hit and evicted.
+        TranspositionTable tt = new TranspositionTable(1 << 10);
+
+        for (int depth = 1; depth <= 9; depth++) {
+            for (Board b : positions) {
+                for (Mark side : new Mark[]{Mark.X, Mark.O}) {
+                    int expected = new Minimax(side, false, depth, null).chooseMove(b);
+                    int actual = new Minimax(side, true, depth, tt).chooseMove(b);
+                    assertEquals(expected, actual, "depth " + depth + ", ai " + side + ", " + b);
+                }
+            }
+        }
+        assertTrue(tt.stats().hits() > 0);
+        assertTrue(tt.stats().evictions() > 0);
+    }
+
+    @Test
+    void mirroredPositionsShareEntries() {
+        TranspositionTable tt = new TranspositionTable(1 << 12);
+        SolvedPositionTable solved = SolvedPositionTable.instance();
+        Board b = Board.initial(Mark.X).apply(0).apply(4).apply(8);
+        int mv = new Minimax(Mark.O, true, 9, tt).chooseMove(b);
+        assertTrue(tt.stats().misses() > 0);
+
+        for (int t = 1; t < Symmetry.COUNT; t++) {
+            Board image = Board.fromPacked(Symmetry.transform(b.packed(), t));
+            long before = tt.stats().misses();
+            int imageMove = new Minimax(Mark.O, true, 9, tt).chooseMove(image);
+            // ties may break differently, but the move must be as good as the original one
+            assertEquals(solved.outcome(b.apply(mv)), solved.outcome(image.apply(imageMove)), "transform " + t);
+            assertEquals(before, tt.stats().misses(), "image " + t + " should be answered from the table");
+        }
+    }
+
+    private static List<Board> reachableNonTerminal() {
+        Set<Board> seen = new HashSet<>();
+        collect(Board.initial(Mark.X), seen);
+        collect(Board.initial(Mark.O), seen);
+        List<Board> out = new ArrayList<>();
+        for (Board b : seen) {
+            if (!Rules.isTerminal(b)) out.add(b);
+        }
+        return out;
+    }
+
+    private static void collect(Board b, Set<Board> seen) {
+        if (!seen.add(b) || Rules.isTerminal(b)) return;
+        for (int mv : b.legalMoves()) {
+            collect(b.apply(mv), seen);
+        }
+    }
+}
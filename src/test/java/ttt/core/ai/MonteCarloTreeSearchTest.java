@@ -0,0 +1,111 @@
+package ttt.core.ai;
+
+import org.junit.jupiter.api.Test;
+import ttt.core.Mark;
+import ttt.core.MnkBoard;
+import ttt.core.Position;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonteCarloTreeSearchTest {
+
+    private static Position play(Position p, int... moves) {
+        for (int m : moves) p = p.apply(m);
+        return p;
+    }
+
+    @Test
+    void takesImmediateWinOnBigBoard() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // X has 112..115 in the middle row of 15x15 (k=5), O is in the corners
+            Position p = play(MnkBoard.initial(15, 15, 5, Mark.X), 112, 0, 113, 14, 114, 210, 115, 224);
+            int mv = new MonteCarloTreeSearch(pool, 200, 0, 0).chooseMove(p, 200);
+            assertTrue(mv == 111 || mv == 116, "expected a winning end, got " + mv);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void blocksOpponentsThree() {
+        // O has 0,1 on 4x4 k=3 and X has no threat of its own; X must block at 2
+        Position p = play(MnkBoard.initial(4, 4, 3, Mark.X), 15, 0, 9, 1);
+        assertEquals(2, new MonteCarloTreeSearch(null, 200, 20_000, 0).chooseMove(p, 2_000));
+    }
+
+    @Test
+    void iterationBudgetStopsBeforeTheClock() {
+        Position p = play(MnkBoard.initial(9, 9, 5, Mark.X), 40, 41);
+        MonteCarloTreeSearch.Result r = new MonteCarloTreeSearch(null, 10_000, 500, 0).search(p, 10_000);
+        assertEquals(500, r.playouts());
+        assertFalse(r.timedOut());
+        assertTrue(p.isLegal(r.bestMove()));
+    }
+
+    @Test
+    void nextSearchInTheSameGameStartsFromTheKeptSubtree() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            MonteCarloTreeSearch bot = new MonteCarloTreeSearch(pool, 100, 20_000, 16);
+            Position p = play(MnkBoard.initial(7, 7, 4, Mark.X), 24, 25);
+            MonteCarloTreeSearch.Result first = bot.search(p, 2_000);
+            assertEquals(0, first.reused());
+
+            // the most likely reply has been explored the most, so pick any legal one the tree knows
+            Position afterAi = p.apply(first.bestMove());
+            Position afterReply = afterAi.apply(firstLegalNear(afterAi, first.bestMove()));
+            MonteCarloTreeSearch.Result second = bot.search(afterReply, 2_000);
+            assertTrue(second.reused() > 0, "reply subtree was kept");
+            assertTrue(afterReply.isLegal(second.bestMove()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void keptSubtreeIsACopyCutToItsNodeBudgetNearestTheRootFirst() {
+        // 40 children, each with 40 children of its own: 1641 nodes
+        MonteCarloTreeSearch.Node root = new MonteCarloTreeSearch.Node(-1, SearchGrid.EMPTY);
+        root.children = new MonteCarloTreeSearch.Node[40];
+        for (int i = 0; i < 40; i++) {
+            MonteCarloTreeSearch.Node c = root.children[i] = new MonteCarloTreeSearch.Node(i, SearchGrid.X);
+            c.children = new MonteCarloTreeSearch.Node[40];
+            for (int j = 0; j < 40; j++) c.children[j] = new MonteCarloTreeSearch.Node(j, SearchGrid.O);
+        }
+        root.children[7].visit();
+        MonteCarloTreeSearch.Node kept = MonteCarloTreeSearch.prune(root);
+
+        int nodes = 1 + kept.children.length;
+        for (MonteCarloTreeSearch.Node c : kept.children) nodes += c.children == null ? 0 : c.children.length;
+        assertTrue(nodes <= MonteCarloTreeSearch.KEPT_NODES, nodes + " nodes kept");
+        assertEquals(40, kept.children.length, "the replies are all kept");
+        assertEquals(1, kept.children[7].visits(), "with what was learned about them");
+        assertNotNull(kept.children[0].children);
+        assertNull(kept.children[39].children);
+        for (MonteCarloTreeSearch.Node c : root.children) {
+            assertEquals(40, c.children.length, "searches still in the original tree lose nothing");
+        }
+    }
+
+    @Test
+    void emptyBoardShortcutIsCountedAsASearch() {
+        long searches = MonteCarloTreeSearch.STATS.time().count();
+        MonteCarloTreeSearch.Result r = new MonteCarloTreeSearch(null, 100, 0, 0)
+                .search(MnkBoard.initial(9, 9, 5, Mark.X), 100);
+        assertEquals(40, r.bestMove());
+        assertEquals(searches + 1, MonteCarloTreeSearch.STATS.time().count());
+    }
+
+    // A cell next to idx: inside the candidate radius, so the kept subtree has it
+    private static int firstLegalNear(Position p, int idx) {
+        int cols = p.cols();
+        for (int d : new int[] {1, -1, cols, -cols, cols + 1, cols - 1, -cols + 1, -cols - 1}) {
+            int c = idx + d;
+            if (c >= 0 && c < p.cellCount() && p.isLegal(c)) return c;
+        }
+        throw new AssertionError("no free neighbour");
+    }
+}
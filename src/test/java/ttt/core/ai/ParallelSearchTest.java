@@ -0,0 +1,106 @@
+package ttt.core.ai;
+
+import org.junit.jupiter.api.Test;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.MnkBoard;
+import ttt.core.Position;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSearchTest {
+
+    private static Position play(Position p, int... moves) {
+        for (int m : moves) p = p.apply(m);
+        return p;
+    }
+
+    @Test
+    void takesImmediateWinOnBigBoard() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // X has 112..115 in the middle row of 15x15 (k=5), O is in the corners
+            Position p = play(MnkBoard.initial(15, 15, 5, Mark.X), 112, 0, 113, 14, 114, 210, 115, 224);
+            int mv = new ParallelSearch(pool, 200, 64, false).chooseMove(p, 200);
+            assertTrue(mv == 111 || mv == 116, "expected a winning end, got " + mv);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void blocksOpponentsThree() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // O has 0,1 on 4x4 k=3 and X has no threat of its own; X must block at 2
+            Position p = play(MnkBoard.initial(4, 4, 3, Mark.X), 15, 0, 9, 1);
+            assertEquals(2, new ParallelSearch(pool, 200, 64, false).chooseMove(p, 200));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void reproducibleModeSameMoveOnAnyPoolSize() {
+        Position p = play(MnkBoard.initial(9, 9, 5, Mark.X), 40, 41, 30, 50, 32);
+        IterativeDeepening.Result ref = null;
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                ParallelSearch bot = new ParallelSearch(pool, 1, 3, true);
+                for (int run = 0; run < 3; run++) {
+                    IterativeDeepening.Result r = bot.search(p, 1); // 1ms budget is ignored
+                    assertEquals(3, r.depth());
+                    assertFalse(r.timedOut());
+                    if (ref == null) ref = r;
+                    assertEquals(ref.bestMove(), r.bestMove(), "threads=" + threads);
+                    assertEquals(ref.score(), r.score(), "threads=" + threads);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void agreesWithSerialSearchAtFixedDepth() {
+        // Same depth, same tie-break (lowest index among best scores) as a plain full-width search
+        Position p = play(MnkBoard.initial(5, 5, 4, Mark.X), 12, 6, 7, 17);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            IterativeDeepening.Result par = new ParallelSearch(pool, 1, 3, true).search(p, 1);
+            SearchGrid g = new SearchGrid(p, IterativeDeepening.radiusFor(p), true);
+            int bestScore = Integer.MIN_VALUE;
+            int bestMove = -1;
+            for (int mv = 0; mv < g.cells; mv++) {
+                if (!g.isCandidate(mv)) continue;
+                GridSearch s = new GridSearch(g, Long.MAX_VALUE, 0, null, 3);
+                int score = g.place(mv) ? GridSearch.WIN - 1
+                        : -s.negamax(2, 1, -GridSearch.WIN - 1, GridSearch.WIN + 1, false);
+                g.undo(mv);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = mv;
+                }
+            }
+            assertEquals(bestMove, par.bestMove());
+            assertEquals(bestScore, par.score());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void classicBoardAlsoWorks() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            // X X . / O O . / . . .  X to move wins at 2
+            Board b = Board.initial(Mark.X).apply(0).apply(3).apply(1).apply(4);
+            assertEquals(2, new ParallelSearch(pool, 100, 9, false).chooseMove(b));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ttt.core.ai;
+
+import org.junit.jupiter.api.Test;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.metrics.Metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchStatsTest {
+
+    private static final Board MID_GAME = Board.initial(Mark.X).apply(0).apply(4).apply(8);
+
+    @Test
+    void minimaxPublishesNodesPrunesAndMemoUseUnderItsDifficulty() {
+        SearchStats medium = SearchStats.named("medium");
+        long nodes = medium.nodes();
+        long prunes = medium.prunes();
+        long probes = medium.memoProbes();
+        long searches = medium.time().count();
+
+        new Minimax(Mark.O, true, 4, new TranspositionTable(1 << 10), "medium").chooseMove(MID_GAME);
+
+        assertTrue(medium.nodes() > nodes);
+        assertTrue(medium.prunes() > prunes);
+        assertTrue(medium.memoProbes() > probes);
+        assertTrue(medium.memoHits() <= medium.memoProbes());
+        assertEquals(searches + 1, medium.time().count());
+    }
+
+    @Test
+    void nothingIsRecordedWhileMetricsAreOff() {
+        SearchStats easy = SearchStats.named("easy");
+        long searches = easy.time().count();
+        long nodes = easy.nodes();
+        Metrics.enable(false);
+        try {
+            new Minimax(Mark.O, true, 2, null, "easy").chooseMove(MID_GAME);
+        } finally {
+            Metrics.enable(true);
+        }
+        assertEquals(searches, easy.time().count());
+        assertEquals(nodes, easy.nodes());
+    }
+}
@@ -0,0 +1,65 @@
+package ttt.core.ai;
+
+import org.junit.jupiter.api.Test;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.Rules;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolvedPositionTableTest {
+
+    private final SolvedPositionTable table = SolvedPositionTable.instance();
+
+    @Test
+    void emptyBoardIsADraw() {
+        assertEquals(SolvedPositionTable.DRAW, table.outcome(Board.initial(Mark.X)));
+        assertEquals(SolvedPositionTable.DRAW, table.outcome(Board.initial(Mark.O)));
+    }
+
+    @Test
+    void storesEveryReachablePosition() {
+        Set<Board> seen = new HashSet<>();
+        collect(Board.initial(Mark.X), seen);
+        collect(Board.initial(Mark.O), seen);
+        assertEquals(seen.size(), table.positions());
+        assertTrue(table.positions() < 2 * 6000, "3x3 has < 6k positions per starting side");
+    }
+
+    @Test
+    void agreesWithMinimaxHardOnEveryPosition() {
+        Set<Board> seen = new HashSet<>();
+        collect(Board.initial(Mark.X), seen);
+        collect(Board.initial(Mark.O), seen);
+        for (Board b : seen) {
+            if (Rules.isTerminal(b)) continue;
+            int tableMove = table.chooseMove(b);
+            int minimaxMove = Minimax.hard(b.toMove()).chooseMove(b);
+            assertTrue(b.isLegal(tableMove), "illegal table move on " + b);
+            // Both must keep the perfect-play value; ties between equally good moves are fine.
+            assertEquals(table.outcome(b), -table.outcome(b.apply(tableMove)), "table move on " + b);
+            assertEquals(table.outcome(b), -table.outcome(b.apply(minimaxMove)), "minimax move on " + b);
+        }
+    }
+
+    @Test
+    void takesImmediateWin() {
+        Board b = Board.initial(Mark.X)
+                .apply(0) // X
+                .apply(3) // O
+                .apply(1) // X
+                .apply(4); // O
+        assertEquals(2, table.chooseMove(b));
+        assertEquals(SolvedPositionTable.WIN, table.outcome(b));
+    }
+
+    private static void collect(Board b, Set<Board> seen) {
+        if (!seen.add(b) || Rules.isTerminal(b)) return;
+        for (int mv : b.legalMoves()) {
+            collect(b.apply(mv), seen);
+        }
+    }
+}
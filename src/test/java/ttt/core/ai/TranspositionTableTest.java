@@ -0,0 +1,52 @@
+package ttt.core.ai;
+
+import org.junit.jupiter.api.Test;
+import ttt.core.Board;
+import ttt.core.Mark;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    @Test
+    void storeThenProbeRoundTripsAllFields() {
+        TranspositionTable tt = new TranspositionTable(16);
+        int key = Board.initial(Mark.O).apply(4).packed();
+        tt.store(key, -1000, 7, TranspositionTable.UPPER, 8);
+
+        long e = tt.probe(key);
+        assertEquals(-1000, TranspositionTable.value(e));
+        assertEquals(7, TranspositionTable.depth(e));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(e));
+        assertEquals(8, TranspositionTable.move(e));
+        assertEquals(0L, tt.probe(Board.initial(Mark.X).packed()));
+        assertEquals(1, tt.stats().hits());
+        assertEquals(1, tt.stats().misses());
+    }
+
+    @Test
+    void deeperEntryStaysWhenBucketOverflows() {
+        TranspositionTable tt = new TranspositionTable(1); // every key lands in the same bucket
+        tt.store(1, 10, 9, TranspositionTable.EXACT, 0);
+        tt.store(2, 20, 3, TranspositionTable.EXACT, 0);
+        tt.store(3, 30, 2, TranspositionTable.EXACT, 0); // replaces key 2 in the always-replace slot
+
+        assertEquals(10, TranspositionTable.value(tt.probe(1)));
+        assertEquals(0L, tt.probe(2));
+        assertEquals(30, TranspositionTable.value(tt.probe(3)));
+        assertEquals(1, tt.stats().evictions());
+    }
+
+    @Test
+    void botsShareOneTable() {
+        TranspositionTable tt = new TranspositionTable(1 << 12);
+        Board b = Board.initial(Mark.X).apply(0);
+        new Minimax(Mark.O, true, 9, tt).chooseMove(b);
+        long storesAfterFirst = tt.stats().stores();
+        assertTrue(storesAfterFirst > 0);
+
+        long hitsBefore = tt.stats().hits();
+        new Minimax(Mark.O, true, 9, tt).chooseMove(b);
+        assertTrue(tt.stats().hits() > hitsBefore, "second bot should reuse the first bot's work");
+    }
+}
@@ -0,0 +1,44 @@
+package ttt.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+
+    @Test
+    void bucketsAreInclusiveAndExportedCumulatively() {
+        Histogram h = new Histogram(1, 2, 4);
+        h.record(1);
+        h.record(2);
+        h.record(3);
+        h.record(100); // overflow
+        assertEquals(4, h.count());
+        assertEquals(106, h.sum());
+
+        StringBuilder out = new StringBuilder();
+        h.writePrometheus(out, "depth", PrometheusText.label("kind", "easy"), 1);
+        assertEquals("""
+                depth_bucket{kind="easy",le="1"} 1
+                depth_bucket{kind="easy",le="2"} 2
+                depth_bucket{kind="easy",le="4"} 3
+                depth_bucket{kind="easy",le="+Inf"} 4
+                depth_sum{kind="easy"} 106
+                depth_count{kind="easy"} 4
+                """, out.toString());
+    }
+
+    @Test
+    void latencyIsExportedInSeconds() {
+        Histogram h = Histogram.latency();
+        h.record(1_500); // 1.5us -> the 2us bucket
+        String text = new PrometheusText().seconds("t", "", h).toString();
+        assertTrue(text.startsWith("t_bucket{le=\"1.0E-6\"} 0\nt_bucket{le=\"2.0E-6\"} 1\n"), text);
+        assertTrue(text.contains("t_sum 1.5E-6\n"), text);
+    }
+
+    @Test
+    void labelValuesAreEscaped() {
+        assertEquals("route=\"/a\\\"b\\\\c\"", PrometheusText.label("route", "/a\"b\\c"));
+    }
+}
@@ -0,0 +1,51 @@
+package ttt.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiWorkersTest {
+
+    @Test
+    void fullQueueIsShedWithRetryAfter() throws Exception {
+        AiWorkers workers = new AiWorkers(1, 1, 1500);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Integer> running = workers.submit(() -> {
+                started.countDown();
+                await(release);
+                return 1;
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Integer> queued = workers.submit(() -> 2);
+
+            OverloadedException e = assertThrows(OverloadedException.class, () -> workers.submit(() -> 3));
+            assertEquals(2, e.retryAfterSeconds(), "one 1.5s task queued on one worker");
+
+            AiWorkers.Stats s = workers.stats();
+            assertEquals(1, s.active());
+            assertEquals(1, s.queued());
+            assertEquals(1, s.rejected());
+
+            release.countDown();
+            assertEquals(1, running.get(5, TimeUnit.SECONDS).intValue());
+            assertEquals(2, queued.get(5, TimeUnit.SECONDS).intValue());
+        } finally {
+            release.countDown();
+            workers.close();
+        }
+    }
+
+    private static void await(CountDownLatch l) {
+        try {
+            l.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ttt.service;
+
+import org.junit.jupiter.api.Test;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.MnkBoard;
+import ttt.core.ai.Bot;
+import ttt.core.ai.IterativeDeepening;
+import ttt.core.ai.SolvedPositionTable;
+import ttt.domain.Difficulty;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BotRegistryTest {
+
+    private final Bot large = new IterativeDeepening(50, 0, 64);
+    private final BotRegistry bots = BotRegistry.standard(large, 50, 0).build();
+
+    @Test
+    void lookupsReturnTheSameSharedInstances() {
+        Board xToMove = Board.initial(Mark.X);
+        Board oToMove = xToMove.apply(4);
+        assertSame(SolvedPositionTable.instance(), bots.bot(Difficulty.HARD, xToMove));
+        assertSame(bots.bot(Difficulty.MEDIUM, xToMove), bots.bot(Difficulty.MEDIUM, xToMove.apply(0).apply(8)));
+        assertNotSame(bots.bot(Difficulty.MEDIUM, xToMove), bots.bot(Difficulty.MEDIUM, oToMove), "one Minimax per side");
+
+        MnkBoard big = MnkBoard.initial(9, 9, 5, Mark.X);
+        assertSame(large, bots.bot(Difficulty.HARD, big));
+        assertNotSame(large, bots.bot(Difficulty.EASY, big));
+    }
+
+    @Test
+    void registrationsReplaceTheStandardOnesAndGapsAreRejected() {
+        Bot fixed = board -> board.emptyMask() == 0 ? -1 : Integer.numberOfTrailingZeros(board.emptyMask());
+        BotRegistry custom = BotRegistry.standard(large, 50, 0)
+                .register(Difficulty.EASY, BotRegistry.Shape.CLASSIC, fixed)
+                .build();
+        assertSame(fixed, custom.bot(Difficulty.EASY, Board.initial(Mark.O)));
+
+        var partial = BotRegistry.builder().register(Difficulty.HARD, BotRegistry.Shape.CLASSIC, fixed);
+        assertThrows(IllegalStateException.class, partial::build);
+    }
+}
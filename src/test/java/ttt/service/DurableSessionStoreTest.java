@@ -0,0 +1,254 @@
+package ttt.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.MnkBoard;
+import ttt.core.MoveHistory;
+import ttt.core.Position;
+import ttt.domain.Difficulty;
+import ttt.domain.GameSession;
+import ttt.domain.Mode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableSessionStoreTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @TempDir
+    Path dir;
+
+    private final Clock clock = Clock.fixed(Instant.ofEpochMilli(1_700_000_000_123L), ZoneOffset.UTC);
+
+    // syncMillis 0: every change is on disk when the call returns, so "crashing" is just not closing
+    private DurableSessionStore open() throws IOException {
+        return new DurableSessionStore(new InMemorySessionStore(TTL, 100, Duration.ZERO, clock), dir, 0,
+                Duration.ZERO, clock);
+    }
+
+    private DurableSessionStore openPacked() throws IOException {
+        var packed = new PackedSessionStore(TTL, 100, Duration.ZERO, clock,
+                new InMemorySessionStore(TTL, 100, Duration.ZERO, clock));
+        return new DurableSessionStore(packed, dir, 0, Duration.ZERO, clock);
+    }
+
+    private static void play(SessionStore store, GameSession s, int... cells) {
+        GameSession cur = store.get(s.id());
+        Position b = cur.board();
+        MoveHistory h = cur.state().history();
+        for (int c : cells) {
+            b = b.apply(c);
+            h = h.play(c);
+        }
+        assertTrue(store.update(cur, cur.state(), b, h));
+    }
+
+    private static void undo(SessionStore store, GameSession s, int plies) {
+        GameSession cur = store.get(s.id());
+        MoveHistory h = cur.state().history();
+        assertTrue(store.update(cur, cur.state(), h.board(cur.board(), h.ply() - plies), h.at(h.ply() - plies)));
+    }
+
+    private static void redo(SessionStore store, GameSession s) {
+        GameSession cur = store.get(s.id());
+        MoveHistory h = cur.state().history();
+        assertTrue(store.update(cur, cur.state(), h.board(cur.board(), h.ply() + 1), h.redo()));
+    }
+
+    private static void assertSameGame(GameSession want, GameSession got) {
+        assertNotNull(got, "game " + want.id() + " came back");
+        assertEquals(want.board(), got.board());
+        assertEquals(want.version(), got.version());
+        assertEquals(want.mode(), got.mode());
+        assertEquals(want.aiPlays(), got.aiPlays());
+        assertEquals(want.difficulty(), got.difficulty());
+        assertEquals(want.createdAt(), got.createdAt());
+        assertEquals(want.state().history(), got.state().history());
+    }
+
+    @Test
+    void logAloneBringsBackGamesAfterACrash() throws IOException {
+        DurableSessionStore before = open();
+        GameSession classic = before.create(Board.initial(Mark.O), Mode.PVE, Mark.X, Difficulty.MEDIUM);
+        play(before, classic, 4);
+        play(before, classic, 0, 8); // a /turn: the move and the AI's reply in one update
+        GameSession mnk = before.create(MnkBoard.initial(7, 7, 4, Mark.X), Mode.PVP, null, Difficulty.HARD);
+        play(before, mnk, 24);
+        play(before, mnk, 25);
+        GameSession gone = before.create(Board.initial(Mark.X), Mode.PVP, null);
+        before.remove(gone.id());
+
+        DurableSessionStore after = open();
+        assertSameGame(before.get(classic.id()), after.get(classic.id()));
+        assertSameGame(before.get(mnk.id()), after.get(mnk.id()));
+        assertNull(after.get(gone.id()));
+        assertEquals(2, after.stats().live());
+        assertEquals(0, after.recovery().snapshotGames());
+        assertEquals(8, after.recovery().logRecords());
+
+        play(after, classic, 2); // and play on
+        assertEquals(3, after.get(classic.id()).version());
+    }
+
+    @Test
+    void gamesRestoredIntoItAreOnDiskOnceRestoredReturns() throws IOException {
+        var elsewhere = new InMemorySessionStore(TTL, 100, Duration.ZERO, clock);
+        GameSession game = elsewhere.create(MnkBoard.initial(5, 5, 4, Mark.X), Mode.PVP, null, Difficulty.HARD);
+        play(elsewhere, game, 12, 13);
+        undo(elsewhere, game, 1);
+
+        DurableSessionStore before = open();
+        before.restore(elsewhere.get(game.id()));
+        before.restored();
+
+        DurableSessionStore after = open(); // no close: only what restored() wrote
+        assertSameGame(elsewhere.get(game.id()), after.get(game.id()));
+        assertEquals(1, after.recovery().snapshotGames());
+    }
+
+    @Test
+    void snapshotDropsTheLogItCoversAndRecoveryAddsWhatCameAfter() throws IOException {
+        DurableSessionStore before = open();
+        GameSession a = before.create(Board.initial(Mark.X), Mode.PVE, Mark.O, Difficulty.EASY);
+        GameSession b = before.create(MnkBoard.initial(15, 15, 5, Mark.X), Mode.PVE, Mark.O, Difficulty.HARD);
+        play(before, a, 4, 0);
+        play(before, b, 112, 113);
+        List<Long> old = WriteAheadLog.segments(dir);
+
+        assertEquals(2, before.snapshot());
+        for (long seq : old) assertFalse(Files.exists(WriteAheadLog.path(dir, seq)), "segment " + seq + " kept");
+        play(before, a, 8, 2);
+        GameSession c = before.create(Board.initial(Mark.X), Mode.PVP, null);
+        before.remove(b.id());
+
+        DurableSessionStore after = open();
+        assertEquals(2, after.recovery().snapshotGames());
+        assertEquals(3, after.recovery().logRecords());
+        assertSameGame(before.get(a.id()), after.get(a.id()));
+        assertSameGame(before.get(c.id()), after.get(c.id()));
+        assertNull(after.get(b.id()));
+    }
+
+    @Test
+    void closeLeavesOnlyASnapshotToLoad() throws IOException {
+        DurableSessionStore before = open();
+        GameSession a = before.create(Board.initial(Mark.X), Mode.PVP, null);
+        play(before, a, 0);
+        GameSession want = before.get(a.id());
+        before.close();
+
+        DurableSessionStore after = open();
+        assertEquals(1, after.recovery().snapshotGames());
+        assertEquals(0, after.recovery().logRecords());
+        assertSameGame(want, after.get(a.id()));
+    }
+
+    @Test
+    void recordCutOffByACrashIsIgnored() throws IOException {
+        DurableSessionStore before = open();
+        GameSession a = before.create(Board.initial(Mark.X), Mode.PVP, null);
+        play(before, a, 4);
+        List<Long> segments = WriteAheadLog.segments(dir);
+        Path last = WriteAheadLog.path(dir, segments.get(segments.size() - 1));
+        Files.write(last, new byte[WriteAheadLog.RECORD_BYTES - 5], StandardOpenOption.APPEND);
+
+        DurableSessionStore after = open();
+        assertEquals(2, after.recovery().logRecords());
+        assertSameGame(before.get(a.id()), after.get(a.id()));
+    }
+
+    @Test
+    void packedGamesKeepTheirIdsAndFreeSlotsAreReused() throws IOException {
+        DurableSessionStore before = openPacked();
+        GameSession a = before.create(Board.initial(Mark.X), Mode.PVE, Mark.O, Difficulty.MEDIUM);
+        GameSession b = before.create(Board.initial(Mark.X), Mode.PVP, null);
+        GameSession c = before.create(Board.initial(Mark.O), Mode.PVE, Mark.X, Difficulty.EASY);
+        play(before, c, 4, 0);
+        before.remove(b.id());
+        GameSession wantA = before.get(a.id());
+        GameSession wantC = before.get(c.id());
+        before.close();
+
+        DurableSessionStore after = openPacked();
+        assertEquals(wantA.board(), after.get(a.id()).board());
+        assertEquals(wantC.board(), after.get(c.id()).board());
+        assertEquals(1, after.get(c.id()).version());
+        assertEquals(Difficulty.EASY, after.get(c.id()).difficulty());
+        assertNull(after.get(b.id()));
+
+        GameSession d = after.create(Board.initial(Mark.X), Mode.PVP, null);
+        assertEquals(b.id().getMostSignificantBits(), d.id().getMostSignificantBits(), "the freed slot comes back first");
+        assertNotNull(after.get(a.id()), "and no live game is overwritten");
+    }
+
+    @Test
+    void undoAndRedoSurviveTheLogAndTheSnapshot() throws IOException {
+        DurableSessionStore before = open();
+        GameSession classic = before.create(Board.initial(Mark.X), Mode.PVE, Mark.O, Difficulty.HARD);
+        play(before, classic, 4, 0);
+        play(before, classic, 8, 2);
+        undo(before, classic, 2);
+        GameSession mnk = before.create(MnkBoard.initial(9, 9, 5, Mark.X), Mode.PVP, null, Difficulty.HARD);
+        play(before, mnk, 40);
+        play(before, mnk, 41);
+        play(before, mnk, 42);
+        undo(before, mnk, 2);
+        redo(before, mnk);
+
+        DurableSessionStore fromLog = open();
+        assertSameGame(before.get(classic.id()), fromLog.get(classic.id()));
+        assertSameGame(before.get(mnk.id()), fromLog.get(mnk.id()));
+        assertEquals(2, fromLog.get(classic.id()).state().history().ply());
+        assertEquals(4, fromLog.get(classic.id()).state().history().length(), "the undone moves can still be redone");
+        fromLog.close();
+
+        DurableSessionStore fromSnapshot = open();
+        assertEquals(0, fromSnapshot.recovery().logRecords());
+        assertSameGame(before.get(classic.id()), fromSnapshot.get(classic.id()));
+        assertSameGame(before.get(mnk.id()), fromSnapshot.get(mnk.id()));
+        redo(fromSnapshot, classic);
+        assertEquals(Board.initial(Mark.X).apply(4).apply(0).apply(8), fromSnapshot.get(classic.id()).board());
+    }
+
+    @Test
+    void aClosedLogRefusesChangesBeforeTheStoreMakesThem() throws IOException {
+        var inner = new InMemorySessionStore(TTL, 100, Duration.ZERO, clock);
+        DurableSessionStore store = new DurableSessionStore(inner, dir, 0, Duration.ZERO, clock);
+        GameSession s = store.create(Board.initial(Mark.X), Mode.PVP, null);
+        store.close();
+        GameSession cur = inner.get(s.id());
+        assertThrows(IllegalStateException.class,
+                () -> store.update(cur, cur.state(), cur.board().apply(4), cur.state().history().play(4)));
+        assertEquals(0, inner.get(s.id()).version(), "the move didn't happen");
+    }
+
+    @Test
+    void changesThatAreNotMovesAreRejectedBeforeTheStoreSeesThem() throws IOException {
+        DurableSessionStore store = open();
+        GameSession s = store.create(Board.initial(Mark.X), Mode.PVP, null);
+        play(store, s, 0);
+        GameSession cur = store.get(s.id());
+        MoveHistory h = cur.state().history();
+        assertThrows(IllegalArgumentException.class,
+                () -> store.update(cur, cur.state(), cur.board(), h), "nothing changed");
+        assertThrows(IllegalArgumentException.class,
+                () -> store.update(cur, cur.state(), cur.board().apply(1).apply(2).apply(3),
+                        h.play(1).play(2).play(3)), "three stones");
+        assertThrows(IllegalArgumentException.class,
+                () -> store.update(cur, cur.state(), Board.initial(Mark.X).apply(5).apply(1),
+                        MoveHistory.of(cur.board(), new int[]{5, 1}, 2)), "a different past");
+        assertEquals(1, store.get(s.id()).version());
+    }
+}
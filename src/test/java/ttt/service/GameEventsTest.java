@@ -0,0 +1,163 @@
+package ttt.service;
+
+import org.junit.jupiter.api.Test;
+import ttt.api.dto.GameDelta;
+import ttt.api.dto.GameStateDTO;
+import ttt.core.ai.IterativeDeepening;
+import ttt.domain.GameSession;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEventsTest {
+
+    private final InMemorySessionStore store =
+            new InMemorySessionStore(Duration.ofMinutes(10), 1000, Duration.ZERO, Clock.systemUTC());
+    private final GameService svc = new GameService(100, 2000,
+            BotRegistry.standard(new IterativeDeepening(100, 0, 64), 100, 0).build(), store,
+            new AiWorkers(1, 1, 100));
+
+    // Records what a client would see
+    private static class Recorder implements GameEvents.Sink {
+        final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void send(String event, Object data) {
+            events.add(data);
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        Object next() throws InterruptedException {
+            Object e = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(e, "no event within 5s");
+            return e;
+        }
+    }
+
+    @Test
+    void subscriberGetsStateThenOneDeltaPerChange() throws Exception {
+        try (GameEvents events = new GameEvents(svc, 8, Duration.ofMinutes(1))) {
+            GameStateDTO g = svc.createGame("PVE", "O", null, null);
+            Recorder client = new Recorder();
+            events.subscribe(g.gameId(), client);
+            assertEquals(g, client.next());
+
+            svc.playTurn(g.gameId(), 0, 0L, null); // X at 0, the solved table answers at 4
+            GameDelta d = (GameDelta) client.next();
+            assertEquals(1, d.version());
+            assertArrayEquals(new int[]{0, 4}, d.cells());
+            assertEquals("XO", d.marks());
+            assertEquals("X", d.toMove());
+            assertEquals("IN_PROGRESS", d.status());
+            assertEquals(1, events.stats().subscribers());
+        }
+    }
+
+    @Test
+    void unknownGameRegistersNothing() {
+        try (GameEvents events = new GameEvents(svc, 8, Duration.ofMinutes(1))) {
+            assertThrows(NotFoundException.class,
+                    () -> events.subscribe("00000000-0000-0000-0000-000000000000", new Recorder()));
+            assertEquals(0, events.stats().subscribers());
+        }
+    }
+
+    @Test
+    void slowConsumerIsClosedWhenItsBufferFills() throws Exception {
+        try (GameEvents events = new GameEvents(svc, 2, Duration.ofMinutes(1))) {
+            GameStateDTO g = svc.createGame("PVP", null, null, null);
+            CountDownLatch stuck = new CountDownLatch(1);
+            Recorder slow = new Recorder() {
+                @Override
+                public void send(String event, Object data) {
+                    if (data instanceof GameDelta) {
+                        try {
+                            stuck.await(); // a client that stopped reading
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            };
+            Recorder fast = new Recorder();
+            events.subscribe(g.gameId(), slow);
+            events.subscribe(g.gameId(), fast);
+
+            fast.next(); // state
+            // one delta stuck in flight to the slow client, two queued, the next one overflows;
+            // the fast client keeps up and gets every one
+            for (int cell : List.of(0, 1, 2, 3, 4)) {
+                GameStateDTO after = svc.playHumanMove(g.gameId(), cell, null);
+                assertEquals(after.version(), ((GameDelta) fast.next()).version());
+            }
+            assertTrue(slow.closed.await(5, TimeUnit.SECONDS));
+            stuck.countDown();
+            assertEquals(1, events.stats().dropped());
+            assertEquals(1, events.stats().subscribers());
+        }
+    }
+
+    @Test
+    void deltaThatOvertakesAnEarlierOneSendsTheWholeStateInstead() throws Exception {
+        try (GameEvents events = new GameEvents(svc, 8, Duration.ofMinutes(1))) {
+            GameStateDTO g = svc.createGame("PVP", null, null, null);
+            Recorder client = new Recorder();
+            events.subscribe(g.gameId(), client);
+            client.next(); // state at version 0
+
+            // two moves land, but the second one's change is the first to be heard of
+            GameSession s = store.get(UUID.fromString(g.gameId()));
+            GameSession.State v0 = s.state();
+            assertTrue(store.update(s, v0, v0.board().apply(0), v0.history().play(0)));
+            GameSession.State v1 = s.state();
+            assertTrue(store.update(s, v1, v1.board().apply(4), v1.history().play(4)));
+            events.changed(s, v1, s.state());
+            events.changed(s, v0, v1);
+
+            GameStateDTO resync = (GameStateDTO) client.next();
+            assertEquals(2, resync.version());
+            svc.playHumanMove(g.gameId(), 8, null);
+            assertEquals(3, ((GameDelta) client.next()).version(), "the late delta was skipped");
+        }
+    }
+
+    @Test
+    void clientThatStopsReadingIsClosedAfterTheWriteTimeout() throws Exception {
+        try (GameEvents events = new GameEvents(svc, 8, Duration.ofMillis(100))) {
+            GameStateDTO g = svc.createGame("PVP", null, null, null);
+            CountDownLatch stuck = new CountDownLatch(1);
+            Recorder slow = new Recorder() {
+                @Override
+                public void send(String event, Object data) {
+                    if (data instanceof GameDelta) {
+                        try {
+                            stuck.await(); // a write the client never takes
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            };
+            events.subscribe(g.gameId(), slow);
+
+            svc.playHumanMove(g.gameId(), 0, null); // one delta, well inside the buffer
+            assertTrue(slow.closed.await(5, TimeUnit.SECONDS));
+            stuck.countDown();
+            assertEquals(1, events.stats().dropped());
+            assertEquals(0, events.stats().subscribers());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ttt.service;
+
+import org.junit.jupiter.api.Test;
+import ttt.api.dto.GameStateDTO;
+import ttt.core.GameResult;
+import ttt.core.ai.IterativeDeepening;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameMetricsTest {
+
+    private final GameService svc = new GameService(100, 2000,
+            BotRegistry.standard(new IterativeDeepening(100, 0, 64), 100, 0).build(),
+            new InMemorySessionStore(Duration.ofMinutes(10), 1000, Duration.ZERO, Clock.systemUTC()),
+            new AiWorkers(1, 1, 100));
+    private final GameMetrics metrics = new GameMetrics(svc);
+
+    @Test
+    void redoingIntoAnEndAlreadyCountedIsNotAnotherFinish() {
+        String id = svc.createGame("PVP", null, null, null).gameId();
+        for (int cell : new int[]{0, 3, 1, 4, 2}) svc.playHumanMove(id, cell, null); // X takes the top row
+        assertEquals(1, metrics.finished(GameResult.X_WIN));
+
+        svc.undo(id, null);
+        GameStateDTO again = svc.redo(id, null);
+        assertEquals("X_WIN", again.status());
+        svc.undo(id, null);
+        svc.playHumanMove(id, 2, null); // the same move as the one undone
+        assertEquals(1, metrics.finished(GameResult.X_WIN));
+
+        svc.undo(id, null);
+        svc.playHumanMove(id, 8, null);
+        svc.playHumanMove(id, 5, null); // O takes the middle row instead: a new ending
+        assertEquals(1, metrics.finished(GameResult.O_WIN));
+        assertEquals(12, metrics.changes(), "every change is still counted");
+    }
+}
@@ -0,0 +1,232 @@
+package ttt.service;
+
+import org.junit.jupiter.api.Test;
+import ttt.api.dto.GameStateDTO;
+import ttt.api.dto.TurnResponse;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.ai.IterativeDeepening;
+import ttt.domain.Difficulty;
+import ttt.domain.GameSession;
+import ttt.domain.Mode;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameServiceTest {
+
+    private final GameService svc = new GameService(100, 2000,
+            BotRegistry.standard(new IterativeDeepening(100, 0, 64), 100, 0).build(),
+            new InMemorySessionStore(Duration.ofMinutes(10), 1000, Duration.ZERO, Clock.systemUTC()),
+            new AiWorkers(1, 1, 100));
+
+    @Test
+    void staleExpectedVersionIsRejected() {
+        GameStateDTO g = svc.createGame("PVP", null, null, null);
+        assertEquals(0, g.version());
+        GameStateDTO after = svc.playHumanMove(g.gameId(), 4, 0L);
+        assertEquals(1, after.version());
+
+        assertThrows(ConflictException.class, () -> svc.playHumanMove(g.gameId(), 0, 0L));
+        assertEquals("....X....", svc.getState(g.gameId()).board());
+        assertEquals(2, svc.playHumanMove(g.gameId(), 0, 1L).version());
+    }
+
+    @Test
+    void asyncAiMoveRunsOnThePoolForBigBoards() throws Exception {
+        GameStateDTO g = svc.createGame("PVE", "X", 9, 5);
+        GameStateDTO after = svc.playAiMoveAsync(g.gameId(), 20L).get(5, TimeUnit.SECONDS);
+        assertEquals(1, after.version());
+        assertEquals(40, after.board().indexOf('X'), "first stone in the centre");
+
+        GameStateDTO small = svc.createGame("PVE", "X", null, null);
+        CompletableFuture<Integer> hint = svc.hintAsync(small.gameId(), null);
+        assertTrue(hint.isDone(), "3x3 answers without queueing");
+    }
+
+    @Test
+    void turnAppliesHumanMoveAndAiReplyTogether() {
+        GameStateDTO g = svc.createGame("PVE", "O", null, null);
+        TurnResponse t = svc.playTurn(g.gameId(), 0, 0L, null);
+        assertEquals(0, t.humanMove());
+        assertEquals(Integer.valueOf(4), t.aiMove(), "perfect reply to a corner opening is the centre");
+        assertEquals("X...O....", t.state().board());
+        assertEquals("X", t.state().toMove());
+        assertEquals(1, t.state().version());
+
+        assertThrows(ConflictException.class, () -> svc.playTurn(g.gameId(), 1, 0L, null));
+    }
+
+    @Test
+    void difficultyIsChosenPerGame() {
+        GameStateDTO easy = svc.createGame("PVE", "O", null, null, "EASY");
+        assertEquals("EASY", easy.difficulty());
+        assertEquals("HARD", svc.createGame("PVE", "O", null, null).difficulty(), "default");
+        assertEquals("", svc.createGame("PVP", null, null, null, "MEDIUM").difficulty(), "no AI in PVP");
+
+        // every level answers with a legal move, on both board shapes
+        for (String level : new String[] {"EASY", "MEDIUM", "HARD"}) {
+            for (Integer size : new Integer[] {null, 7}) {
+                GameStateDTO g = svc.createGame("PVE", "X", size, null, level);
+                GameStateDTO after = svc.playAiMove(g.gameId(), 20L);
+                assertEquals(1, after.board().chars().filter(c -> c == 'X').count(), level + " " + size);
+            }
+        }
+    }
+
+    @Test
+    void turnSkipsAiReplyOnceGameIsOverAndInPvp() {
+        GameStateDTO g = svc.createGame("PVE", "O", null, null);
+        TurnResponse t;
+        do {
+            t = svc.playTurn(g.gameId(), firstFree(svc.getState(g.gameId()).board()), null, null);
+            if (t.aiMove() == null) assertNotEquals("IN_PROGRESS", t.state().status());
+        } while (t.state().status().equals("IN_PROGRESS"));
+
+        GameStateDTO pvp = svc.createGame("PVP", null, null, null);
+        TurnResponse p = svc.playTurn(pvp.gameId(), 4, null, null);
+        assertNull(p.aiMove());
+        assertEquals("O", p.state().toMove());
+    }
+
+    @Test
+    void undoInPveTakesBackTheReplyTooAndRedoPlaysBoth() {
+        GameStateDTO g = svc.createGame("PVE", "O", null, null);
+        svc.playTurn(g.gameId(), 0, null, null); // X 0, O 4
+        GameStateDTO two = svc.playTurn(g.gameId(), 8, null, null).state();
+        assertEquals(4, two.ply());
+
+        GameStateDTO undone = svc.undo(g.gameId(), two.version());
+        assertEquals("X...O....", undone.board());
+        assertEquals("X", undone.toMove());
+        assertEquals(2, undone.ply());
+        assertEquals(2, undone.redo());
+        assertEquals(two.version() + 1, undone.version(), "one change for both plies");
+        assertThrows(ConflictException.class, () -> svc.undo(g.gameId(), two.version()));
+
+        assertEquals(two.board(), svc.redo(g.gameId(), null).board());
+        svc.undo(g.gameId(), null);
+        svc.undo(g.gameId(), null);
+        assertThrows(BadRequestException.class, () -> svc.undo(g.gameId(), null), "back at the start");
+
+        // a different move drops what could have been redone
+        GameStateDTO other = svc.playTurn(g.gameId(), 2, null, null).state();
+        assertEquals(0, other.redo());
+        assertThrows(BadRequestException.class, () -> svc.redo(g.gameId(), null));
+    }
+
+    @Test
+    void aiOpeningMoveAloneIsNotUndone() {
+        GameStateDTO g = svc.createGame("PVE", "X", null, null);
+        svc.playAiMove(g.gameId(), null);
+        assertThrows(BadRequestException.class, () -> svc.undo(g.gameId(), null));
+    }
+
+    @Test
+    void replayRebuildsAnyPlyWithoutChangingTheGame() {
+        GameStateDTO g = svc.createGame("PVP", null, 7, 4);
+        int[] cells = {24, 25, 17, 31, 10};
+        for (int c : cells) svc.playHumanMove(g.gameId(), c, null);
+        svc.undo(g.gameId(), null);
+        GameStateDTO now = svc.view(g.gameId(), true).state();
+        assertArrayEquals(cells, now.moves());
+        assertEquals(4, now.ply());
+        assertNull(svc.getState(g.gameId()).moves(), "only when asked for");
+
+        GameStateDTO start = svc.replay(g.gameId(), 0);
+        assertEquals(".".repeat(49), start.board());
+        assertEquals(0, start.ply());
+        GameStateDTO end = svc.replay(g.gameId(), 5);
+        assertEquals('X', end.board().charAt(10), "the undone move is in the replay");
+        assertEquals(now.version(), end.version());
+        assertEquals(4, svc.getState(g.gameId()).ply(), "replays leave the game where it was");
+        assertThrows(BadRequestException.class, () -> svc.replay(g.gameId(), 6));
+    }
+
+    private static int firstFree(String board) {
+        return board.indexOf('.');
+    }
+
+    @Test
+    void missingOrMalformedIdIsNotFound() {
+        // batch items are parsed leniently, so the id can arrive null
+        assertThrows(NotFoundException.class, () -> svc.getState(null));
+        assertThrows(NotFoundException.class, () -> svc.playHumanMove("not-a-uuid", 0, null));
+    }
+
+    @Test
+    void unchangedReadsReuseTheCachedViewUntilTheNextMove() {
+        GameStateDTO g = svc.createGame("PVP", null, null, null);
+        GameService.View first = svc.view(g.gameId());
+        assertSame(first, svc.view(g.gameId()));
+        assertEquals("W/\"0\"", first.etag());
+
+        svc.playHumanMove(g.gameId(), 4, null);
+        GameService.View moved = svc.view(g.gameId());
+        assertEquals("W/\"1\"", moved.etag());
+        assertEquals("W/\"1-m\"", svc.view(g.gameId(), true).etag(), "the move list is another representation");
+        assertEquals("....X....", moved.state().board());
+
+        // 3x3 board strings come from one shared table
+        GameStateDTO other = svc.createGame("PVP", null, null, null);
+        assertSame(moved.state().board(), svc.playHumanMove(other.gameId(), 4, null).board());
+        assertEquals("O...X....", svc.playHumanMove(other.gameId(), 0, null).board());
+    }
+
+    @Test
+    void viewIsCachedEvenWhenTheStoreHandsOutAFreshSessionPerRead() {
+        Duration ttl = Duration.ofMinutes(10);
+        GameService packed = new GameService(100, 2000,
+                BotRegistry.standard(new IterativeDeepening(100, 0, 64), 100, 0).build(),
+                new PackedSessionStore(ttl, 1000, Duration.ZERO, Clock.systemUTC(),
+                        new InMemorySessionStore(ttl, 1000, Duration.ZERO, Clock.systemUTC())),
+                new AiWorkers(1, 1, 100));
+        GameStateDTO g = packed.createGame("PVP", null, null, null);
+        assertSame(packed.view(g.gameId()), packed.view(g.gameId()));
+    }
+
+    @Test
+    void gameAtTheLastVersionRefusesChangesInsteadOfWrapping() {
+        var store = new InMemorySessionStore(Duration.ofMinutes(10), 10, Duration.ZERO, Clock.systemUTC());
+        GameService service = new GameService(100, 2000,
+                BotRegistry.standard(new IterativeDeepening(100, 0, 64), 100, 0).build(), store,
+                new AiWorkers(1, 1, 100));
+        var last = new GameSession(UUID.randomUUID(), new GameSession.State(Board.initial(Mark.X),
+                SessionStore.MAX_VERSION), Mode.PVP, null, Difficulty.HARD, Instant.now());
+        store.put(last);
+
+        assertThrows(ConflictException.class, () -> service.playHumanMove(last.idString(), 4, null));
+        assertEquals(SessionStore.MAX_VERSION, service.getState(last.idString()).version());
+    }
+
+    @Test
+    void racingClientsOnSameVersionOnlyOneWins() throws Exception {
+        GameStateDTO g = svc.createGame("PVP", null, null, null);
+        AtomicInteger won = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int cell = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    svc.playHumanMove(g.gameId(), cell, 0L);
+                    won.incrementAndGet();
+                } catch (ConflictException e) {
+                    conflicts.incrementAndGet();
+                }
+            });
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        assertEquals(1, won.get());
+        assertEquals(7, conflicts.get());
+        assertEquals(1, svc.getState(g.gameId()).version());
+    }
+}
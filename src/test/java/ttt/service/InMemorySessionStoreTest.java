@@ -0,0 +1,125 @@
+package ttt.service;
+
+import org.junit.jupiter.api.Test;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.MnkBoard;
+import ttt.domain.GameSession;
+import ttt.domain.Mode;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemorySessionStoreTest {
+
+    /** Clock the test moves by hand. */
+    private static final class TestClock extends Clock {
+        long millis = 1_000_000;
+        @Override public ZoneId getZone() { return ZoneId.of("UTC"); }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(millis); }
+        @Override public long millis() { return millis; }
+    }
+
+    private final TestClock clock = new TestClock();
+
+    private InMemorySessionStore store(int max) {
+        return new InMemorySessionStore(Duration.ofMinutes(10), max, Duration.ZERO, clock);
+    }
+
+    private static GameSession session() {
+        return new GameSession(UUID.randomUUID(), Board.initial(Mark.X), Mode.PVP, null);
+    }
+
+    @Test
+    void idleSessionsExpire() {
+        InMemorySessionStore store = store(100);
+        GameSession used = session();
+        GameSession idle = session();
+        store.put(used);
+        store.put(idle);
+
+        clock.millis += Duration.ofMinutes(6).toMillis();
+        assertSame(used, store.get(used.id())); // touching resets its idle time
+        clock.millis += Duration.ofMinutes(6).toMillis();
+
+        assertNull(store.get(idle.id()));
+        assertSame(used, store.get(used.id()));
+        assertEquals(1, store.stats().expired());
+
+        clock.millis += Duration.ofMinutes(11).toMillis();
+        store.sweep();
+        assertEquals(0, store.stats().live());
+        assertEquals(2, store.stats().expired());
+        assertEquals(0, store.stats().estimatedBytes());
+    }
+
+    @Test
+    void overCapDropsLeastRecentlyUsed() {
+        InMemorySessionStore store = store(3);
+        GameSession[] s = new GameSession[4];
+        for (int i = 0; i < 3; i++) {
+            s[i] = session();
+            store.put(s[i]);
+            clock.millis += 1000;
+        }
+        store.get(s[0].id()); // s[1] is now the least recently used
+        clock.millis += 1000;
+        s[3] = session();
+        store.put(s[3]);
+
+        assertEquals(3, store.stats().live());
+        assertEquals(1, store.stats().evicted());
+        assertNull(store.get(s[1].id()));
+        assertNotNull(store.get(s[0].id()));
+        assertNotNull(store.get(s[2].id()));
+        assertNotNull(store.get(s[3].id()));
+    }
+
+    @Test
+    void fullStoreTrimsBelowTheCapSoItDoesNotSweepOnEveryPut() {
+        InMemorySessionStore store = store(200);
+        GameSession last = null;
+        for (int i = 0; i < 201; i++) {
+            last = session();
+            store.put(last);
+            clock.millis += 1000;
+        }
+        assertEquals(3, store.stats().evicted(), "one over the cap plus 1% of it");
+        assertEquals(198, store.stats().live());
+        assertNotNull(store.get(last.id()), "the newest game stays");
+    }
+
+    @Test
+    void moveOnAnEvictedSessionIsNotReportedAsApplied() {
+        InMemorySessionStore store = store(1);
+        GameSession evicted = session();
+        store.put(evicted);
+        clock.millis += 1000;
+        store.put(session()); // over the cap: the older one goes
+
+        assertNull(store.get(evicted.id()));
+        assertFalse(store.update(evicted, evicted.state(), evicted.board().apply(0),
+                evicted.state().history().play(0)), "the move went with the game");
+    }
+
+    @Test
+    void bytesFollowLiveSessions() {
+        InMemorySessionStore store = store(100);
+        GameSession small = session();
+        GameSession big = new GameSession(UUID.randomUUID(), MnkBoard.initial(15, 15, 5, Mark.X), Mode.PVP, null);
+        store.put(small);
+        store.put(big);
+        long both = store.stats().estimatedBytes();
+        assertTrue(both > 2 * InMemorySessionStore.estimateBytes(small));
+
+        store.remove(big.id());
+        assertEquals(InMemorySessionStore.estimateBytes(small), store.stats().estimatedBytes());
+        assertEquals(0, store.stats().evicted(), "explicit removes are not evictions");
+    }
+}
@@ -0,0 +1,239 @@
+package ttt.service;
+
+import org.junit.jupiter.api.Test;
+import ttt.core.Board;
+import ttt.core.Mark;
+import ttt.core.MnkBoard;
+import ttt.domain.Difficulty;
+import ttt.domain.GameSession;
+import ttt.domain.Mode;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedSessionStoreTest {
+
+    private static final class TestClock extends Clock {
+        volatile long millis = 5_000_000;
+        @Override public ZoneId getZone() { return ZoneId.of("UTC"); }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(millis); }
+        @Override public long millis() { return millis; }
+    }
+
+    private final TestClock clock = new TestClock();
+
+    private PackedSessionStore store(int max) {
+        Duration ttl = Duration.ofMinutes(10);
+        return new PackedSessionStore(ttl, max, Duration.ZERO, clock,
+                new InMemorySessionStore(ttl, max, Duration.ZERO, clock));
+    }
+
+    @Test
+    void roundTripsEveryField() {
+        PackedSessionStore store = store(10);
+        Board b = Board.initial(Mark.O).apply(4).apply(0);
+        GameSession s = store.create(b, Mode.PVE, Mark.X, Difficulty.MEDIUM);
+
+        GameSession back = store.get(s.id());
+        assertEquals(b, back.board());
+        assertEquals(Mode.PVE, back.mode());
+        assertEquals(Mark.X, back.aiPlays());
+        assertEquals(Difficulty.MEDIUM, back.difficulty());
+        assertEquals(s.createdAt(), back.createdAt());
+
+        assertEquals(0, back.version());
+        assertTrue(store.update(back, back.state(), b.apply(8), back.state().history().play(8)));
+        assertFalse(store.update(back, back.state(), b.apply(7), back.state().history().play(7)), "version 0 is stale now");
+        GameSession moved = store.get(s.id());
+        assertEquals(b.apply(8), moved.board());
+        assertEquals(1, moved.version());
+        assertEquals(Difficulty.MEDIUM, moved.difficulty(), "a move keeps the other fields");
+        assertNull(store.create(Board.initial(Mark.X), Mode.PVP, null).aiPlays());
+    }
+
+    @Test
+    void versionsGoPastSixteenBits() {
+        PackedSessionStore store = store(10);
+        GameSession s = store.create(Board.initial(Mark.X), Mode.PVP, null);
+        store.restore(new GameSession(s.id(), new GameSession.State(s.board(), 70_000), Mode.PVP, null,
+                Difficulty.HARD, s.createdAt()));
+
+        GameSession back = store.get(s.id());
+        assertEquals(70_000, back.version());
+        assertTrue(store.update(back, back.state(), back.board().apply(0), back.state().history().play(0)));
+        assertEquals(70_001, store.get(s.id()).version());
+    }
+
+    @Test
+    void staleIdDoesNotSeeTheSlotsNextGame() {
+        PackedSessionStore store = store(1);
+        GameSession first = store.create(Board.initial(Mark.X), Mode.PVP, null);
+        store.remove(first.id());
+        GameSession second = store.create(Board.initial(Mark.O), Mode.PVP, null);
+
+        assertNull(store.get(first.id()));
+        assertFalse(store.update(first, first.state(), Board.initial(Mark.X).apply(0),
+                first.state().history().play(0))); // the game is gone
+        assertEquals(Board.initial(Mark.O), store.get(second.id()).board());
+        assertNull(store.get(UUID.randomUUID()));
+    }
+
+    @Test
+    void idWithTheRightSlotButAnotherKeyFindsNothing() {
+        PackedSessionStore store = store(10);
+        GameSession s = store.create(Board.initial(Mark.X), Mode.PVP, null);
+        UUID guess = new UUID(s.id().getMostSignificantBits(), s.id().getLeastSignificantBits() ^ 1);
+
+        assertNull(store.get(guess));
+        assertFalse(store.update(new GameSession(guess, s.state(), Mode.PVP, null, Difficulty.HARD, s.createdAt()),
+                s.state(), s.board().apply(0), s.state().history().play(0)));
+        store.remove(guess);
+        assertEquals(0, store.get(s.id()).version(), "the game is untouched");
+        assertNotEquals(s.id().getLeastSignificantBits(),
+                store.create(Board.initial(Mark.X), Mode.PVP, null).id().getLeastSignificantBits());
+    }
+
+    @Test
+    void idleGamesExpireAndFullStoreEvictsOldest() {
+        PackedSessionStore store = store(3);
+        List<GameSession> games = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            games.add(store.create(Board.initial(Mark.X), Mode.PVP, null));
+            clock.millis += 60_000;
+        }
+        GameSession fourth = store.create(Board.initial(Mark.X), Mode.PVP, null); // full: oldest goes
+        assertNull(store.get(games.get(0).id()));
+        assertNotNull(store.get(games.get(2).id()));
+        assertNotNull(store.get(fourth.id()));
+        assertEquals(1, store.stats().evicted());
+
+        clock.millis += Duration.ofMinutes(11).toMillis();
+        store.sweep();
+        assertEquals(0, store.stats().live());
+        assertEquals(3, store.stats().expired());
+    }
+
+    @Test
+    void otherBoardShapesGoToTheHeap() {
+        PackedSessionStore store = store(10);
+        GameSession s = store.create(MnkBoard.initial(5, 5, 4, Mark.X), Mode.PVP, null);
+        assertTrue(store.update(s, s.state(), s.board().apply(12), s.state().history().play(12)));
+        assertEquals(Mark.X, store.get(s.id()).board().cell(12));
+        assertEquals(1, store.stats().live());
+    }
+
+    @Test
+    void racingMovesOnOneGameAllLandExactlyOnce() throws Exception {
+        PackedSessionStore store = store(10);
+        UUID id = store.create(Board.initial(Mark.X), Mode.PVP, null).id();
+        // 9 threads each try to claim "their" cell until it lands; every CAS loser re-reads
+        Thread[] threads = new Thread[9];
+        for (int t = 0; t < threads.length; t++) {
+            int cell = t;
+            threads[t] = new Thread(() -> {
+                while (true) {
+                    GameSession s = store.get(id);
+                    GameSession.State st = s.state();
+                    if (store.update(s, st, ((Board) st.board()).applyUnchecked(cell), st.history().play(cell))) return;
+                }
+            });
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        GameSession end = store.get(id);
+        assertEquals(9, end.version());
+        assertEquals(0, ((Board) end.board()).emptyMask(), "no move overwrote another");
+        assertEquals(9, end.state().history().ply(), "and each one is in the history");
+    }
+
+    @Test
+    void readersAlwaysSeeABoardWithItsHistory() throws Exception {
+        PackedSessionStore store = store(10);
+        UUID id = store.create(Board.initial(Mark.X), Mode.PVP, null).id();
+        List<Throwable> errors = new ArrayList<>();
+        Thread[] threads = new Thread[6];
+        for (int t = 0; t < threads.length; t++) {
+            boolean mover = t % 2 == 0;
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20_000; i++) {
+                        GameSession.State st = store.get(id).state();
+                        Board b = (Board) st.board();
+                        // every stone on the board is a move before the history's ply
+                        assertEquals(Integer.bitCount(b.xMask() | b.oMask()), st.history().ply(), st.toString());
+                        if (!mover) continue;
+                        GameSession s = store.get(id);
+                        st = s.state();
+                        b = (Board) st.board();
+                        if (st.history().ply() > 0 && (i % 3 == 0 || b.isTerminal())) {
+                            store.update(s, st, b.takeBack(st.history().move(st.history().ply() - 1)),
+                                    st.history().undo());
+                        } else if (!b.isTerminal()) {
+                            int cell = Integer.numberOfTrailingZeros(b.emptyMask());
+                            store.update(s, st, b.apply(cell), st.history().play(cell));
+                        }
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(List.of(), errors);
+        GameSession end = store.get(id);
+        assertEquals(Integer.bitCount(((Board) end.board()).emptyMask()), 9 - end.state().history().ply());
+    }
+
+    @Test
+    void aBoardThatDoesNotFollowFromTheHistoryIsRefused() {
+        PackedSessionStore store = store(10);
+        GameSession s = store.create(Board.initial(Mark.X), Mode.PVP, null);
+        GameSession.State st = s.state();
+        assertThrows(IllegalArgumentException.class,
+                () -> store.update(s, st, st.board().apply(4), st.history().play(0)));
+        GameSession back = store.get(s.id());
+        assertEquals(0, back.version());
+        assertTrue(store.update(back, back.state(), back.board().apply(0), back.state().history().play(0)),
+                "and the refused move left the game as it was");
+        assertEquals(1, store.get(s.id()).state().history().ply());
+    }
+
+    @Test
+    void concurrentCreateAndRemoveReusesSlots() throws Exception {
+        PackedSessionStore store = store(1_000);
+        Thread[] threads = new Thread[4];
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20_000; i++) {
+                        GameSession s = store.create(Board.initial(Mark.X).apply(i % 9), Mode.PVP, null);
+                        assertEquals(Board.initial(Mark.X).apply(i % 9), store.get(s.id()).board());
+                        store.remove(s.id());
+                        assertNull(store.get(s.id()));
+                    }
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(List.of(), errors);
+        assertEquals(0, store.stats().live());
+        assertEquals(0, store.stats().evicted(), "never more than 4 games live at once");
+    }
+}
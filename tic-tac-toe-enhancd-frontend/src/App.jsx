@@ -1,4 +1,4 @@
-import { useState } from "react";
+import { useEffect, useRef, useState } from "react";
 import "./App.css";
 
 const API_BASE = import.meta.env.VITE_API_URL ?? "http://localhost:8080/api";
@@ -8,8 +8,51 @@ function App() {
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState("");
   const [lastHint, setLastHint] = useState(null);
+  const [difficulty, setDifficulty] = useState("HARD"); // for the next PVE game
 
   const hasGame = !!game;
+  const gameId = game?.gameId;
+  const gameRef = useRef(null); // latest game for the event handlers
+  useEffect(() => { gameRef.current = game; }, [game]);
+
+  // Server push instead of polling: moves made elsewhere (the other PVP player) arrive as deltas
+  useEffect(() => {
+    if (!gameId) return;
+    const events = new EventSource(`${API_BASE}/games/${gameId}/events`);
+    events.addEventListener("state", (e) => setGame(JSON.parse(e.data)));
+    events.addEventListener("delta", (e) => {
+      const d = JSON.parse(e.data);
+      const g = gameRef.current;
+      if (!g || g.gameId !== gameId || d.version <= g.version) return; // our own move, already applied
+      if (d.version !== g.version + 1) {
+        // a delta only applies on top of the version before it: we missed one, so take the whole state
+        fetch(`${API_BASE}/games/${gameId}`)
+          .then((res) => (res.ok ? res.json() : null))
+          .then((s) => s && setGame((cur) => (cur && cur.gameId === s.gameId && cur.version >= s.version ? cur : s)))
+          .catch(() => {});
+        return;
+      }
+      const board = g.board.split("");
+      d.cells.forEach((cell, i) => { board[cell] = d.marks[i]; });
+      const next = { ...g, board: board.join(""), toMove: d.toMove, status: d.status, winner: d.winner,
+                     version: d.version, ply: d.ply, redo: d.redo };
+      gameRef.current = next; // the next delta may arrive before this renders
+      setGame(next);
+    });
+    return () => events.close();
+  }, [gameId]);
+
+  // /turn only takes human moves: when the AI is to move (it plays X, or redo stopped before
+  // its reply), ask for its move. Returns the game to show.
+  async function aiMoveIfDue(g) {
+    if (g.mode !== "PVE" || g.status !== "IN_PROGRESS" || g.toMove !== g.aiPlays) return g;
+    const res = await fetch(`${API_BASE}/games/${g.gameId}/ai-move`, { method: "POST" });
+    if (!res.ok) {
+      const body = await res.json().catch(() => ({}));
+      throw new Error(body.error || `AI move failed: ${res.status}`);
+    }
+    return res.json();
+  }
 
   async function startGame(mode = "PVE", aiPlays = "O") {
     setLoading(true);
@@ -19,7 +62,7 @@ function App() {
       const res = await fetch(`${API_BASE}/games`, {
         method: "POST",
         headers: { "Content-Type": "application/json" },
-        body: JSON.stringify({ mode, aiPlays }),
+        body: JSON.stringify({ mode, aiPlays, difficulty }),
       });
       if (!res.ok) {
         const body = await res.json().catch(() => ({}));
@@ -27,6 +70,7 @@ function App() {
       }
       const data = await res.json();
       setGame(data);
+      setGame(await aiMoveIfDue(data)); // AI plays X: it opens
     } catch (e) {
       setError(e.message);
     } finally {
@@ -34,7 +78,7 @@ function App() {
     }
   }
 
-  // Play a human move, then (if PVE) trigger AI move
+  // Play a human move; in PVE the server answers with the AI's reply in the same request
   async function handleCellClick(index) {
     if (!game || loading) return;
 
@@ -52,36 +96,43 @@ function App() {
     setLastHint(null);
 
     try {
-      // 1. send human move
-      const playRes = await fetch(`${API_BASE}/games/${game.gameId}/play`, {
+      // one round trip: human move + AI reply (PVE), or just the move (PVP)
+      const res = await fetch(`${API_BASE}/games/${game.gameId}/turn`, {
         method: "POST",
         headers: { "Content-Type": "application/json" },
-        body: JSON.stringify({ index }),
+        body: JSON.stringify({ index, expectedVersion: game.version }),
       });
-      if (!playRes.ok) {
-        const body = await playRes.json().catch(() => ({}));
-        throw new Error(body.error || `Play failed: ${playRes.status}`);
+      if (!res.ok) {
+        const body = await res.json().catch(() => ({}));
+        throw new Error(body.error || `Play failed: ${res.status}`);
       }
-      let updated = await playRes.json();
-      setGame(updated);
-
-      // 2. if still in progress and it's AI's turn in PVE, ask AI to move
-      if (
-        updated.mode === "PVE" &&
-        updated.status === "IN_PROGRESS" &&
-        updated.aiPlays === updated.toMove
-      ) {
-        const aiRes = await fetch(
-          `${API_BASE}/games/${updated.gameId}/ai-move`,
-          { method: "POST" }
-        );
-        if (!aiRes.ok) {
-          const body = await aiRes.json().catch(() => ({}));
-          throw new Error(body.error || `AI move failed: ${aiRes.status}`);
-        }
-        updated = await aiRes.json();
-        setGame(updated);
+      const turn = await res.json();
+      setGame(turn.state);
+    } catch (e) {
+      setError(e.message);
+    } finally {
+      setLoading(false);
+    }
+  }
+
+  // Undo / redo: in PVE the server takes back (or replays) the AI's reply along with your move
+  async function step(action) {
+    if (!game || loading) return;
+
+    setLoading(true);
+    setError("");
+    setLastHint(null);
+    try {
+      const res = await fetch(`${API_BASE}/games/${game.gameId}/${action}?expectedVersion=${game.version}`, {
+        method: "POST",
+      });
+      if (!res.ok) {
+        const body = await res.json().catch(() => ({}));
+        throw new Error(body.error || `${action} failed: ${res.status}`);
       }
+      const data = await res.json();
+      setGame(data);
+      setGame(await aiMoveIfDue(data));
     } catch (e) {
       setError(e.message);
     } finally {
@@ -159,13 +210,22 @@ function App() {
             >
               🤖 AI (X) vs Player (O)
             </button>
+            <select
+              value={difficulty}
+              disabled={loading}
+              onChange={(e) => setDifficulty(e.target.value)}
+            >
+              <option value="EASY">Easy</option>
+              <option value="MEDIUM">Medium</option>
+              <option value="HARD">Hard</option>
+            </select>
           </div>
 
           {hasGame && (
             <div className="info-row">
               <span>
                 Mode: {game.mode}{" "}
-                {game.mode === "PVE" && `(AI plays ${game.aiPlays})`}
+                {game.mode === "PVE" && `(AI plays ${game.aiPlays}, ${game.difficulty.toLowerCase()})`}
               </span>
               <span>Game ID: {game.gameId}</span>
             </div>
@@ -207,6 +267,12 @@ function App() {
               >
                 💡 Hint
               </button>
+              <button onClick={() => step("undo")} disabled={!game || loading || game.ply === 0}>
+                ↶ Undo
+              </button>
+              <button onClick={() => step("redo")} disabled={!game || loading || game.redo === 0}>
+                ↷ Redo
+              </button>
               <button
                 onClick={() => {
                   setGame(null);